@@ -0,0 +1,101 @@
+package com.functions;
+
+import com.function.ReplayHelpers.ReplayHistory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import com.microsoft.durabletask.OrchestrationRunner;
+import com.microsoft.durabletask.OrchestratorFunction;
+
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Replays the Cities orchestrator through OrchestrationRunner.loadAndRun, the same call
+ * citiesOrchestrator makes, with no host, sidecar or storage. Each operation decodes one request,
+ * replays its history against AzureFunctions.cities and encodes the response, so the score is replay
+ * throughput; the gc profiler adds allocation per replay.
+ *
+ * By default the request is a synthesized history in which all seven activities have completed. With
+ * -PreplayCaptures=&lt;directory&gt; the benchmark instead cycles through the requests ReplayCapture
+ * saved under &lt;directory&gt;/Cities, which replays real traffic, including requests from partway
+ * through the orchestration.
+ *
+ * The history is built with BasicJava's ReplayHistory, which this build compiles from the BasicJava
+ * source tree rather than keeping a copy. Run with `gradle jmh` in this folder.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CitiesReplayBenchmark {
+    static final String CAPTURES_PROPERTY = "replay.captures";
+
+    @State(Scope.Thread)
+    public static class Requests {
+        String[] requests;
+        int next;
+        OrchestratorFunction<String> orchestrator;
+
+        @Setup
+        public void setUp() {
+            orchestrator = new AzureFunctions()::cities;
+            String captures = System.getProperty(CAPTURES_PROPERTY);
+            if (captures != null && !captures.isEmpty()) {
+                requests = loadCaptures(Paths.get(captures, "Cities"));
+                return;
+            }
+
+            String request = new ReplayHistory("replay-cities", "Cities", null)
+                    .activity("Capitalize", "\"Tokyo\"", "\"TOKYO\"")
+                    .activity("Capitalize", "\"London\"", "\"LONDON\"")
+                    .activity("Capitalize", "\"Seattle\"", "\"SEATTLE\"")
+                    .activity("Capitalize", "\"Austin\"", "\"AUSTIN\"")
+                    .activity("Print", "123", "\"123\"")
+                    .activity("PrintArray", "[\"Dubai\",\"New York\",\"Vancouver\"]", "\"[Dubai, New York, Vancouver]\"")
+                    .activity("PrintObject", "{\"country\":\"France\",\"name\":\"Paris\"}", "\"City [Country=France, name=Paris]\"")
+                    .toBase64();
+            ReplayHistory.verify(OrchestrationRunner.loadAndRun(request, orchestrator), true);
+            requests = new String[] { request };
+        }
+
+        String nextRequest() {
+            String request = requests[next];
+            next = (next + 1) % requests.length;
+            return request;
+        }
+
+        private static String[] loadCaptures(Path folder) {
+            try (Stream<Path> files = Files.list(folder)) {
+                List<Path> captures = files
+                        .filter(file -> file.getFileName().toString().endsWith(".b64"))
+                        .sorted()
+                        .collect(Collectors.toList());
+                if (captures.isEmpty()) {
+                    throw new IllegalStateException("No captured requests in " + folder);
+                }
+                String[] requests = new String[captures.size()];
+                for (int i = 0; i < requests.length; i++) {
+                    requests[i] = new String(Files.readAllBytes(captures.get(i)), StandardCharsets.US_ASCII).trim();
+                }
+                return requests;
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not read captured requests from " + folder, e);
+            }
+        }
+    }
+
+    @Benchmark
+    public String cities(Requests state) {
+        return OrchestrationRunner.loadAndRun(state.nextRequest(), state.orchestrator);
+    }
+}
@@ -0,0 +1,108 @@
+package com.functions;
+
+import com.microsoft.azure.functions.annotation.*;
+import com.microsoft.azure.functions.*;
+
+import java.time.Duration;
+import java.util.*;
+
+import com.microsoft.durabletask.DurableTaskClient;
+import com.microsoft.durabletask.OrchestrationMetadata;
+import com.microsoft.durabletask.OrchestrationRuntimeStatus;
+import com.microsoft.durabletask.azurefunctions.DurableClientContext;
+import com.microsoft.durabletask.azurefunctions.DurableClientInput;
+
+/**
+ * Statistics and a throughput benchmark for ActivityResultCache.
+ */
+public class ActivityCacheFunctions {
+    private static final List<String> CITIES_ACTIVITIES = Arrays.asList("Capitalize", "Print", "PrintArray", "PrintObject");
+
+    /**
+     * Returns the activity result cache's hit/miss counters and size. DELETE also empties its memory tier.
+     */
+    @FunctionName("ActivityCache_Stats")
+    public HttpResponseMessage stats(
+            @HttpTrigger(name = "req", methods = {HttpMethod.GET, HttpMethod.DELETE}, authLevel = AuthorizationLevel.ANONYMOUS) HttpRequestMessage<Optional<String>> request,
+            final ExecutionContext context) {
+        if (request.getHttpMethod() == HttpMethod.DELETE) {
+            ActivityResultCache.shared().clear();
+        }
+        return request.createResponseBuilder(HttpStatus.OK)
+                .header("Content-Type", "application/json")
+                .body(ActivityResultCache.shared().getStatisticsJson())
+                .build();
+    }
+
+    /**
+     * Runs "orchestrations" (default 100) Cities orchestrations at once, first with the activity result
+     * cache off and then with it on for the Cities activities and warmed by one earlier run, and reports
+     * the throughput and cache hits of each. The cache switch is per worker process, so run this against
+     * a single worker; the activities' previous settings are restored afterwards.
+     */
+    @FunctionName("Cities_CacheBenchmark")
+    public HttpResponseMessage citiesCacheBenchmark(
+            @HttpTrigger(name = "req", methods = {HttpMethod.GET, HttpMethod.POST}, authLevel = AuthorizationLevel.ANONYMOUS) HttpRequestMessage<Optional<String>> request,
+            @DurableClientInput(name = "durableContext") DurableClientContext durableContext,
+            final ExecutionContext context) {
+        int orchestrations = Integer.parseInt(request.getQueryParameters().getOrDefault("orchestrations", "100"));
+        DurableTaskClient client = SharedDurableClients.get(durableContext);
+        ActivityResultCache cache = ActivityResultCache.shared();
+        Set<String> wasEnabled = cache.getEnabledActivities();
+
+        try {
+            for (String activityName : CITIES_ACTIVITIES) {
+                cache.setEnabled(activityName, false);
+            }
+            String uncached = runCities(client, cache, orchestrations);
+
+            for (String activityName : CITIES_ACTIVITIES) {
+                cache.setEnabled(activityName, true);
+            }
+            runCities(client, cache, 1);
+            String warm = runCities(client, cache, orchestrations);
+
+            String json = "{\"orchestrations\":" + orchestrations
+                    + ",\"uncached\":" + uncached
+                    + ",\"warmCache\":" + warm
+                    + ",\"cache\":" + cache.getStatisticsJson()
+                    + "}";
+            return request.createResponseBuilder(HttpStatus.OK)
+                    .header("Content-Type", "application/json")
+                    .body(json)
+                    .build();
+        } catch (Exception ex) {
+            context.getLogger().severe("Cities cache benchmark failed: " + ex.getMessage());
+            return request.createResponseBuilder(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .header("Content-Type", "text/plain")
+                    .body(ex.getMessage())
+                    .build();
+        } finally {
+            cache.setEnabledActivities(wasEnabled);
+        }
+    }
+
+    private static String runCities(DurableTaskClient client, ActivityResultCache cache, int count) throws Exception {
+        long hits = cache.getHits() + cache.getDiskHits();
+        long misses = cache.getMisses();
+        long start = System.nanoTime();
+        List<String> instanceIds = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            instanceIds.add(client.scheduleNewOrchestrationInstance("Cities"));
+        }
+        int completed = 0;
+        for (String instanceId : instanceIds) {
+            OrchestrationMetadata metadata = client.waitForInstanceCompletion(instanceId, Duration.ofMinutes(5), false);
+            if (metadata != null && metadata.getRuntimeStatus() == OrchestrationRuntimeStatus.COMPLETED) {
+                completed++;
+            }
+        }
+        long elapsedMs = Math.max(1, Duration.ofNanos(System.nanoTime() - start).toMillis());
+        return "{\"completed\":" + completed
+                + ",\"elapsedMs\":" + elapsedMs
+                + ",\"orchestrationsPerSecond\":" + (completed * 1000.0 / elapsedMs)
+                + ",\"cacheHits\":" + (cache.getHits() + cache.getDiskHits() - hits)
+                + ",\"cacheMisses\":" + (cache.getMisses() - misses)
+                + "}";
+    }
+}
@@ -0,0 +1,320 @@
+package com.functions;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.microsoft.durabletask.DataConverter;
+import com.microsoft.durabletask.JacksonDataConverter;
+
+/**
+ * An opt-in cache of activity results for activities that are pure functions of their input, shared by
+ * all invocations in the worker process. An activity can use it by running its body through getOrCompute:
+ *
+ *   return ActivityResultCache.shared().getOrCompute("Capitalize", name, String.class, () -> name.toUpperCase());
+ *
+ * The cache is off for every activity until it is turned on for that activity by name, with the
+ * ActivityCache_Activities setting (a comma-separated list of activity names) or setEnabled. Until
+ * then getOrCompute just runs the activity, and nothing is kept in memory or on disk.
+ *
+ * Entries are keyed by the activity name and the SHA-256 of the input as the SDK's data converter
+ * serializes it, and hold the serialized result, so every hit returns a fresh copy. The memory tier keeps
+ * at most ActivityCache_MaxEntries (default 10000) entries and ActivityCache_MaxBytes (default 64 MB),
+ * evicting the least recently used first, and entries expire ActivityCache_TtlSeconds (default 3600)
+ * after they were computed. When ActivityCache_Directory is set, results are also written there and a
+ * memory miss is looked up on disk, so they survive worker restarts.
+ *
+ * Only the activity body is skipped on a hit. The orchestrator still schedules the activity and the host
+ * still dispatches it, because an orchestrator that read the cache would not replay deterministically.
+ */
+public final class ActivityResultCache {
+    private static final Logger logger = Logger.getLogger(ActivityResultCache.class.getName());
+    // Rough per-entry overhead of the map node, entry and key, on top of the UTF-16 characters
+    private static final long ENTRY_OVERHEAD_BYTES = 96;
+
+    private static final ActivityResultCache shared = new ActivityResultCache(
+            AppSettings.getLong("ActivityCache_MaxEntries", 10000),
+            AppSettings.getLong("ActivityCache_MaxBytes", 64L * 1024 * 1024),
+            Duration.ofSeconds(AppSettings.getLong("ActivityCache_TtlSeconds", 3600)),
+            System.getenv("ActivityCache_Directory"));
+
+    private final DataConverter dataConverter = new JacksonDataConverter();
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final long maxEntries;
+    private final long maxBytes;
+    private final long ttlMillis;
+    private final Path directory;
+    private long bytes;
+    private volatile Set<String> enabledActivities = parseActivityNames(AppSettings.getString("ActivityCache_Activities", ""));
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder diskHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+
+    ActivityResultCache(long maxEntries, long maxBytes, Duration ttl, String directory) {
+        this.maxEntries = maxEntries;
+        this.maxBytes = maxBytes;
+        this.ttlMillis = ttl.toMillis();
+        this.directory = directory == null || directory.isEmpty() ? null : Paths.get(directory);
+    }
+
+    public static ActivityResultCache shared() {
+        return shared;
+    }
+
+    /**
+     * Returns the cached result of activityName for this input, or runs the activity and caches its
+     * result. Exceptions and null results are not cached.
+     */
+    public <T> T getOrCompute(String activityName, Object input, Class<T> resultType, Supplier<T> activity) {
+        if (!enabledActivities.contains(activityName)) {
+            return activity.get();
+        }
+        String hash = sha256(dataConverter.serialize(input));
+        String key = activityName + "/" + hash;
+        long now = System.currentTimeMillis();
+
+        String json = getFromMemory(key, now);
+        if (json != null) {
+            hits.increment();
+            return dataConverter.deserialize(json, resultType);
+        }
+        Entry stored = readFromDisk(activityName, hash, now);
+        if (stored != null) {
+            diskHits.increment();
+            putInMemory(key, stored);
+            return dataConverter.deserialize(stored.json, resultType);
+        }
+
+        misses.increment();
+        T result = activity.get();
+        if (result != null) {
+            Entry entry = new Entry(dataConverter.serialize(result), now + ttlMillis);
+            putInMemory(key, entry);
+            writeToDisk(activityName, hash, entry);
+        }
+        return result;
+    }
+
+    public boolean isEnabled(String activityName) {
+        return enabledActivities.contains(activityName);
+    }
+
+    /**
+     * Turns the cache on or off for one activity in this worker process.
+     */
+    public synchronized void setEnabled(String activityName, boolean enabled) {
+        Set<String> activities = new HashSet<>(enabledActivities);
+        if (enabled) {
+            activities.add(activityName);
+        } else {
+            activities.remove(activityName);
+        }
+        enabledActivities = Collections.unmodifiableSet(activities);
+    }
+
+    /**
+     * Returns the activities the cache is on for.
+     */
+    public Set<String> getEnabledActivities() {
+        return enabledActivities;
+    }
+
+    public synchronized void setEnabledActivities(Set<String> activityNames) {
+        enabledActivities = Collections.unmodifiableSet(new HashSet<>(activityNames));
+    }
+
+    /**
+     * Empties the memory tier. Results on disk stay until they expire.
+     */
+    public synchronized void clear() {
+        entries.clear();
+        bytes = 0;
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getDiskHits() {
+        return diskHits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * Returns the cache's size and hit/miss counters as JSON.
+     */
+    public String getStatisticsJson() {
+        long entryCount;
+        long byteCount;
+        synchronized (this) {
+            entryCount = entries.size();
+            byteCount = bytes;
+        }
+        long hitCount = hits.sum() + diskHits.sum();
+        long lookups = hitCount + misses.sum();
+        StringBuilder activities = new StringBuilder();
+        for (String activityName : enabledActivities) {
+            activities.append(activities.length() == 0 ? "\"" : ",\"").append(activityName).append('"');
+        }
+        return "{\"enabledActivities\":[" + activities + "]"
+                + ",\"entries\":" + entryCount
+                + ",\"bytes\":" + byteCount
+                + ",\"diskTier\":" + (directory != null)
+                + ",\"hits\":" + hits.sum()
+                + ",\"diskHits\":" + diskHits.sum()
+                + ",\"misses\":" + misses.sum()
+                + ",\"hitRatio\":" + (lookups == 0 ? 0 : (double) hitCount / lookups)
+                + ",\"evictions\":" + evictions.sum()
+                + ",\"expirations\":" + expirations.sum()
+                + "}";
+    }
+
+    private synchronized String getFromMemory(String key, long now) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.expiresAt <= now) {
+            remove(key);
+            expirations.increment();
+            return null;
+        }
+        return entry.json;
+    }
+
+    private synchronized void putInMemory(String key, Entry entry) {
+        long size = entry.size(key);
+        if (size > maxBytes) {
+            return;
+        }
+        remove(key);
+        entries.put(key, entry);
+        bytes += size;
+        Iterator<Map.Entry<String, Entry>> eldest = entries.entrySet().iterator();
+        while ((entries.size() > maxEntries || bytes > maxBytes) && eldest.hasNext()) {
+            Map.Entry<String, Entry> evicted = eldest.next();
+            bytes -= evicted.getValue().size(evicted.getKey());
+            eldest.remove();
+            evictions.increment();
+        }
+    }
+
+    private void remove(String key) {
+        Entry removed = entries.remove(key);
+        if (removed != null) {
+            bytes -= removed.size(key);
+        }
+    }
+
+    private Entry readFromDisk(String activityName, String hash, long now) {
+        if (directory == null) {
+            return null;
+        }
+        Path file = directory.resolve(activityName).resolve(hash + ".json");
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            long expiresAt = Long.parseLong(reader.readLine());
+            if (expiresAt <= now) {
+                reader.close();
+                Files.deleteIfExists(file);
+                expirations.increment();
+                return null;
+            }
+            StringBuilder json = new StringBuilder();
+            char[] buffer = new char[8192];
+            int read;
+            while ((read = reader.read(buffer)) != -1) {
+                json.append(buffer, 0, read);
+            }
+            return new Entry(json.toString(), expiresAt);
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException | RuntimeException e) {
+            logger.log(Level.WARNING, "Could not read cached result " + file, e);
+            return null;
+        }
+    }
+
+    private void writeToDisk(String activityName, String hash, Entry entry) {
+        if (directory == null) {
+            return;
+        }
+        try {
+            Path folder = directory.resolve(activityName);
+            Files.createDirectories(folder);
+            // Written to a temp file first, so other workers never read a partial result
+            Path temp = Files.createTempFile(folder, hash, ".tmp");
+            try (Writer writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+                writer.write(Long.toString(entry.expiresAt));
+                writer.write('\n');
+                writer.write(entry.json);
+            }
+            Files.move(temp, folder.resolve(hash + ".json"), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "Could not write cached result for " + activityName + " to " + directory, e);
+        }
+    }
+
+    private static String sha256(String value) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256")
+                    .digest(String.valueOf(value).getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static Set<String> parseActivityNames(String value) {
+        Set<String> names = new HashSet<>();
+        for (String name : value.split(",")) {
+            if (!name.trim().isEmpty()) {
+                names.add(name.trim());
+            }
+        }
+        return Collections.unmodifiableSet(names);
+    }
+
+    private static final class Entry {
+        final String json;
+        final long expiresAt;
+
+        Entry(String json, long expiresAt) {
+            this.json = json;
+            this.expiresAt = expiresAt;
+        }
+
+        long size(String key) {
+            return ENTRY_OVERHEAD_BYTES + 2L * (key.length() + json.length());
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.functions;
+
+/**
+ * Reads optional tuning values from the function app's application settings, which the
+ * Functions host exposes to the Java worker as environment variables.
+ */
+final class AppSettings {
+    private AppSettings() {}
+
+    static String getString(String name, String defaultValue) {
+        String value = System.getenv(name);
+        return value == null || value.trim().isEmpty() ? defaultValue : value.trim();
+    }
+
+    static long getLong(String name, long defaultValue) {
+        String value = getString(name, null);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+}
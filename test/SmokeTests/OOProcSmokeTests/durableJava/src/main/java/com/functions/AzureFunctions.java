@@ -6,6 +6,7 @@ import java.util.*;
 
 import com.microsoft.durabletask.DurableTaskClient;
 import com.microsoft.durabletask.OrchestrationRunner;
+import com.microsoft.durabletask.TaskOrchestrationContext;
 import com.microsoft.durabletask.azurefunctions.DurableActivityTrigger;
 import com.microsoft.durabletask.azurefunctions.DurableClientContext;
 import com.microsoft.durabletask.azurefunctions.DurableClientInput;
@@ -25,7 +26,7 @@ public class AzureFunctions {
             final ExecutionContext context) {
         context.getLogger().info("Java HTTP trigger processed a request.");
 
-        DurableTaskClient client = durableContext.getClient();
+        DurableTaskClient client = SharedDurableClients.get(durableContext);
 
         // Get instanceId from query parameter if provided
         String providedInstanceId = request.getQueryParameters().get("instanceId");
@@ -44,37 +45,45 @@ public class AzureFunctions {
     /**
      * This is the orchestrator function. The OrchestrationRunner.loadAndRun() static
      * method is used to take the function input and execute the orchestrator logic.
+     * ReplayCapture saves the request when ReplayCapture_Directory is set.
      */
     @FunctionName("Cities")
     public String citiesOrchestrator(
             @DurableOrchestrationTrigger(name = "orchestratorRequestProtoBytes") String orchestratorRequestProtoBytes) {
-        return OrchestrationRunner.loadAndRun(orchestratorRequestProtoBytes, ctx -> {
-            String result = "";
-            String[] cities = {"Dubai", "New York", "Vancouver"};
-            City paris = new City("France", "Paris");
-            
-            result += ctx.callActivity("Capitalize", "Tokyo", String.class).await() + ", ";
-            result += ctx.callActivity("Capitalize", "London", String.class).await() + ", ";
-            result += ctx.callActivity("Capitalize", "Seattle", String.class).await() + ", ";
-            result += ctx.callActivity("Capitalize", "Austin", String.class).await()+ ", ";
-
-            result += ctx.callActivity("Print", 123, String.class).await()+ ", ";
-            result += ctx.callActivity("PrintArray", cities, String.class).await()+ ", ";
-            result += ctx.callActivity("PrintObject", paris, String.class).await()+ ", ";
-
-            return result;
-        });
+        return OrchestrationRunner.loadAndRun(ReplayCapture.capture("Cities", orchestratorRequestProtoBytes), this::cities);
     }
 
     /**
-     * This is the activity function that gets invoked by the orchestration.
+     * The Cities orchestrator logic, also run by the replay benchmarks under jmh/.
+     */
+    public String cities(TaskOrchestrationContext ctx) {
+        String result = "";
+        String[] cities = {"Dubai", "New York", "Vancouver"};
+        City paris = new City("France", "Paris");
+
+        result += ctx.callActivity("Capitalize", "Tokyo", String.class).await() + ", ";
+        result += ctx.callActivity("Capitalize", "London", String.class).await() + ", ";
+        result += ctx.callActivity("Capitalize", "Seattle", String.class).await() + ", ";
+        result += ctx.callActivity("Capitalize", "Austin", String.class).await()+ ", ";
+
+        result += ctx.callActivity("Print", 123, String.class).await()+ ", ";
+        result += ctx.callActivity("PrintArray", cities, String.class).await()+ ", ";
+        result += ctx.callActivity("PrintObject", paris, String.class).await()+ ", ";
+
+        return result;
+    }
+
+    /**
+     * This is the activity function that gets invoked by the orchestration. It and the other
+     * activities below are pure, so they can take their results from ActivityResultCache once
+     * ActivityCache_Activities turns it on for them.
      */
     @FunctionName("Capitalize")
     public String capitalize(
             @DurableActivityTrigger(name = "name") String name,
             final ExecutionContext context) {
         context.getLogger().info("Capitalizing: " + name);
-        return name.toUpperCase();
+        return ActivityResultCache.shared().getOrCompute("Capitalize", name, String.class, () -> name.toUpperCase());
     }
 
     @FunctionName("Print")
@@ -82,7 +91,7 @@ public class AzureFunctions {
             @DurableActivityTrigger(name = "input") String input,
             final ExecutionContext context) {
         context.getLogger().info("Printing input: " + input);
-        return input.toString();
+        return ActivityResultCache.shared().getOrCompute("Print", input, String.class, () -> input.toString());
     }
 
     @FunctionName("PrintArray")
@@ -90,7 +99,7 @@ public class AzureFunctions {
             @DurableActivityTrigger(name = "array") String[] array,
             final ExecutionContext context) {
         context.getLogger().info(Arrays.toString(array));
-        return Arrays.toString(array);
+        return ActivityResultCache.shared().getOrCompute("PrintArray", array, String.class, () -> Arrays.toString(array));
     }
 
     @FunctionName("PrintObject")
@@ -98,7 +107,7 @@ public class AzureFunctions {
             @DurableActivityTrigger(name = "city") City city,
             final ExecutionContext context) {
         context.getLogger().info("Printing object" + city.toString());
-        return city.toString();
+        return ActivityResultCache.shared().getOrCompute("PrintObject", city, String.class, () -> city.toString());
     }
 
     public class City {
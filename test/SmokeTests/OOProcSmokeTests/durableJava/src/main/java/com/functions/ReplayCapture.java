@@ -0,0 +1,59 @@
+package com.functions;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Saves the orchestrator requests the host sends, exactly as the orchestrator function receives
+ * them, so the replay benchmarks under jmh/ can run them through OrchestrationRunner.loadAndRun
+ * without a host. Off unless the ReplayCapture_Directory app setting is set; each request is then
+ * written to &lt;directory&gt;/&lt;orchestrator name&gt;/&lt;sequence&gt;.b64.
+ *
+ * ReplayCapture_SampleEvery (default 1) keeps every Nth request and ReplayCapture_MaxFilesPerOrchestrator
+ * (default 1000) caps the files written per orchestrator by this process. Capture failures are logged
+ * and never affect the orchestration.
+ */
+public final class ReplayCapture {
+    private static final Logger logger = Logger.getLogger(ReplayCapture.class.getName());
+    private static final String directory = System.getenv("ReplayCapture_Directory");
+    private static final long sampleEvery = Math.max(1, AppSettings.getLong("ReplayCapture_SampleEvery", 1));
+    private static final long maxFilesPerOrchestrator = AppSettings.getLong("ReplayCapture_MaxFilesPerOrchestrator", 1000);
+    private static final long processStartMillis = System.currentTimeMillis();
+    private static final ConcurrentHashMap<String, AtomicLong> requestCounts = new ConcurrentHashMap<>();
+
+    private ReplayCapture() {}
+
+    /**
+     * Saves the request if capture is on and returns it unchanged.
+     */
+    public static String capture(String orchestratorName, String orchestratorRequestProtoBytes) {
+        if (directory == null || directory.isEmpty() || orchestratorRequestProtoBytes == null) {
+            return orchestratorRequestProtoBytes;
+        }
+        long count = requestCounts.computeIfAbsent(orchestratorName, n -> new AtomicLong()).getAndIncrement();
+        if (count % sampleEvery != 0 || count / sampleEvery >= maxFilesPerOrchestrator) {
+            return orchestratorRequestProtoBytes;
+        }
+
+        try {
+            Path folder = Paths.get(directory, orchestratorName);
+            Files.createDirectories(folder);
+            // The start time keeps files from earlier worker processes; the temp file keeps readers from seeing partial writes
+            String name = String.format("%d-%06d.b64", processStartMillis, count);
+            Path temp = Files.createTempFile(folder, name, ".tmp");
+            Files.write(temp, orchestratorRequestProtoBytes.getBytes(StandardCharsets.US_ASCII));
+            Files.move(temp, folder.resolve(name), StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException | RuntimeException e) {
+            logger.log(Level.WARNING, "Could not capture a " + orchestratorName + " request in " + directory, e);
+        }
+        return orchestratorRequestProtoBytes;
+    }
+}
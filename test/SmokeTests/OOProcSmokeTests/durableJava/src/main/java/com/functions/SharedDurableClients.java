@@ -0,0 +1,22 @@
+package com.functions;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.microsoft.durabletask.DurableTaskClient;
+import com.microsoft.durabletask.azurefunctions.DurableClientContext;
+
+/**
+ * Keeps one DurableTaskClient per task hub for the whole process. The worker binds a new
+ * DurableClientContext for every invocation and getClient() caches its client only on that
+ * context, so without this each invocation would open its own gRPC channel to the sidecar.
+ */
+public final class SharedDurableClients {
+    private static final ConcurrentHashMap<String, DurableTaskClient> clients = new ConcurrentHashMap<>();
+
+    private SharedDurableClients() {}
+
+    public static DurableTaskClient get(DurableClientContext durableContext) {
+        String taskHubName = durableContext.getTaskHubName();
+        return clients.computeIfAbsent(taskHubName != null ? taskHubName : "", name -> durableContext.getClient());
+    }
+}
@@ -0,0 +1,68 @@
+#
+# Copyright (c) Microsoft. All rights reserved.
+# Licensed under the MIT license. See LICENSE file in the project root for full license information.
+#
+# Helpers shared by Train-AppCds.ps1 and Measure-AppCdsStartup.ps1.
+
+$TerminalStatuses = @("Completed", "Failed", "Terminated")
+
+function Start-FunctionHost {
+    param(
+        [string]$AppDirectory,
+        [int]$Port,
+        [string]$JavaOpts,
+        [hashtable]$Settings = @{}
+    )
+
+    # The Java worker appends %JAVA_OPTS% to its JVM arguments; the host passes its environment through
+    $env:JAVA_OPTS = $JavaOpts
+    foreach ($name in $Settings.Keys) {
+        Set-Item -Path "env:$name" -Value $Settings[$name]
+    }
+    $process = Start-Process -FilePath "func" -ArgumentList "start --port $Port" -WorkingDirectory $AppDirectory -PassThru -NoNewWindow
+    return $process
+}
+
+function Stop-FunctionHost {
+    param([System.Diagnostics.Process]$Process)
+
+    if (!$Process.HasExited) {
+        # Kill the host together with the Java worker it launched
+        $Process.Kill($true)
+        $Process.WaitForExit()
+    }
+}
+
+function Wait-Orchestration {
+    param(
+        [string]$StatusUri,
+        [int]$TimeoutSeconds
+    )
+
+    $deadline = (Get-Date).AddSeconds($TimeoutSeconds)
+    while ((Get-Date) -lt $deadline) {
+        $status = Invoke-RestMethod -Method Get -Uri $StatusUri
+        if ($TerminalStatuses -contains $status.runtimeStatus) {
+            return $status
+        }
+        Start-Sleep -Milliseconds 100
+    }
+    throw "Orchestration did not finish within $TimeoutSeconds seconds: $StatusUri"
+}
+
+function Start-OrchestrationWhenReady {
+    param(
+        [string]$Uri,
+        [datetime]$Deadline
+    )
+
+    # Until the host and worker are up the request is refused or fails; retry until it is accepted
+    while ((Get-Date) -lt $Deadline) {
+        try {
+            return Invoke-RestMethod -Method Post -Uri $Uri
+        } catch {
+            Start-Sleep -Milliseconds 100
+        }
+    }
+    throw "The function host did not accept '$Uri' before the deadline."
+}
@@ -0,0 +1,74 @@
+#!/usr/bin/env pwsh
+#
+# Copyright (c) Microsoft. All rights reserved.
+# Licensed under the MIT license. See LICENSE file in the project root for full license information.
+#
+# Startup benchmark: time from launch to the first orchestration completed, with and without the
+# AppCDS archive written by Train-AppCds.ps1. See README.md in this folder.
+
+param(
+    [Parameter(Mandatory=$true)]
+    [string]$AppDirectory,
+    [string]$ArchivePath = (Join-Path $AppDirectory "app-cds.jsa"),
+    [int]$Port = 7071,
+    [int]$Runs = 5,
+    [string]$StartRoute = "api/StartOrchestration?orchestrationName=HelloCities",
+    # Leave empty for apps without the AppCds_StartupReport function; only wall-clock times are reported then
+    [string]$ReportRoute = "api/AppCds_StartupReport",
+    [int]$TimeoutSeconds = 180
+)
+
+$ErrorActionPreference = "Stop"
+. (Join-Path $PSScriptRoot "AppCdsCommon.ps1")
+
+$AppDirectory = (Resolve-Path $AppDirectory).Path
+$ArchivePath = (Resolve-Path $ArchivePath).Path
+
+$modes = [ordered]@{
+    "without-archive" = ""
+    "with-archive"    = "-XX:SharedArchiveFile=$ArchivePath -Xshare:auto"
+}
+
+$results = @()
+foreach ($mode in $modes.Keys) {
+    for ($run = 1; $run -le $Runs; $run++) {
+        $stopwatch = [System.Diagnostics.Stopwatch]::StartNew()
+        $process = Start-FunctionHost -AppDirectory $AppDirectory -Port $Port -JavaOpts $modes[$mode]
+        try {
+            $deadline = (Get-Date).AddSeconds($TimeoutSeconds)
+            $started = Start-OrchestrationWhenReady -Uri "http://localhost:$Port/$StartRoute" -Deadline $deadline
+            Wait-Orchestration -StatusUri $started.statusQueryGetUri -TimeoutSeconds $TimeoutSeconds | Out-Null
+            $wallMs = $stopwatch.ElapsedMilliseconds
+
+            $jvmMs = $null
+            $sharing = $null
+            if ($ReportRoute) {
+                $report = Invoke-RestMethod -Method Get -Uri "http://localhost:$Port/${ReportRoute}?instanceId=$($started.id)"
+                $jvmMs = $report.msFromJvmStartToCompletion
+                $sharing = $report.useSharedSpaces
+            }
+        } finally {
+            Stop-FunctionHost -Process $process
+        }
+
+        Write-Host "$mode run ${run}: host launch -> completed $wallMs ms, JVM launch -> completed $jvmMs ms (UseSharedSpaces=$sharing)" -ForegroundColor Yellow
+        $results += [pscustomobject]@{ Mode = $mode; Run = $run; HostLaunchToCompletedMs = $wallMs; JvmLaunchToCompletedMs = $jvmMs; UseSharedSpaces = $sharing }
+    }
+}
+
+function Get-Median([double[]]$values) {
+    $sorted = $values | Sort-Object
+    return $sorted[[int][Math]::Floor(($sorted.Count - 1) / 2)]
+}
+
+$summary = foreach ($mode in $modes.Keys) {
+    $modeResults = $results | Where-Object { $_.Mode -eq $mode }
+    $jvmValues = @($modeResults | Where-Object { $null -ne $_.JvmLaunchToCompletedMs } | ForEach-Object { $_.JvmLaunchToCompletedMs })
+    [pscustomobject]@{
+        Mode = $mode
+        Runs = $modeResults.Count
+        MedianHostLaunchToCompletedMs = Get-Median ($modeResults | ForEach-Object { $_.HostLaunchToCompletedMs })
+        MedianJvmLaunchToCompletedMs = if ($jvmValues.Count -gt 0) { Get-Median $jvmValues } else { $null }
+    }
+}
+$summary | Format-Table -AutoSize
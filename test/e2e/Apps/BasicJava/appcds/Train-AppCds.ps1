@@ -0,0 +1,81 @@
+#!/usr/bin/env pwsh
+#
+# Copyright (c) Microsoft. All rights reserved.
+# Licensed under the MIT license. See LICENSE file in the project root for full license information.
+#
+# Runs a training workload through a packaged Java function app and writes a dynamic AppCDS archive
+# of every class the worker JVM loaded. See README.md in this folder.
+
+param(
+    [Parameter(Mandatory=$true)]
+    [string]$AppDirectory,
+    [string]$ArchivePath = (Join-Path $AppDirectory "app-cds.jsa"),
+    [int]$Port = 7071,
+    [string[]]$TrainingRoutes = @(
+        "api/StartOrchestration?orchestrationName=HelloCities",
+        "api/StartOrchestration?orchestrationName=ActivityInputTypeOrchestrator",
+        "api/StartOrchestration?orchestrationName=CatchActivityException",
+        "api/LargeOutputOrchestrator_HttpStart"
+    ),
+    [int]$Iterations = 5,
+    [string]$ReportRoute = "api/AppCds_StartupReport",
+    # The worker exits by itself this many seconds after its JVM launched; the workload has to finish first
+    [int]$TrainingSeconds = 120,
+    [int]$TimeoutSeconds = 180
+)
+
+$ErrorActionPreference = "Stop"
+. (Join-Path $PSScriptRoot "AppCdsCommon.ps1")
+
+# -XX:ArchiveClassesAtExit (dynamic archive) needs JDK 13 or later
+$javaVersion = (& java -XshowSettings:properties -version 2>&1 | Select-String "java.specification.version = (\d+)").Matches[0].Groups[1].Value
+if ([int]$javaVersion -lt 13) {
+    throw "AppCDS dynamic archives need Java 13 or later; found Java $javaVersion."
+}
+
+$AppDirectory = (Resolve-Path $AppDirectory).Path
+$ArchivePath = [System.IO.Path]::GetFullPath($ArchivePath)
+Remove-Item -Path $ArchivePath -ErrorAction SilentlyContinue
+
+Write-Host "Starting training host for '$AppDirectory' on port $Port..." -ForegroundColor Yellow
+$process = Start-FunctionHost -AppDirectory $AppDirectory -Port $Port `
+    -JavaOpts "-XX:ArchiveClassesAtExit=$ArchivePath" `
+    -Settings @{ "AppCds_TrainingExitAfterSeconds" = "$TrainingSeconds" }
+
+try {
+    $deadline = (Get-Date).AddSeconds($TimeoutSeconds)
+    for ($i = 1; $i -le $Iterations; $i++) {
+        foreach ($route in $TrainingRoutes) {
+            $started = Start-OrchestrationWhenReady -Uri "http://localhost:$Port/$route" -Deadline $deadline
+            if ($i -eq 1 -and $route -eq $TrainingRoutes[0]) {
+                # Loads StartupDiagnostics, which starts the worker's timed exit
+                Invoke-RestMethod -Method Get -Uri "http://localhost:$Port/$ReportRoute" | Out-Null
+            }
+            $status = Wait-Orchestration -StatusUri $started.statusQueryGetUri -TimeoutSeconds $TimeoutSeconds
+            Write-Host "[$i/$Iterations] $route -> $($status.runtimeStatus)" -ForegroundColor Yellow
+        }
+    }
+
+    Write-Host "Training workload done; waiting for the worker's timed exit to write the archive..." -ForegroundColor Yellow
+
+    # The JVM writes the archive on its way out, then the host restarts a fresh worker; wait until the
+    # file exists and stops growing, then stop the host before the new worker can exit normally
+    $lastLength = -1
+    while ((Get-Date) -lt $deadline) {
+        Start-Sleep -Seconds 1
+        if (Test-Path $ArchivePath) {
+            $length = (Get-Item $ArchivePath).Length
+            if ($length -gt 0 -and $length -eq $lastLength) {
+                break
+            }
+            $lastLength = $length
+        }
+    }
+} finally {
+    Stop-FunctionHost -Process $process
+}
+
+if (!(Test-Path $ArchivePath)) {
+    throw "The worker did not write an AppCDS archive to '$ArchivePath'."
+}
+Write-Host "Wrote AppCDS archive '$ArchivePath' ($((Get-Item $ArchivePath).Length) bytes)." -ForegroundColor Green
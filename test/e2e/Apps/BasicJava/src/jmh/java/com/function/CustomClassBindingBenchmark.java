@@ -0,0 +1,71 @@
+package com.function;
+
+import com.function.JsonHelpers.DurableMetadataGsonProvider;
+import com.function.PayloadHelpers.ClaimCheckedPayload;
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+
+import java.lang.reflect.Type;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Binds CustomClassArrayInput payloads of 1 to 10,000 CustomClass elements, each with a List&lt;Byte&gt;
+ * of dataBytes entries, with reflective Gson binding: a plain Gson, as the Functions worker uses for
+ * POJO parameters, and ClaimCheckedPayload.read of an inline payload, as the CustomClassArrayInput
+ * activity does.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CustomClassBindingBenchmark {
+    private static final Type customClassListType = new TypeToken<List<CustomClass>>() {}.getType();
+
+    @Param({"1", "10", "100", "1000", "10000"})
+    public int elements;
+
+    @Param({"16"})
+    public int dataBytes;
+
+    private final Gson reflective = new Gson();
+    private List<CustomClass> payload;
+    private String json;
+    private ClaimCheckedPayload inlinePayload;
+
+    @Setup
+    public void setUp() {
+        payload = new ArrayList<>(elements);
+        for (int i = 0; i < elements; i++) {
+            List<Byte> data = new ArrayList<>(dataBytes);
+            for (int j = 0; j < dataBytes; j++) {
+                data.add((byte) (i + j));
+            }
+            payload.add(new CustomClass("Item" + i, i, data, Duration.ofSeconds(i)));
+        }
+        json = reflective.toJson(payload, customClassListType);
+        inlinePayload = DurableMetadataGsonProvider.createGson().fromJson(
+                DurableMetadataGsonProvider.createGson().toJson(ClaimCheckedPayload.inline(payload)), ClaimCheckedPayload.class);
+    }
+
+    @Benchmark
+    public List<CustomClass> deserializeReflective() {
+        return reflective.fromJson(json, customClassListType);
+    }
+
+    @Benchmark
+    public List<CustomClass> readInlinePayload() {
+        return inlinePayload.read(customClassListType);
+    }
+
+    @Benchmark
+    public String serializeReflective() {
+        return reflective.toJson(payload, customClassListType);
+    }
+}
@@ -0,0 +1,128 @@
+package com.function;
+
+import com.function.ReplayHelpers.ReplayExecutionContext;
+import com.function.ReplayHelpers.ReplayHistory;
+import com.microsoft.azure.functions.ExecutionContext;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.microsoft.durabletask.JacksonDataConverter;
+import com.microsoft.durabletask.OrchestrationRunner;
+import com.microsoft.durabletask.OrchestratorFunction;
+
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Replays HelloCities, TimeoutOrchestrator and LongRunningOrchestrator through
+ * OrchestrationRunner.loadAndRun, the call the Durable Functions middleware makes for each orchestrator
+ * invocation, with no host, sidecar or storage. Each operation decodes a request holding the whole
+ * history, replays it against the real orchestrator method and encodes the response, so the score is
+ * replay throughput; run with -prof gc for allocation per replay.
+ *
+ * Run with `mvn -Pjmh verify`; arguments for the JMH runner go in -Djmh.args, for example
+ * -Djmh.args="-prof gc -p completedActivities=1000 longRunningOrchestrator".
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OrchestratorReplayBenchmark {
+    /**
+     * Requests for the orchestrators with a fixed history: each one completes on replay.
+     */
+    @State(Scope.Benchmark)
+    public static class CompletedHistories {
+        String helloCities;
+        String timeoutActivityWon;
+        String timeoutTimerWon;
+        OrchestratorFunction<List<String>> helloCitiesOrchestrator;
+        OrchestratorFunction<String> timeoutOrchestrator;
+
+        @Setup
+        public void setUp() {
+            HelloCities helloCitiesFunctions = new HelloCities();
+            ExecutionContext executionContext = new ReplayExecutionContext("HelloCities");
+            helloCitiesOrchestrator = ctx -> helloCitiesFunctions.runOrchestrator(ctx, executionContext);
+            TimeoutOrchestration timeoutFunctions = new TimeoutOrchestration();
+            timeoutOrchestrator = timeoutFunctions::timeoutOrchestrator;
+
+            helloCities = new ReplayHistory("replay-hellocities", "HelloCities", null)
+                    .activity("SayHello", "{\"name\":\"Tokyo\"}", "\"Hello Tokyo!\"")
+                    .activity("SayHello", "{\"name\":\"Seattle\"}", "\"Hello Seattle!\"")
+                    .activity("SayHello", "{\"name\":\"London\"}", "\"Hello London!\"")
+                    .toBase64();
+            timeoutActivityWon = timeoutHistory(true);
+            timeoutTimerWon = timeoutHistory(false);
+
+            ReplayHistory.verify(OrchestrationRunner.loadAndRun(helloCities, helloCitiesOrchestrator), true);
+            ReplayHistory.verify(OrchestrationRunner.loadAndRun(timeoutActivityWon, timeoutOrchestrator), true);
+            ReplayHistory.verify(OrchestrationRunner.loadAndRun(timeoutTimerWon, timeoutOrchestrator), true);
+        }
+
+        private static String timeoutHistory(boolean activityWins) {
+            ReplayHistory history = new ReplayHistory("replay-timeout", "TimeoutOrchestrator", "30");
+            // The input TimeoutOrchestrator schedules, serialized as the default data converter does
+            String work = new JacksonDataConverter().serialize(new SimulatedWork("replay-timeout", 5000));
+            int activityId = history.scheduleActivity("LongActivity", work);
+            int timerId = history.createTimer(Duration.ofSeconds(30));
+            if (activityWins) {
+                history.completeActivity(activityId, "\"The activity function completed successfully\"");
+            } else {
+                history.fireTimer(timerId);
+            }
+            return history.toBase64();
+        }
+    }
+
+    /**
+     * A LongRunningOrchestrator request after completedActivities of its 100,000 activities finished,
+     * so replay grows with the history and ends by scheduling the next activity.
+     */
+    @State(Scope.Benchmark)
+    public static class LongRunningHistory {
+        @Param({"10", "100", "1000", "10000"})
+        public int completedActivities;
+
+        String request;
+        OrchestratorFunction<List<String>> orchestrator;
+
+        @Setup
+        public void setUp() {
+            TerminateOrchestration functions = new TerminateOrchestration();
+            ExecutionContext executionContext = new ReplayExecutionContext("LongRunningOrchestrator");
+            orchestrator = ctx -> functions.longRunningOrchestrator(ctx, executionContext);
+
+            // No input, so the orchestrator calls SimulatedWorkActivity with 100ms sleeps
+            ReplayHistory history = new ReplayHistory("replay-longrunning", "LongRunningOrchestrator", null);
+            for (int i = 0; i < completedActivities; i++) {
+                history.activity("SimulatedWorkActivity", "100", "\"Slept for 100ms.\"");
+            }
+            request = history.toBase64();
+
+            ReplayHistory.verify(OrchestrationRunner.loadAndRun(request, orchestrator), false);
+        }
+    }
+
+    @Benchmark
+    public String helloCities(CompletedHistories state) {
+        return OrchestrationRunner.loadAndRun(state.helloCities, state.helloCitiesOrchestrator);
+    }
+
+    @Benchmark
+    public String timeoutOrchestratorActivityWon(CompletedHistories state) {
+        return OrchestrationRunner.loadAndRun(state.timeoutActivityWon, state.timeoutOrchestrator);
+    }
+
+    @Benchmark
+    public String timeoutOrchestratorTimerWon(CompletedHistories state) {
+        return OrchestrationRunner.loadAndRun(state.timeoutTimerWon, state.timeoutOrchestrator);
+    }
+
+    @Benchmark
+    public String longRunningOrchestrator(LongRunningHistory state) {
+        return OrchestrationRunner.loadAndRun(state.request, state.orchestrator);
+    }
+}
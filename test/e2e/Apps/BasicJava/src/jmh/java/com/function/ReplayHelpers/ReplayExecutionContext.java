@@ -0,0 +1,42 @@
+package com.function.ReplayHelpers;
+
+import com.microsoft.azure.functions.ExecutionContext;
+
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * The ExecutionContext passed to orchestrator functions replayed outside the host. Its logger is off, so
+ * the benchmarks measure the orchestrator rather than log output.
+ */
+public final class ReplayExecutionContext implements ExecutionContext {
+    private static final Logger logger = createLogger();
+
+    private final String functionName;
+
+    public ReplayExecutionContext(String functionName) {
+        this.functionName = functionName;
+    }
+
+    @Override
+    public Logger getLogger() {
+        return logger;
+    }
+
+    @Override
+    public String getInvocationId() {
+        return "replay";
+    }
+
+    @Override
+    public String getFunctionName() {
+        return functionName;
+    }
+
+    private static Logger createLogger() {
+        Logger logger = Logger.getLogger("com.function.replay");
+        logger.setUseParentHandlers(false);
+        logger.setLevel(Level.OFF);
+        return logger;
+    }
+}
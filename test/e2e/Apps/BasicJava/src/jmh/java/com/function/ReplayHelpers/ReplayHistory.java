@@ -0,0 +1,179 @@
+package com.function.ReplayHelpers;
+
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.google.protobuf.StringValue;
+import com.google.protobuf.Timestamp;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+
+import com.microsoft.durabletask.implementation.protobuf.OrchestratorService.*;
+
+/**
+ * Builds the OrchestratorRequest the host sends for an orchestration with a given history, encoded the
+ * same way as the orchestratorRequestProtoBytes trigger input, for replay without a host.
+ *
+ * The history is laid out the way the sidecar writes it: every episode starts with OrchestratorStarted
+ * and ends with OrchestratorCompleted, tasks get event IDs in the order they are scheduled, and each
+ * completion starts a new episode. The last episode is sent as newEvents and everything before it as
+ * pastEvents, so loadAndRun replays the past and then runs the orchestrator forward.
+ */
+public final class ReplayHistory {
+    private static final Instant START = Instant.parse("2030-01-01T00:00:00Z");
+    private static final String EXECUTION_ID = "replay-execution";
+
+    private final String instanceId;
+    private final List<HistoryEvent> events = new ArrayList<>();
+    private final Map<Integer, Timestamp> timers = new HashMap<>();
+    private Instant now = START;
+    private int newEventsStart;
+    private int nextEventId;
+
+    /**
+     * Starts a history with the ExecutionStarted event.
+     *
+     * @param input the orchestration input as JSON, or null
+     */
+    public ReplayHistory(String instanceId, String orchestratorName, String input) {
+        this.instanceId = instanceId;
+        ExecutionStartedEvent.Builder started = ExecutionStartedEvent.newBuilder()
+                .setName(orchestratorName)
+                .setOrchestrationInstance(OrchestrationInstance.newBuilder()
+                        .setInstanceId(instanceId)
+                        .setExecutionId(stringValue(EXECUTION_ID)));
+        if (input != null) {
+            started.setInput(stringValue(input));
+        }
+        events.add(event(-1).setOrchestratorStarted(OrchestratorStartedEvent.getDefaultInstance()).build());
+        events.add(event(-1).setExecutionStarted(started).build());
+    }
+
+    /**
+     * Adds a TaskScheduled event to the current episode.
+     *
+     * @return the task's event ID
+     */
+    public int scheduleActivity(String name, String input) {
+        TaskScheduledEvent.Builder scheduled = TaskScheduledEvent.newBuilder().setName(name);
+        if (input != null) {
+            scheduled.setInput(stringValue(input));
+        }
+        int eventId = nextEventId++;
+        events.add(event(eventId).setTaskScheduled(scheduled).build());
+        return eventId;
+    }
+
+    /**
+     * Adds a TimerCreated event to the current episode.
+     *
+     * @return the timer's event ID
+     */
+    public int createTimer(Duration delay) {
+        Timestamp fireAt = timestamp(now.plus(delay));
+        int eventId = nextEventId++;
+        timers.put(eventId, fireAt);
+        events.add(event(eventId).setTimerCreated(TimerCreatedEvent.newBuilder().setFireAt(fireAt)).build());
+        return eventId;
+    }
+
+    /**
+     * Starts a new episode with the task's TaskCompleted event.
+     *
+     * @param result the activity output as JSON, or null
+     */
+    public ReplayHistory completeActivity(int taskScheduledId, String result) {
+        TaskCompletedEvent.Builder completed = TaskCompletedEvent.newBuilder().setTaskScheduledId(taskScheduledId);
+        if (result != null) {
+            completed.setResult(stringValue(result));
+        }
+        nextEpisode();
+        events.add(event(-1).setTaskCompleted(completed).build());
+        return this;
+    }
+
+    /**
+     * Starts a new episode with the timer's TimerFired event.
+     */
+    public ReplayHistory fireTimer(int timerId) {
+        Timestamp fireAt = timers.get(timerId);
+        if (fireAt == null) {
+            throw new IllegalArgumentException("No timer was created with event ID " + timerId);
+        }
+        nextEpisode();
+        events.add(event(-1).setTimerFired(TimerFiredEvent.newBuilder().setTimerId(timerId).setFireAt(fireAt)).build());
+        return this;
+    }
+
+    /**
+     * Schedules an activity and starts a new episode with its completion, as an awaited callActivity does.
+     */
+    public ReplayHistory activity(String name, String input, String result) {
+        return completeActivity(scheduleActivity(name, input), result);
+    }
+
+    public int size() {
+        return events.size();
+    }
+
+    /**
+     * Returns the request as base64, the form of the orchestratorRequestProtoBytes trigger input.
+     */
+    public String toBase64() {
+        OrchestratorRequest request = OrchestratorRequest.newBuilder()
+                .setInstanceId(instanceId)
+                .setExecutionId(stringValue(EXECUTION_ID))
+                .addAllPastEvents(events.subList(0, newEventsStart))
+                .addAllNewEvents(events.subList(newEventsStart, events.size()))
+                .build();
+        return Base64.getEncoder().encodeToString(request.toByteArray());
+    }
+
+    /**
+     * Checks a loadAndRun response, so a history the orchestrator does not accept is reported instead
+     * of being benchmarked as a failed replay.
+     *
+     * @param expectCompleted whether the orchestration should complete, or instead schedule more work
+     */
+    public static void verify(String responseBase64, boolean expectCompleted) {
+        OrchestratorResponse response;
+        try {
+            response = OrchestratorResponse.parseFrom(Base64.getDecoder().decode(responseBase64));
+        } catch (InvalidProtocolBufferException e) {
+            throw new IllegalStateException("The orchestrator response could not be parsed", e);
+        }
+        for (OrchestratorAction action : response.getActionsList()) {
+            if (!action.hasCompleteOrchestration()) {
+                continue;
+            }
+            CompleteOrchestrationAction completion = action.getCompleteOrchestration();
+            if (!expectCompleted || completion.getOrchestrationStatus() != OrchestrationStatus.ORCHESTRATION_STATUS_COMPLETED) {
+                throw new IllegalStateException("Replay ended with " + completion.getOrchestrationStatus()
+                        + ": " + completion.getFailureDetails().getErrorMessage());
+            }
+            return;
+        }
+        if (expectCompleted || response.getActionsCount() == 0) {
+            throw new IllegalStateException("Replay did not complete and returned " + response.getActionsCount() + " actions");
+        }
+    }
+
+    private void nextEpisode() {
+        events.add(event(-1).setOrchestratorCompleted(OrchestratorCompletedEvent.getDefaultInstance()).build());
+        now = now.plusSeconds(1);
+        newEventsStart = events.size();
+        events.add(event(-1).setOrchestratorStarted(OrchestratorStartedEvent.getDefaultInstance()).build());
+    }
+
+    private HistoryEvent.Builder event(int eventId) {
+        return HistoryEvent.newBuilder().setEventId(eventId).setTimestamp(timestamp(now));
+    }
+
+    private static Timestamp timestamp(Instant instant) {
+        return Timestamp.newBuilder().setSeconds(instant.getEpochSecond()).setNanos(instant.getNano()).build();
+    }
+
+    private static StringValue stringValue(String value) {
+        return StringValue.newBuilder().setValue(value).build();
+    }
+}
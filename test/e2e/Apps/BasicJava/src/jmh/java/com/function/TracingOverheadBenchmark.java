@@ -0,0 +1,64 @@
+package com.function;
+
+import com.function.ReplayHelpers.ReplayExecutionContext;
+import com.function.ReplayHelpers.ReplayHistory;
+import com.function.TracingHelpers.RecentSpanExporter;
+import com.function.TracingHelpers.Tracing;
+import com.microsoft.azure.functions.ExecutionContext;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.microsoft.durabletask.OrchestrationRunner;
+import com.microsoft.durabletask.OrchestratorFunction;
+
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Cost of tracing HelloCities: replays its final episode through OrchestrationRunner.loadAndRun with
+ * tracing off and at sample ratios of 0.05 (the Tracing_SampleRatio default) and 1. The requests
+ * cycle through many instance IDs, since the sampling decision follows the instance's trace ID;
+ * spans go to the in-memory exporter. Compare each ratio's score to "off" for the overhead.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TracingOverheadBenchmark {
+    private static final int INSTANCES = 256;
+
+    @Param({"off", "0.05", "1"})
+    public String sampleRatio;
+
+    private String[] requests;
+    private OrchestratorFunction<List<String>> orchestrator;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        Tracing tracing = "off".equals(sampleRatio)
+                ? Tracing.disabled()
+                : new Tracing(Double.parseDouble(sampleRatio), new RecentSpanExporter(1000));
+        HelloCities functions = new HelloCities(tracing);
+        ExecutionContext executionContext = new ReplayExecutionContext("HelloCities");
+        orchestrator = ctx -> functions.runOrchestrator(ctx, executionContext);
+
+        requests = new String[INSTANCES];
+        for (int i = 0; i < INSTANCES; i++) {
+            requests[i] = new ReplayHistory("replay-tracing-" + i, "HelloCities", null)
+                    .activity("SayHello", "{\"name\":\"Tokyo\"}", "\"Hello Tokyo!\"")
+                    .activity("SayHello", "{\"name\":\"Seattle\"}", "\"Hello Seattle!\"")
+                    .activity("SayHello", "{\"name\":\"London\"}", "\"Hello London!\"")
+                    .toBase64();
+            ReplayHistory.verify(OrchestrationRunner.loadAndRun(requests[i], orchestrator), true);
+        }
+    }
+
+    @Benchmark
+    public String helloCitiesFinalEpisode() {
+        next = (next + 1) % INSTANCES;
+        return OrchestrationRunner.loadAndRun(requests[next], orchestrator);
+    }
+}
@@ -0,0 +1,84 @@
+package com.function;
+
+import com.microsoft.azure.functions.annotation.*;
+import com.function.ConcurrencyHelpers.ActivityLimit;
+import com.function.ConcurrencyHelpers.ActivityLimiter;
+import com.function.ConcurrencyHelpers.MixedWorkloadSimulation;
+import com.function.JsonHelpers.DurableMetadataGsonProvider;
+import com.microsoft.azure.functions.*;
+
+import java.time.Duration;
+import java.util.*;
+
+/**
+ * Statistics and a mixed-workload benchmark for the per-activity concurrency limits.
+ */
+public class ActivityConcurrencyLimits {
+    /**
+     * Returns the shared capacity in use and, per activity, its limit, running invocations,
+     * queue depth, throttled invocations and wait times in this worker process.
+     */
+    @FunctionName("ActivityLimits_Stats")
+    public HttpResponseMessage stats(
+            @HttpTrigger(name = "req", methods = {HttpMethod.GET}, authLevel = AuthorizationLevel.ANONYMOUS) HttpRequestMessage<Optional<String>> request,
+            final ExecutionContext context) {
+        return request.createResponseBuilder(HttpStatus.OK)
+                .header("Content-Type", "application/json")
+                .body(DurableMetadataGsonProvider.createGson().toJson(ActivityLimiter.shared().getStats()))
+                .build();
+    }
+
+    /**
+     * HTTP-triggered benchmark: runs a mixed workload of a heavy activity (heavyMs, default 1000,
+     * at heavyPerSecond, default 25) and a light one (lightMs, default 5, at lightPerSecond,
+     * default 100) on workerThreads threads (default 16) for durationSeconds (default 10), once
+     * without limits and once with the heavy activity limited to heavyMaxConcurrency (default 4)
+     * with weight heavyWeight (default 2) and a queue of heavyMaxQueue (default 4) in a capacity
+     * of capacity units (default 16). maxWaitSeconds (default 0, as in the app) lets throttled
+     * invocations wait for a slot instead of failing at once. Reports the light activity's p50/p99
+     * latency of each run.
+     * The workload runs in this process on its own threads, without the Durable Task host.
+     */
+    @FunctionName("ActivityLimits_Benchmark")
+    public HttpResponseMessage benchmark(
+            @HttpTrigger(name = "req", methods = {HttpMethod.GET, HttpMethod.POST}, authLevel = AuthorizationLevel.ANONYMOUS) HttpRequestMessage<Optional<String>> request,
+            final ExecutionContext context) {
+        Map<String, String> parameters = request.getQueryParameters();
+        try {
+            int workerThreads = Integer.parseInt(parameters.getOrDefault("workerThreads", "16"));
+            long durationMs = Long.parseLong(parameters.getOrDefault("durationSeconds", "10")) * 1000;
+            long heavyMs = Long.parseLong(parameters.getOrDefault("heavyMs", "1000"));
+            double heavyPerSecond = Double.parseDouble(parameters.getOrDefault("heavyPerSecond", "25"));
+            long lightMs = Long.parseLong(parameters.getOrDefault("lightMs", "5"));
+            double lightPerSecond = Double.parseDouble(parameters.getOrDefault("lightPerSecond", "100"));
+            int capacity = Integer.parseInt(parameters.getOrDefault("capacity", "16"));
+            ActivityLimit heavyLimit = new ActivityLimit(
+                    Integer.parseInt(parameters.getOrDefault("heavyMaxConcurrency", "4")),
+                    Integer.parseInt(parameters.getOrDefault("heavyWeight", "2")),
+                    Integer.parseInt(parameters.getOrDefault("heavyMaxQueue", "4")));
+            long retryDelayMs = Long.parseLong(parameters.getOrDefault("retryDelayMs", "1000"));
+
+            MixedWorkloadSimulation simulation = new MixedWorkloadSimulation(workerThreads, durationMs,
+                    heavyMs, heavyPerSecond, lightMs, lightPerSecond, retryDelayMs);
+            long maxWaitSeconds = Long.parseLong(parameters.getOrDefault("maxWaitSeconds", "0"));
+            ActivityLimiter limiter = new ActivityLimiter(capacity, Duration.ofSeconds(maxWaitSeconds),
+                    name -> MixedWorkloadSimulation.HEAVY_ACTIVITY.equals(name) ? heavyLimit : ActivityLimit.UNLIMITED);
+
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("workerThreads", workerThreads);
+            result.put("durationMs", durationMs);
+            result.put("unlimited", simulation.run(null));
+            result.put("limited", simulation.run(limiter));
+            return request.createResponseBuilder(HttpStatus.OK)
+                    .header("Content-Type", "application/json")
+                    .body(DurableMetadataGsonProvider.createGson().toJson(result))
+                    .build();
+        } catch (Exception ex) {
+            context.getLogger().severe("Activity limits benchmark failed: " + ex.getMessage());
+            return request.createResponseBuilder(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .header("Content-Type", "text/plain")
+                    .body(ex.getMessage())
+                    .build();
+        }
+    }
+}
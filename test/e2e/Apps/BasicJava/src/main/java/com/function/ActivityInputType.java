@@ -1,6 +1,8 @@
 package com.function;
 
 import com.microsoft.azure.functions.annotation.*;
+import com.function.PayloadHelpers.ClaimCheckedPayload;
+import com.google.gson.reflect.TypeToken;
 import com.microsoft.azure.functions.*;
 import com.microsoft.durabletask.*;
 import com.microsoft.durabletask.azurefunctions.DurableActivityTrigger;
@@ -56,7 +58,7 @@ public class ActivityInputType {
             new CustomClass("Test1", 25, Arrays.asList((byte) 1, (byte) 2, (byte) 3), Duration.ofMinutes(30)),
             new CustomClass("Test2", 30, new ArrayList<>(), Duration.ofMinutes(45))
         );
-        output.add(context.callActivity("CustomClassArrayInput", complexInput, String.class).await());
+        output.add(context.callActivity("CustomClassArrayInput", ClaimCheckedPayload.inline(complexInput), String.class).await());
 
         return output;
     }
@@ -116,12 +118,13 @@ public class ActivityInputType {
     }
 
     /**
-     * Activity: Receives an array of custom class.
+     * Activity: Receives an array of custom class, inline or through the claim-check store.
      */
     @FunctionName("CustomClassArrayInput")
     public String customClassArrayInput(
-            @DurableActivityTrigger(name = "input") List<CustomClass> input,
+            @DurableActivityTrigger(name = "input") ClaimCheckedPayload payload,
             final ExecutionContext context) {
+        List<CustomClass> input = payload.read(new TypeToken<List<CustomClass>>() {}.getType());
         for (CustomClass item : input) {
             if (item.getData() == null || !(item.getData() instanceof List<Byte>)) {
                 return "Error: Expected Data to be byte[] but got " + (item.getData() == null ? "null" : item.getData().getClass().getSimpleName());
@@ -0,0 +1,187 @@
+package com.function.AdmissionHelpers;
+
+import com.function.ConfigHelpers.AppSettings;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.microsoft.azure.functions.HttpRequestMessage;
+import com.microsoft.azure.functions.HttpResponseMessage;
+import com.microsoft.azure.functions.HttpStatus;
+import com.microsoft.durabletask.DurableTaskClient;
+
+/**
+ * Admission control for the HTTP functions that start orchestrations.
+ *
+ * A start is rejected when the task hub already holds more than AdmissionControl_MaxPendingInstances
+ * PENDING instances (default 0, no backlog check), sampled through a {@link PendingBacklogSampler}
+ * every AdmissionControl_BacklogRefreshMs (default 2000), or when it exceeds
+ * AdmissionControl_StartsPerSecond starts per second in this process (default 0, no rate limit)
+ * with bursts of up to AdmissionControl_Burst (default one second's worth). A rejected request
+ * gets 429 with a Retry-After header; for a backlog it is the time the backlog needs to drain to
+ * the limit at its last observed drain rate, at most AdmissionControl_MaxRetryAfterSeconds
+ * (default 60). Instances scheduled to start later are not counted as backlog; the starters record
+ * them with {@link #recordScheduledStart}.
+ *
+ * A bulk starter asks for all of its starts at once with {@link #tryAdmit(DurableTaskClient, int)}
+ * and gets 429 like a single start instead of waiting in the request thread. A bulk larger than the
+ * burst is admitted once the bucket is full and leaves it in debt, so later starts are rejected
+ * until the rate has paid for it; the bulk's own calls are bounded by its concurrency, not paced.
+ */
+public final class AdmissionControl {
+    private static final AdmissionControl shared = new AdmissionControl(
+            AppSettings.getInt("AdmissionControl_StartsPerSecond", 0),
+            AppSettings.getInt("AdmissionControl_Burst", 0),
+            AppSettings.getLong("AdmissionControl_MaxPendingInstances", 0),
+            Duration.ofMillis(AppSettings.getLong("AdmissionControl_BacklogRefreshMs", 2000)),
+            AppSettings.getInt("AdmissionControl_MaxRetryAfterSeconds", 60));
+
+    private final TokenBucket bucket;
+    private final FutureStartLedger futureStarts = new FutureStartLedger();
+    private final long maxPendingInstances;
+    private final PendingBacklogSampler backlog;
+    private final long refreshSeconds;
+    private final long maxRetryAfterSeconds;
+
+    private final AtomicLong admitted = new AtomicLong();
+    private final AtomicLong rejectedForRate = new AtomicLong();
+    private final AtomicLong rejectedForBacklog = new AtomicLong();
+
+    /**
+     * Creates admission control with the given start rate (0 for none), burst (0 for one
+     * second's worth), PENDING limit (0 for none) and backlog refresh interval.
+     */
+    public AdmissionControl(double startsPerSecond, double burst, long maxPendingInstances,
+            Duration backlogRefreshInterval, long maxRetryAfterSeconds) {
+        this.bucket = startsPerSecond > 0
+                ? new TokenBucket(startsPerSecond, burst >= 1 ? burst : Math.max(1, startsPerSecond))
+                : null;
+        this.maxPendingInstances = maxPendingInstances;
+        this.backlog = maxPendingInstances > 0 ? new PendingBacklogSampler(backlogRefreshInterval, maxPendingInstances, futureStarts) : null;
+        this.refreshSeconds = Math.max(1, (backlogRefreshInterval.toMillis() + 999) / 1000);
+        this.maxRetryAfterSeconds = Math.max(1, maxRetryAfterSeconds);
+    }
+
+    /**
+     * Admission control configured by the AdmissionControl_* app settings.
+     */
+    public static AdmissionControl shared() {
+        return shared;
+    }
+
+    /**
+     * Decides whether one more orchestration may be started now. The backlog is checked first,
+     * so a request rejected for it does not use up a token.
+     */
+    public Decision tryAdmit(DurableTaskClient client) {
+        return tryAdmit(client, 1);
+    }
+
+    /**
+     * Decides whether the given number of orchestrations may be started now, all of them or none.
+     */
+    public Decision tryAdmit(DurableTaskClient client, int starts) {
+        Decision backlogDecision = checkBacklog(client);
+        if (!backlogDecision.isAdmitted()) {
+            return backlogDecision;
+        }
+        if (bucket != null) {
+            long waitNanos = bucket.tryTake(starts);
+            if (waitNanos > 0) {
+                rejectedForRate.incrementAndGet();
+                return Decision.rejected("Orchestrations are being started faster than this app accepts.",
+                        clampRetryAfter((waitNanos + 999_999_999) / 1_000_000_000));
+            }
+        }
+        admitted.addAndGet(starts);
+        return Decision.ADMITTED;
+    }
+
+    /**
+     * Decides whether the backlog allows starting more orchestrations, without taking a token.
+     */
+    public Decision checkBacklog(DurableTaskClient client) {
+        if (backlog != null) {
+            long pending = backlog.get(client);
+            if (pending > maxPendingInstances) {
+                rejectedForBacklog.incrementAndGet();
+                double drainPerSecond = backlog.getDrainPerSecond();
+                long retryAfter = drainPerSecond > 0
+                        ? (long) Math.ceil((pending - maxPendingInstances) / drainPerSecond)
+                        : refreshSeconds;
+                return Decision.rejected("The task hub has " + pending + " pending instances, more than "
+                        + maxPendingInstances + ".", clampRetryAfter(retryAfter));
+            }
+        }
+        return Decision.ADMITTED;
+    }
+
+    /**
+     * Records an instance scheduled to start at startTime, so it is not counted as backlog before then.
+     */
+    public void recordScheduledStart(Instant startTime) {
+        futureStarts.record(startTime, Instant.now());
+    }
+
+    public Stats getStats() {
+        Stats stats = new Stats();
+        stats.admitted = admitted.get();
+        stats.rejectedForRate = rejectedForRate.get();
+        stats.rejectedForBacklog = rejectedForBacklog.get();
+        return stats;
+    }
+
+    /**
+     * Builds the 429 response for a rejected request.
+     */
+    public static HttpResponseMessage reject(HttpRequestMessage<?> request, Decision decision) {
+        return request.createResponseBuilder(HttpStatus.TOO_MANY_REQUESTS)
+                .header("Retry-After", Long.toString(decision.getRetryAfterSeconds()))
+                .header("Content-Type", "text/plain")
+                .body(decision.getReason())
+                .build();
+    }
+
+    private long clampRetryAfter(long seconds) {
+        return Math.min(maxRetryAfterSeconds, Math.max(1, seconds));
+    }
+
+    /**
+     * Whether a start was admitted and, if not, why and when to try again.
+     */
+    public static final class Decision {
+        static final Decision ADMITTED = new Decision(true, null, 0);
+
+        private final boolean admitted;
+        private final String reason;
+        private final long retryAfterSeconds;
+
+        private Decision(boolean admitted, String reason, long retryAfterSeconds) {
+            this.admitted = admitted;
+            this.reason = reason;
+            this.retryAfterSeconds = retryAfterSeconds;
+        }
+
+        static Decision rejected(String reason, long retryAfterSeconds) {
+            return new Decision(false, reason, retryAfterSeconds);
+        }
+
+        public boolean isAdmitted() { return admitted; }
+        public String getReason() { return reason; }
+        public long getRetryAfterSeconds() { return retryAfterSeconds; }
+    }
+
+    /**
+     * Admitted and rejected starts so far.
+     */
+    public static class Stats {
+        long admitted;
+        long rejectedForRate;
+        long rejectedForBacklog;
+
+        public long getAdmitted() { return admitted; }
+        public long getRejectedForRate() { return rejectedForRate; }
+        public long getRejectedForBacklog() { return rejectedForBacklog; }
+    }
+}
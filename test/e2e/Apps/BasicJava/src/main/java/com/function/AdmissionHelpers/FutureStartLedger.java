@@ -0,0 +1,42 @@
+package com.function.AdmissionHelpers;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Start times of the orchestrations this process scheduled for later, counted per second. Such an
+ * instance is PENDING until its start time but is no backlog yet, and the client API does not
+ * return an instance's scheduled start time, so the scheduled starters record them here and
+ * PendingBacklogSampler leaves them out of its count. Entries are dropped once their time has come.
+ */
+public final class FutureStartLedger {
+    private final TreeMap<Long, Long> startsPerSecond = new TreeMap<>();
+    private long futureStarts;
+
+    /**
+     * Records one instance scheduled to start at startTime; starts that are not in the future are
+     * ignored.
+     */
+    public synchronized void record(Instant startTime, Instant now) {
+        if (startTime == null || !startTime.isAfter(now)) {
+            return;
+        }
+        // Rounded up, so an entry is only dropped once its start time has passed
+        long second = startTime.getEpochSecond() + (startTime.getNano() > 0 ? 1 : 0);
+        startsPerSecond.merge(second, 1L, Long::sum);
+        futureStarts++;
+    }
+
+    /**
+     * Returns the number of recorded starts still after now.
+     */
+    public synchronized long countAfter(Instant now) {
+        Map<Long, Long> due = startsPerSecond.headMap(now.getEpochSecond(), true);
+        for (long count : due.values()) {
+            futureStarts -= count;
+        }
+        due.clear();
+        return futureStarts;
+    }
+}
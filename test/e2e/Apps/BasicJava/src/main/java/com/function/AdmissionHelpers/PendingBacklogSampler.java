@@ -0,0 +1,104 @@
+package com.function.AdmissionHelpers;
+
+import com.function.ConfigHelpers.AppSettings;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import com.microsoft.durabletask.DurableTaskClient;
+import com.microsoft.durabletask.OrchestrationRuntimeStatus;
+import com.microsoft.durabletask.OrchestrationStatusQuery;
+import com.microsoft.durabletask.OrchestrationStatusQueryResult;
+
+/**
+ * Cached count of PENDING instances in the task hub, read with queryInstances at most once per
+ * refresh interval. One caller refreshes the count while the others keep using the previous
+ * value, so the starters make at most one query per interval however many requests arrive.
+ * Counting stops once the count passes countLimit or after AdmissionControl_BacklogMaxPages query
+ * pages of 1000 instances (default 10), whichever comes first, so a refresh costs a bounded number
+ * of pages however many instances are PENDING. A failed query keeps the previous value.
+ *
+ * Instances this process scheduled to start later (see {@link FutureStartLedger}) are left out: they
+ * are PENDING until their start time but put no load on the workers before it, and
+ * HelloCities_HttpStart_ScheduledBulk creates tens of thousands of them on purpose. The ledger only
+ * knows this process's scheduled starts since it started, so future starts scheduled by other
+ * workers or before a restart still count; with several workers, schedule from one or raise
+ * AdmissionControl_MaxPendingInstances. The ledger's future starts are subtracted from the pages
+ * counted, so when the page cap stops counting the result is a lower bound of the real backlog:
+ * with more future starts than the pages hold, it reads as no backlog.
+ */
+public final class PendingBacklogSampler {
+    private static final int PAGE_SIZE = 1000;
+    private static final int MAX_PAGES = Math.max(1, AppSettings.getInt("AdmissionControl_BacklogMaxPages", 10));
+
+    private final long refreshIntervalNanos;
+    private final long countLimit;
+    private final FutureStartLedger futureStarts;
+    private final AtomicBoolean refreshing = new AtomicBoolean();
+
+    private volatile long pendingCount;
+    private volatile long sampledAtNanos;
+    private volatile boolean sampled;
+    private volatile double drainPerSecond;
+
+    public PendingBacklogSampler(Duration refreshInterval, long countLimit, FutureStartLedger futureStarts) {
+        this.refreshIntervalNanos = refreshInterval.toNanos();
+        this.countLimit = countLimit;
+        this.futureStarts = futureStarts;
+    }
+
+    /**
+     * Returns the PENDING count without future scheduled starts, refreshing it first if it is older than the refresh interval and
+     * no other caller is refreshing it.
+     */
+    public long get(DurableTaskClient client) {
+        if ((!sampled || System.nanoTime() - sampledAtNanos >= refreshIntervalNanos) && refreshing.compareAndSet(false, true)) {
+            try {
+                refresh(client);
+            } catch (RuntimeException e) {
+                // Admission must not fail because the backlog could not be read; keep the last count
+            } finally {
+                refreshing.set(false);
+            }
+        }
+        return pendingCount;
+    }
+
+    /**
+     * The rate at which the backlog shrank between the last two samples, or 0 if it did not.
+     */
+    public double getDrainPerSecond() {
+        return drainPerSecond;
+    }
+
+    private void refresh(DurableTaskClient client) {
+        long scheduled = futureStarts.countAfter(Instant.now());
+        long count = 0;
+        int pages = 0;
+        String continuationToken = null;
+        do {
+            OrchestrationStatusQuery query = new OrchestrationStatusQuery();
+            query.setRuntimeStatusList(Collections.singletonList(OrchestrationRuntimeStatus.PENDING));
+            query.setMaxInstanceCount(PAGE_SIZE);
+            query.setFetchInputsAndOutputs(false);
+            query.setContinuationToken(continuationToken);
+            OrchestrationStatusQueryResult result = client.queryInstances(query);
+            count += result.getOrchestrationState().size();
+            continuationToken = result.getContinuationToken();
+            pages++;
+        } while (continuationToken != null && !continuationToken.isEmpty() && count - scheduled <= countLimit && pages < MAX_PAGES);
+        count = Math.max(0, count - scheduled);
+
+        long now = System.nanoTime();
+        if (sampled && count < pendingCount && now > sampledAtNanos) {
+            drainPerSecond = (pendingCount - count) * 1_000_000_000.0 / (now - sampledAtNanos);
+        } else if (sampled) {
+            drainPerSecond = 0;
+        }
+        pendingCount = count;
+        sampledAtNanos = now;
+        sampled = true;
+    }
+}
@@ -0,0 +1,49 @@
+package com.function.AdmissionHelpers;
+
+/**
+ * Token bucket that refills at ratePerSecond tokens per second up to burst tokens. A take of more
+ * tokens than the bucket can hold is allowed once it is full, and leaves it in debt, so no amount
+ * is refused forever while the average rate still holds.
+ */
+public final class TokenBucket {
+    private final double ratePerNano;
+    private final double burst;
+    private double tokens;
+    private long lastRefillNanos;
+
+    public TokenBucket(double ratePerSecond, double burst) {
+        if (ratePerSecond <= 0 || burst < 1) {
+            throw new IllegalArgumentException("ratePerSecond must be positive and burst at least 1");
+        }
+        this.ratePerNano = ratePerSecond / 1_000_000_000.0;
+        this.burst = burst;
+        this.tokens = burst;
+        this.lastRefillNanos = System.nanoTime();
+    }
+
+    /**
+     * Takes one token if there is one.
+     *
+     * @return 0 when a token was taken, otherwise the nanoseconds until the next token
+     */
+    public long tryTake() {
+        return tryTake(1);
+    }
+
+    /**
+     * Takes count tokens if there are that many, or the bucket is full and count is more than it holds.
+     *
+     * @return 0 when the tokens were taken, otherwise the nanoseconds until they can be
+     */
+    public synchronized long tryTake(int count) {
+        long now = System.nanoTime();
+        tokens = Math.min(burst, tokens + (now - lastRefillNanos) * ratePerNano);
+        lastRefillNanos = now;
+        double needed = Math.min(count, burst);
+        if (tokens >= needed) {
+            tokens -= count;
+            return 0;
+        }
+        return (long) Math.ceil((needed - tokens) / ratePerNano);
+    }
+}
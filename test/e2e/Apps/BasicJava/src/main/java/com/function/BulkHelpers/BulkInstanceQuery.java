@@ -0,0 +1,65 @@
+package com.function.BulkHelpers;
+
+import java.time.Instant;
+import java.util.List;
+
+import com.microsoft.durabletask.OrchestrationMetadata;
+import com.microsoft.durabletask.OrchestrationRuntimeStatus;
+import com.microsoft.durabletask.OrchestrationStatusQuery;
+
+/**
+ * JSON-bound filter that selects the target instances of a bulk operation. Everything except
+ * orchestrationName maps onto {@link OrchestrationStatusQuery}; the name filter is applied
+ * client-side because the query API has no name filter.
+ */
+public class BulkInstanceQuery {
+    private String orchestrationName;
+    private List<OrchestrationRuntimeStatus> runtimeStatus;
+    private Instant createdFrom;
+    private Instant createdTo;
+    private String instanceIdPrefix;
+
+    public String getOrchestrationName() { return orchestrationName; }
+    public void setOrchestrationName(String orchestrationName) { this.orchestrationName = orchestrationName; }
+
+    public List<OrchestrationRuntimeStatus> getRuntimeStatus() { return runtimeStatus; }
+    public void setRuntimeStatus(List<OrchestrationRuntimeStatus> runtimeStatus) { this.runtimeStatus = runtimeStatus; }
+
+    public Instant getCreatedFrom() { return createdFrom; }
+    public void setCreatedFrom(Instant createdFrom) { this.createdFrom = createdFrom; }
+
+    public Instant getCreatedTo() { return createdTo; }
+    public void setCreatedTo(Instant createdTo) { this.createdTo = createdTo; }
+
+    public String getInstanceIdPrefix() { return instanceIdPrefix; }
+    public void setInstanceIdPrefix(String instanceIdPrefix) { this.instanceIdPrefix = instanceIdPrefix; }
+
+    /**
+     * Builds the status query for one page of results.
+     */
+    public OrchestrationStatusQuery toStatusQuery(int pageSize, String continuationToken) {
+        OrchestrationStatusQuery query = new OrchestrationStatusQuery();
+        query.setMaxInstanceCount(pageSize);
+        query.setContinuationToken(continuationToken);
+        query.setFetchInputsAndOutputs(false);
+        if (runtimeStatus != null && !runtimeStatus.isEmpty()) {
+            query.setRuntimeStatusList(runtimeStatus);
+        }
+        if (createdFrom != null) {
+            query.setCreatedTimeFrom(createdFrom);
+        }
+        if (createdTo != null) {
+            query.setCreatedTimeTo(createdTo);
+        }
+        if (instanceIdPrefix != null && !instanceIdPrefix.isEmpty()) {
+            query.setInstanceIdPrefix(instanceIdPrefix);
+        }
+        return query;
+    }
+
+    public boolean matches(OrchestrationMetadata metadata) {
+        return orchestrationName == null
+            || orchestrationName.isEmpty()
+            || orchestrationName.equalsIgnoreCase(metadata.getName());
+    }
+}
@@ -0,0 +1,130 @@
+package com.function.BulkHelpers;
+
+import com.function.ClientHelpers.SharedDurableClients;
+import com.function.JsonHelpers.DurableMetadataGsonProvider;
+import com.google.gson.Gson;
+import com.microsoft.azure.functions.*;
+
+import java.util.*;
+import java.util.logging.Logger;
+
+import com.microsoft.durabletask.DurableTaskClient;
+import com.microsoft.durabletask.OrchestrationRuntimeStatus;
+import com.microsoft.durabletask.azurefunctions.DurableClientContext;
+
+/**
+ * Shared implementation of the bulk suspend, resume and terminate HTTP functions.
+ *
+ * The request body selects targets with a {@link BulkInstanceQuery} and may set "reason",
+ * "batchSize", "maxConcurrency", "includeSucceeded" and "maxInstances". When maxInstances is
+ * set, the call stops at the first page boundary past that many instances and returns a
+ * "continuationToken"; posting the same body with that token resumes where it stopped.
+ *
+ * Suspending, resuming or terminating an instance can take it out of the runtime-status filter
+ * being paged, which makes some backends skip rows on the next page. So the matching instance IDs
+ * are read first, up to maxInstances, and only then is the operation applied; memory use grows with
+ * the number of IDs read. On backends whose continuation token is an offset into the result set,
+ * the rows processed before it no longer match, so post the same body without a token to continue.
+ *
+ * If the run stops early, the response is a 500 holding the counts and outcomes so far, an "error",
+ * and the continuationToken to resume from. These operations can safely be repeated on an instance,
+ * so a resume may revisit some instances but never skips one.
+ */
+public final class BulkLifecycleOperation {
+    private BulkLifecycleOperation() {}
+
+    /**
+     * The single-instance client call, e.g. terminate.
+     */
+    @FunctionalInterface
+    public interface LifecycleCall {
+        void apply(DurableTaskClient client, String instanceId, String reason) throws Exception;
+    }
+
+    public static HttpResponseMessage run(
+            HttpRequestMessage<Optional<String>> request,
+            DurableClientContext durableContext,
+            ExecutionContext context,
+            String operationName,
+            List<OrchestrationRuntimeStatus> defaultRuntimeStatus,
+            LifecycleCall call) {
+        Logger logger = context.getLogger();
+        Gson gson = DurableMetadataGsonProvider.createGson();
+        Request body;
+        try {
+            body = gson.fromJson(request.getBody().orElse(""), Request.class);
+        } catch (Exception e) {
+            body = null;
+        }
+        if (body == null || body.query == null) {
+            return request.createResponseBuilder(HttpStatus.BAD_REQUEST)
+                    .header("Content-Type", "text/plain")
+                    .body("Request body must contain a query.")
+                    .build();
+        }
+        if (body.query.getRuntimeStatus() == null || body.query.getRuntimeStatus().isEmpty()) {
+            body.query.setRuntimeStatus(defaultRuntimeStatus);
+        }
+
+        String reason = body.reason != null ? body.reason : "Bulk " + operationName + " requested.";
+        int batchSize = body.batchSize > 0 ? body.batchSize : BulkOperationRunner.DEFAULT_BATCH_SIZE;
+        int maxConcurrency = body.maxConcurrency > 0 ? body.maxConcurrency : BulkOperationRunner.DEFAULT_MAX_CONCURRENCY;
+
+        DurableTaskClient client = SharedDurableClients.get(durableContext);
+        InstanceQueryPager pager = new InstanceQueryPager(client, body.query, batchSize, body.continuationToken);
+        BulkOperationResult result = new BulkOperationResult(body.includeSucceeded);
+        Exception error = null;
+
+        List<String> targets = new ArrayList<>();
+        try {
+            // Check the budget before hasNext() so the pager never reads a page it won't process
+            while ((body.maxInstances <= 0 || targets.size() < body.maxInstances) && pager.hasNext()) {
+                targets.addAll(pager.next());
+            }
+        } catch (Exception ex) {
+            // The pages read so far are still processed, and the token resumes after them
+            error = ex;
+        }
+        result.setContinuationToken(pager.getContinuationToken());
+
+        try (BulkOperationRunner runner = new BulkOperationRunner(maxConcurrency)) {
+            Iterator<List<String>> batches = BulkOperationRunner.partition(targets, batchSize);
+            while (batches.hasNext()) {
+                runner.runBatch(batches.next(), id -> call.apply(client, id, reason), result);
+                logger.info(String.format("Bulk %s progress: %d of %d instances processed, %d failed, %.1f/s.",
+                        operationName, result.getTotal(), targets.size(), result.getFailed(), result.getOperationsPerSecond()));
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            // Not every instance read was processed, so resume from where this call started
+            result.setContinuationToken(body.continuationToken);
+            error = ex;
+        }
+
+        if (error != null) {
+            result.fail(error);
+            logger.severe(String.format("Bulk %s stopped after %d instances: %s",
+                    operationName, result.getTotal(), result.getError()));
+            return request.createResponseBuilder(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .header("Content-Type", "application/json")
+                    .body(gson.toJson(result))
+                    .build();
+        }
+
+        result.complete();
+        return request.createResponseBuilder(HttpStatus.OK)
+                .header("Content-Type", "application/json")
+                .body(gson.toJson(result))
+                .build();
+    }
+
+    private static class Request {
+        BulkInstanceQuery query;
+        String reason;
+        String continuationToken;
+        int batchSize;
+        int maxConcurrency;
+        int maxInstances;
+        boolean includeSucceeded;
+    }
+}
@@ -0,0 +1,92 @@
+package com.function.BulkHelpers;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Per-instance outcomes and throughput of a bulk operation, serialized as the HTTP response.
+ */
+public class BulkOperationResult {
+    private int total;
+    private int succeeded;
+    private int failed;
+    private long elapsedMs;
+    private double operationsPerSecond;
+    private String continuationToken;
+    private String error;
+    private final List<InstanceOutcome> outcomes = Collections.synchronizedList(new ArrayList<>());
+
+    private transient final long startNanos = System.nanoTime();
+    private transient final boolean includeSucceeded;
+
+    public BulkOperationResult() {
+        this(true);
+    }
+
+    /**
+     * @param includeSucceeded whether successful instances are listed in the outcomes; failures
+     *                         are always listed
+     */
+    public BulkOperationResult(boolean includeSucceeded) {
+        this.includeSucceeded = includeSucceeded;
+    }
+
+    synchronized void record(String instanceId, Exception error) {
+        total++;
+        if (error == null) {
+            succeeded++;
+            if (includeSucceeded) {
+                outcomes.add(new InstanceOutcome(instanceId, true, null));
+            }
+        } else {
+            failed++;
+            outcomes.add(new InstanceOutcome(instanceId, false, error.getClass().getSimpleName() + " - " + error.getMessage()));
+        }
+    }
+
+    /**
+     * Updates the elapsed time and throughput; called once at the end and after each batch.
+     */
+    public synchronized BulkOperationResult complete() {
+        elapsedMs = (System.nanoTime() - startNanos) / 1_000_000;
+        operationsPerSecond = elapsedMs == 0 ? total : total * 1000.0 / elapsedMs;
+        return this;
+    }
+
+    /**
+     * Marks the operation as stopped early by an error that was not specific to one instance, such
+     * as a failed query page. The counts, outcomes and continuation token describe the work done
+     * before it stopped.
+     */
+    public synchronized BulkOperationResult fail(Exception ex) {
+        error = ex.getClass().getSimpleName() + " - " + ex.getMessage();
+        return complete();
+    }
+
+    public synchronized int getTotal() { return total; }
+    public synchronized int getSucceeded() { return succeeded; }
+    public synchronized int getFailed() { return failed; }
+    public synchronized long getElapsedMs() { return elapsedMs; }
+    public synchronized double getOperationsPerSecond() { return operationsPerSecond; }
+    public synchronized String getContinuationToken() { return continuationToken; }
+    public synchronized void setContinuationToken(String continuationToken) { this.continuationToken = continuationToken; }
+    public synchronized String getError() { return error; }
+    public List<InstanceOutcome> getOutcomes() { return outcomes; }
+
+    public static class InstanceOutcome {
+        private final String instanceId;
+        private final boolean succeeded;
+        private final String error;
+
+        InstanceOutcome(String instanceId, boolean succeeded, String error) {
+            this.instanceId = instanceId;
+            this.succeeded = succeeded;
+            this.error = error;
+        }
+
+        public String getInstanceId() { return instanceId; }
+        public boolean isSucceeded() { return succeeded; }
+        public String getError() { return error; }
+    }
+}
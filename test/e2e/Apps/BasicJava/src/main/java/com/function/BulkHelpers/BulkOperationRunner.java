@@ -0,0 +1,83 @@
+package com.function.BulkHelpers;
+
+import com.function.ConfigHelpers.AppSettings;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Applies a client operation to batches of orchestration instances with a bounded number of
+ * calls in flight. Each batch is fully drained before the next one is read, so only one batch
+ * of instance IDs and pending calls is held at a time. The {@link BulkOperationResult} still
+ * keeps one outcome per instance (per failure only, when succeeded outcomes are left out), so
+ * its size grows with the number of instances targeted. The number of calls in flight, which is
+ * also the runner's thread count, is capped at BulkOperations_MaxConcurrencyLimit (default 256)
+ * whatever the caller asks for.
+ */
+public class BulkOperationRunner implements AutoCloseable {
+    public static final int DEFAULT_MAX_CONCURRENCY = AppSettings.getInt("BulkOperations_MaxConcurrency", 16);
+    public static final int DEFAULT_BATCH_SIZE = AppSettings.getInt("BulkOperations_BatchSize", 500);
+    public static final int MAX_CONCURRENCY = Math.max(1, AppSettings.getInt("BulkOperations_MaxConcurrencyLimit", 256));
+
+    /**
+     * A client call made for a single instance, e.g. raising an event or terminating it.
+     */
+    @FunctionalInterface
+    public interface InstanceOperation {
+        void apply(String instanceId) throws Exception;
+    }
+
+    private final ExecutorService executor;
+
+    public BulkOperationRunner(int maxConcurrency) {
+        this.executor = Executors.newFixedThreadPool(Math.min(MAX_CONCURRENCY, Math.max(1, maxConcurrency)), runnable -> {
+            Thread thread = new Thread(runnable, "bulk-operation");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Runs the operation for every instance in the batch and blocks until all calls finish.
+     * Failures are recorded per instance and never abort the rest of the batch.
+     */
+    public void runBatch(List<String> instanceIds, InstanceOperation operation, BulkOperationResult result)
+            throws InterruptedException {
+        List<Future<?>> pending = new ArrayList<>(instanceIds.size());
+        for (String instanceId : instanceIds) {
+            pending.add(executor.submit(() -> {
+                try {
+                    operation.apply(instanceId);
+                    result.record(instanceId, null);
+                } catch (Exception ex) {
+                    result.record(instanceId, ex);
+                }
+            }));
+        }
+        for (Future<?> future : pending) {
+            try {
+                future.get();
+            } catch (ExecutionException e) {
+                // Not reachable: the task records its own failures
+            }
+        }
+        result.complete();
+    }
+
+    /**
+     * Splits an explicit instance list into batches.
+     */
+    public static Iterator<List<String>> partition(List<String> instanceIds, int batchSize) {
+        int size = Math.max(1, batchSize);
+        List<List<String>> batches = new ArrayList<>();
+        for (int i = 0; i < instanceIds.size(); i += size) {
+            batches.add(instanceIds.subList(i, Math.min(instanceIds.size(), i + size)));
+        }
+        return batches.iterator();
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+}
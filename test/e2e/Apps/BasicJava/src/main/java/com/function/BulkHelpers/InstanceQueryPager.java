@@ -0,0 +1,66 @@
+package com.function.BulkHelpers;
+
+import java.util.*;
+
+import com.microsoft.durabletask.DurableTaskClient;
+import com.microsoft.durabletask.OrchestrationMetadata;
+import com.microsoft.durabletask.OrchestrationStatusQueryResult;
+
+/**
+ * Lazily pages through the instances selected by a {@link BulkInstanceQuery}, yielding one
+ * batch of instance IDs per query page so that only one page is held in memory at a time.
+ */
+public class InstanceQueryPager implements Iterator<List<String>> {
+    private final DurableTaskClient client;
+    private final BulkInstanceQuery query;
+    private final int pageSize;
+    private String continuationToken;
+    private boolean exhausted;
+    private List<String> nextPage;
+
+    public InstanceQueryPager(DurableTaskClient client, BulkInstanceQuery query, int pageSize, String continuationToken) {
+        this.client = client;
+        this.query = query;
+        this.pageSize = pageSize;
+        this.continuationToken = continuationToken;
+    }
+
+    @Override
+    public boolean hasNext() {
+        // Pages can be empty after the client-side name filter, so keep reading until a
+        // non-empty page or the end of the result set.
+        while (nextPage == null && !exhausted) {
+            OrchestrationStatusQueryResult result = client.queryInstances(query.toStatusQuery(pageSize, continuationToken));
+            List<String> ids = new ArrayList<>();
+            for (OrchestrationMetadata metadata : result.getOrchestrationState()) {
+                if (query.matches(metadata)) {
+                    ids.add(metadata.getInstanceId());
+                }
+            }
+            continuationToken = result.getContinuationToken();
+            exhausted = continuationToken == null || continuationToken.isEmpty();
+            if (!ids.isEmpty()) {
+                nextPage = ids;
+            }
+        }
+        return nextPage != null;
+    }
+
+    @Override
+    public List<String> next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        List<String> page = nextPage;
+        nextPage = null;
+        return page;
+    }
+
+    /**
+     * Returns the token that resumes the query after the last page returned by {@link #next()},
+     * or null when the result set has been read to the end.
+     */
+    public String getContinuationToken() {
+        return exhausted ? null : continuationToken;
+    }
+}
@@ -0,0 +1,200 @@
+package com.function.CancellationHelpers;
+
+import com.function.ClientHelpers.SharedDurableClients;
+import com.function.ConfigHelpers.AppSettings;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.microsoft.durabletask.DurableTaskClient;
+import com.microsoft.durabletask.OrchestrationMetadata;
+import com.microsoft.durabletask.OrchestrationRuntimeStatus;
+import com.microsoft.durabletask.OrchestrationStatusQuery;
+import com.microsoft.durabletask.OrchestrationStatusQueryResult;
+
+/**
+ * Process-wide registry of cancellation tokens for running activities, keyed by the instance ID
+ * of the orchestration that scheduled them.
+ *
+ * Tokens are cancelled in two ways: immediately, when this process terminates the instance
+ * (the terminate HTTP functions call {@link #cancel}), and by a background watchdog that runs
+ * each ActivityCancellation_PollIntervalMs milliseconds (default 5000) and cancels tokens once the
+ * instance is terminated, failed, completed or gone. Activities take no client binding for this:
+ * the watchdog reads statuses with {@link SharedDurableClients#latest()}, the client of the
+ * last invocation in this process that used one, and skips polls until there is one.
+ *
+ * Each poll makes one paged status query for running, pending and suspended instances, narrowed
+ * to the watched IDs' common prefix, and stops paging once every watched instance has been seen.
+ * Paging a result set that changes underneath can miss rows, so only the watched instances that
+ * were not seen are then read one by one; in steady state those are the ones that just finished.
+ */
+public final class ActivityCancellation {
+    private static final long POLL_INTERVAL_MS = AppSettings.getLong("ActivityCancellation_PollIntervalMs", 5000);
+    private static final int QUERY_PAGE_SIZE = AppSettings.getInt("ActivityCancellation_QueryPageSize", 1000);
+    private static final List<OrchestrationRuntimeStatus> LIVE_STATUSES = Arrays.asList(
+            OrchestrationRuntimeStatus.RUNNING,
+            OrchestrationRuntimeStatus.PENDING,
+            OrchestrationRuntimeStatus.SUSPENDED);
+    private static final EnumSet<OrchestrationRuntimeStatus> FINISHED_STATUSES = EnumSet.of(
+            OrchestrationRuntimeStatus.COMPLETED,
+            OrchestrationRuntimeStatus.FAILED,
+            OrchestrationRuntimeStatus.TERMINATED,
+            OrchestrationRuntimeStatus.CANCELED);
+
+    private static final ConcurrentHashMap<String, Registration> registrations = new ConcurrentHashMap<>();
+    private static final AtomicLong canceledActivities = new AtomicLong();
+    private static final AtomicLong totalReleaseMs = new AtomicLong();
+    private static final AtomicLong maxReleaseMs = new AtomicLong();
+
+    static {
+        ScheduledExecutorService watchdog = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "activity-cancellation-watchdog");
+            thread.setDaemon(true);
+            return thread;
+        });
+        watchdog.scheduleWithFixedDelay(ActivityCancellation::pollInstances,
+                POLL_INTERVAL_MS, POLL_INTERVAL_MS, TimeUnit.MILLISECONDS);
+    }
+
+    private ActivityCancellation() {}
+
+    /**
+     * Returns a token for an activity of the given instance.
+     */
+    public static CancellationToken register(String instanceId) {
+        Registration registration = registrations.compute(instanceId, (id, existing) -> {
+            Registration r = existing != null ? existing : new Registration();
+            r.activeTokens++;
+            return r;
+        });
+        return new CancellationToken(instanceId, registration.signal);
+    }
+
+    /**
+     * Cancels every running activity of the instance in this process.
+     */
+    public static void cancel(String instanceId) {
+        Registration registration = registrations.get(instanceId);
+        if (registration != null) {
+            registration.signal.cancel();
+        }
+    }
+
+    /**
+     * Number of activities currently holding a token.
+     */
+    public static int getActiveCount() {
+        int count = 0;
+        for (Registration registration : registrations.values()) {
+            count += registration.activeTokens;
+        }
+        return count;
+    }
+
+    public static Stats getStats() {
+        Stats stats = new Stats();
+        stats.activeActivities = getActiveCount();
+        stats.canceledActivities = canceledActivities.get();
+        stats.averageReleaseMs = stats.canceledActivities == 0 ? 0 : (double) totalReleaseMs.get() / stats.canceledActivities;
+        stats.maxReleaseMs = maxReleaseMs.get();
+        return stats;
+    }
+
+    static void release(CancellationToken token, CancellationToken.Signal signal) {
+        registrations.computeIfPresent(token.getInstanceId(), (id, r) -> --r.activeTokens == 0 ? null : r);
+        if (token.isCancellationRequested()) {
+            // Time from the cancel request until the activity gave its worker thread back
+            long releaseMs = (System.nanoTime() - signal.cancelRequestedNanos) / 1_000_000;
+            canceledActivities.incrementAndGet();
+            totalReleaseMs.addAndGet(releaseMs);
+            maxReleaseMs.accumulateAndGet(releaseMs, Math::max);
+        }
+    }
+
+    private static void pollInstances() {
+        // Only instances registered before the query; later ones are checked on the next poll
+        Set<String> unseen = new HashSet<>();
+        for (Map.Entry<String, Registration> entry : registrations.entrySet()) {
+            if (entry.getValue().signal.latch.getCount() > 0) {
+                unseen.add(entry.getKey());
+            }
+        }
+        if (unseen.isEmpty()) {
+            return;
+        }
+        // Resolved only when there is something to watch
+        DurableTaskClient client = SharedDurableClients.latest();
+        if (client == null) {
+            return;
+        }
+        try {
+            String prefix = commonPrefix(unseen);
+            String continuationToken = null;
+            do {
+                OrchestrationStatusQuery query = new OrchestrationStatusQuery();
+                query.setRuntimeStatusList(LIVE_STATUSES);
+                query.setMaxInstanceCount(QUERY_PAGE_SIZE);
+                query.setContinuationToken(continuationToken);
+                query.setFetchInputsAndOutputs(false);
+                if (!prefix.isEmpty()) {
+                    query.setInstanceIdPrefix(prefix);
+                }
+                OrchestrationStatusQueryResult result = client.queryInstances(query);
+                for (OrchestrationMetadata metadata : result.getOrchestrationState()) {
+                    unseen.remove(metadata.getInstanceId());
+                }
+                continuationToken = result.getContinuationToken();
+            } while (!unseen.isEmpty() && continuationToken != null && !continuationToken.isEmpty());
+
+            for (String instanceId : unseen) {
+                OrchestrationMetadata metadata = client.getInstanceMetadata(instanceId, false);
+                if (metadata == null || !metadata.isInstanceFound() || FINISHED_STATUSES.contains(metadata.getRuntimeStatus())) {
+                    cancel(instanceId);
+                }
+            }
+        } catch (RuntimeException e) {
+            // Transient client errors must not stop the watchdog; retry on the next poll
+        }
+    }
+
+    private static String commonPrefix(Collection<String> instanceIds) {
+        String prefix = null;
+        for (String instanceId : instanceIds) {
+            if (prefix == null) {
+                prefix = instanceId;
+                continue;
+            }
+            int length = 0;
+            int max = Math.min(prefix.length(), instanceId.length());
+            while (length < max && prefix.charAt(length) == instanceId.charAt(length)) {
+                length++;
+            }
+            prefix = prefix.substring(0, length);
+            if (prefix.isEmpty()) {
+                break;
+            }
+        }
+        return prefix == null ? "" : prefix;
+    }
+
+    private static class Registration {
+        final CancellationToken.Signal signal = new CancellationToken.Signal();
+        volatile int activeTokens;
+    }
+
+    /**
+     * Snapshot of how quickly cancelled activities give their worker threads back.
+     */
+    public static class Stats {
+        int activeActivities;
+        long canceledActivities;
+        double averageReleaseMs;
+        long maxReleaseMs;
+
+        public int getActiveActivities() { return activeActivities; }
+        public long getCanceledActivities() { return canceledActivities; }
+        public double getAverageReleaseMs() { return averageReleaseMs; }
+        public long getMaxReleaseMs() { return maxReleaseMs; }
+    }
+}
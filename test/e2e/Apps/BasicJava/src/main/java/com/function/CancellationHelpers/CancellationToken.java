@@ -0,0 +1,62 @@
+package com.function.CancellationHelpers;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cancellation signal handed to an activity for the orchestration instance that scheduled it.
+ * Activities either check {@link #isCancellationRequested()} between units of work or block on
+ * {@link #sleep(Duration)}, and close the token when they return so the instance is no longer
+ * watched. Obtain tokens from {@link ActivityCancellation#register}.
+ */
+public class CancellationToken implements AutoCloseable {
+    private final String instanceId;
+    private final Signal signal;
+    private boolean closed;
+
+    CancellationToken(String instanceId, Signal signal) {
+        this.instanceId = instanceId;
+        this.signal = signal;
+    }
+
+    public String getInstanceId() {
+        return instanceId;
+    }
+
+    public boolean isCancellationRequested() {
+        return signal.latch.getCount() == 0;
+    }
+
+    /**
+     * Waits for the given duration unless cancellation is requested first.
+     *
+     * @return true if the full duration elapsed, false if the wait ended because of cancellation
+     */
+    public boolean sleep(Duration duration) throws InterruptedException {
+        return !signal.latch.await(duration.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public synchronized void close() {
+        if (!closed) {
+            closed = true;
+            ActivityCancellation.release(this, signal);
+        }
+    }
+
+    /**
+     * State shared by every token registered for the same instance.
+     */
+    static class Signal {
+        final CountDownLatch latch = new CountDownLatch(1);
+        volatile long cancelRequestedNanos;
+
+        void cancel() {
+            if (latch.getCount() > 0) {
+                cancelRequestedNanos = System.nanoTime();
+                latch.countDown();
+            }
+        }
+    }
+}
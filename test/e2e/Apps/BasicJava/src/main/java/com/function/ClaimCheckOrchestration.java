@@ -0,0 +1,198 @@
+package com.function;
+
+import com.microsoft.azure.functions.annotation.*;
+import com.function.ClientHelpers.HistoryReader;
+import com.function.ClientHelpers.SharedDurableClients;
+import com.function.JsonHelpers.DurableMetadataGsonProvider;
+import com.function.PayloadHelpers.ClaimCheck;
+import com.function.PayloadHelpers.ClaimCheckedPayload;
+import com.function.PayloadHelpers.PayloadStore;
+import com.microsoft.azure.functions.*;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.microsoft.durabletask.*;
+import com.microsoft.durabletask.azurefunctions.DurableClientContext;
+import com.microsoft.durabletask.azurefunctions.DurableClientInput;
+import com.microsoft.durabletask.azurefunctions.DurableOrchestrationTrigger;
+
+/**
+ * The CustomClassArrayInput and LargeOutputOrchestrator payload patterns, with large payloads passed
+ * inline or through the claim-check store.
+ */
+public class ClaimCheckOrchestration {
+    private static final int MAX_TRACKED_RUNS = 16;
+
+    // Process-local orchestrator timings of the last MAX_TRACKED_RUNS benchmark runs, keyed by
+    // ClaimCheckRun.statsKey; orchestrator code must not branch on these.
+    private static final Map<String, EpisodeStats> episodeStats = Collections.synchronizedMap(
+            new LinkedHashMap<String, EpisodeStats>() {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, EpisodeStats> eldest) {
+                    return size() > MAX_TRACKED_RUNS;
+                }
+            });
+
+    /**
+     * Orchestrator that passes a payloadKB-sized CustomClass list to activityCalls CustomClassArrayInput
+     * activities and returns a payloadKB-sized string. With claimCheck set the list arrives as a claim
+     * check stored by the client and the string is stored by the LargeOutputClaimCheck activity, so
+     * history holds one small reference per call and nothing is stored from orchestrator code.
+     */
+    @FunctionName("ClaimCheckOrchestrator")
+    public Object claimCheckOrchestrator(
+            @DurableOrchestrationTrigger(name = "ctx") TaskOrchestrationContext ctx) {
+        long start = System.nanoTime();
+        ClaimCheckRun run = ctx.getInput(ClaimCheckRun.class);
+        try {
+            if (run.isClaimCheck()) {
+                for (int i = 0; i < run.getActivityCalls(); i++) {
+                    ctx.callActivity("CustomClassArrayInput", run.getItems(), String.class).await();
+                }
+                return ctx.callActivity("LargeOutputClaimCheck", new LargeOutputRun(run.getPayloadKB(), true, ctx.getInstanceId()),
+                        ClaimCheckedPayload.class).await();
+            }
+            ClaimCheckedPayload items = ClaimCheckedPayload.inline(createItems(run.getPayloadKB()));
+            for (int i = 0; i < run.getActivityCalls(); i++) {
+                ctx.callActivity("CustomClassArrayInput", items, String.class).await();
+            }
+            return LargeOutputOrchestrator.generateLargeString(run.getPayloadKB());
+        } finally {
+            // Also runs when await() ends the episode
+            if (run != null && run.getStatsKey() != null) {
+                EpisodeStats stats = episodeStats.computeIfAbsent(run.getStatsKey(), k -> new EpisodeStats());
+                stats.episodes.incrementAndGet();
+                stats.orchestratorNanos.addAndGet(System.nanoTime() - start);
+            }
+        }
+    }
+
+    /**
+     * HTTP-triggered benchmark: runs ClaimCheckOrchestrator with "payloadKB" (default 256) payloads and
+     * "activityCalls" (default 5) activity calls, once inline and once with claim checks, and reports
+     * for each the history size (events and characters of the status response with history, inputs and
+     * outputs), the time to completion, and the number of orchestrator episodes and the time spent in
+     * the orchestrator function over all of them. Every episode replays the history so far, so the
+     * orchestrator time is replay plus each episode's new work; it does not include the time the host
+     * and middleware spend loading and decoding history. Orchestrator timings are kept in this process,
+     * so run it against a single local worker.
+     */
+    @FunctionName("ClaimCheck_Benchmark")
+    public HttpResponseMessage claimCheckBenchmark(
+            @HttpTrigger(name = "req", methods = {HttpMethod.GET, HttpMethod.POST}, authLevel = AuthorizationLevel.ANONYMOUS) HttpRequestMessage<Optional<String>> request,
+            @DurableClientInput(name = "durableContext") DurableClientContext durableContext,
+            final ExecutionContext context) {
+        Map<String, String> parameters = request.getQueryParameters();
+        int payloadKB = Integer.parseInt(parameters.getOrDefault("payloadKB", "256"));
+        int activityCalls = Integer.parseInt(parameters.getOrDefault("activityCalls", "5"));
+        DurableTaskClient client = SharedDurableClients.get(durableContext);
+
+        try {
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("payloadKB", payloadKB);
+            result.put("activityCalls", activityCalls);
+            result.put("thresholdBytes", ClaimCheck.THRESHOLD_BYTES);
+            for (boolean claimCheck : new boolean[] { false, true }) {
+                ClaimCheckRun run = new ClaimCheckRun(payloadKB, activityCalls, claimCheck);
+                run.setStatsKey(UUID.randomUUID().toString());
+                String instanceId = UUID.randomUUID().toString();
+                if (claimCheck) {
+                    // Stored from client code, before the orchestration starts
+                    run.setItems(ClaimCheckedPayload.of(createItems(payloadKB), instanceId));
+                }
+                NewOrchestrationInstanceOptions startOptions = new NewOrchestrationInstanceOptions();
+                startOptions.setInstanceId(instanceId);
+                startOptions.setInput(run);
+
+                long start = System.nanoTime();
+                client.scheduleNewOrchestrationInstance("ClaimCheckOrchestrator", startOptions);
+                OrchestrationMetadata metadata = client.waitForInstanceCompletion(instanceId, Duration.ofMinutes(5), false);
+                long elapsedMs = Duration.ofNanos(System.nanoTime() - start).toMillis();
+                EpisodeStats stats = episodeStats.remove(run.getStatsKey());
+
+                HistoryReader.HistorySize size = HistoryReader.measureHistory(
+                        durableContext.createHttpManagementPayload(request, instanceId).getStatusQueryGetUri());
+                Map<String, Object> entry = new LinkedHashMap<>();
+                entry.put("instanceId", instanceId);
+                entry.put("runtimeStatus", metadata.getRuntimeStatus());
+                entry.put("completionMs", elapsedMs);
+                entry.put("episodes", stats == null ? null : stats.episodes.get());
+                entry.put("orchestratorMs", stats == null ? null : Duration.ofNanos(stats.orchestratorNanos.get()).toMillis());
+                entry.put("historyEvents", size == null ? null : size.getEventCount());
+                entry.put("historyJsonChars", size == null ? null : size.getJsonChars());
+                result.put(claimCheck ? "claimCheck" : "inline", entry);
+            }
+            PayloadStore store = ClaimCheck.store();
+            result.put("storedPayloads", store.getPayloadCount());
+            result.put("storedBytes", store.getStoredBytes());
+            result.put("deduplicatedPuts", store.getDeduplicatedPuts());
+            return request.createResponseBuilder(HttpStatus.OK)
+                    .header("Content-Type", "application/json")
+                    .body(DurableMetadataGsonProvider.createGson().toJson(result))
+                    .build();
+        } catch (Exception ex) {
+            context.getLogger().severe("Claim-check benchmark failed: " + ex.getMessage());
+            return request.createResponseBuilder(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .header("Content-Type", "text/plain")
+                    .body(ex.getMessage())
+                    .build();
+        }
+    }
+
+    private static class EpisodeStats {
+        final AtomicInteger episodes = new AtomicInteger();
+        final AtomicLong orchestratorNanos = new AtomicLong();
+    }
+
+    private static List<CustomClass> createItems(int payloadKB) {
+        // Each item's 256 data bytes serialize to roughly 1 KB of JSON
+        List<CustomClass> items = new ArrayList<>(payloadKB);
+        for (int i = 0; i < payloadKB; i++) {
+            List<Byte> data = new ArrayList<>(256);
+            for (int j = 0; j < 256; j++) {
+                data.add((byte) (i + j));
+            }
+            items.add(new CustomClass("Item" + i, i, data, Duration.ofSeconds(i)));
+        }
+        return items;
+    }
+}
+
+/**
+ * Input for ClaimCheckOrchestrator.
+ */
+class ClaimCheckRun {
+    private int payloadKB;
+    private int activityCalls;
+    private boolean claimCheck;
+    // The claim-checked CustomClass list, stored by the client when claimCheck is set
+    private ClaimCheckedPayload items;
+    // Set by ClaimCheck_Benchmark to collect orchestrator timings for its run
+    private String statsKey;
+
+    public ClaimCheckRun() {}
+
+    public ClaimCheckRun(int payloadKB, int activityCalls, boolean claimCheck) {
+        this.payloadKB = payloadKB;
+        this.activityCalls = activityCalls;
+        this.claimCheck = claimCheck;
+    }
+
+    public int getPayloadKB() { return payloadKB; }
+    public void setPayloadKB(int payloadKB) { this.payloadKB = payloadKB; }
+
+    public int getActivityCalls() { return activityCalls; }
+    public void setActivityCalls(int activityCalls) { this.activityCalls = activityCalls; }
+
+    public boolean isClaimCheck() { return claimCheck; }
+    public void setClaimCheck(boolean claimCheck) { this.claimCheck = claimCheck; }
+
+    public ClaimCheckedPayload getItems() { return items; }
+    public void setItems(ClaimCheckedPayload items) { this.items = items; }
+
+    public String getStatsKey() { return statsKey; }
+    public void setStatsKey(String statsKey) { this.statsKey = statsKey; }
+}
@@ -0,0 +1,308 @@
+package com.function.ClientHelpers;
+
+import com.function.ConfigHelpers.AppSettings;
+import com.function.JsonHelpers.JsonStreamCopier;
+
+import java.io.*;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Reads an orchestration instance's history from the host's instance status endpoint
+ * (showHistory=true) in one pass, as NDJSON with one history event per line.
+ *
+ * This is not a bounded-memory export. The Java client has no history API, the sidecar does not
+ * serve StreamInstanceHistory, and the status endpoint cannot start in the middle of a history, so
+ * there is no cursor to page from: the host loads the whole history, with inputs and outputs, into
+ * memory for every request. The Java worker also cannot stream an HTTP response, so the export is
+ * built as one String. What this class bounds is the worker side: the response is parsed as a
+ * stream, strings are cut to maxStringChars, an event still longer than HistoryExport_MaxEventChars
+ * (default 16384) is replaced by a summary line holding its EventType, Name, Timestamp and similar
+ * fields plus "truncated": true, and reading stops after maxEvents events. The first line is an
+ * "instance" line holding the instance's name, status, input and output; when events were left
+ * out, the last line is a "truncated" line.
+ *
+ * Requests to the status endpoint time out after HistoryExport_ConnectTimeoutMs (default 10000) to
+ * connect and HistoryExport_ReadTimeoutMs (default 60000) between reads.
+ */
+public final class HistoryReader {
+    public static final int DEFAULT_MAX_EVENTS = AppSettings.getInt("HistoryExport_MaxEvents", 10000);
+    public static final int MAX_EVENTS_LIMIT = AppSettings.getInt("HistoryExport_MaxEventsLimit", 50000);
+    public static final int DEFAULT_MAX_STRING_CHARS = AppSettings.getInt("HistoryExport_MaxStringChars", 4096);
+    public static final int MAX_EVENT_CHARS = AppSettings.getInt("HistoryExport_MaxEventChars", 16384);
+    public static final int CONNECT_TIMEOUT_MS = AppSettings.getInt("HistoryExport_ConnectTimeoutMs", 10000);
+    public static final int READ_TIMEOUT_MS = AppSettings.getInt("HistoryExport_ReadTimeoutMs", 60000);
+
+    private static final int MAX_NAME_CHARS = 256;
+    private static final int MAX_SUMMARY_FIELD_CHARS = 1024;
+    private static final Set<String> SUMMARY_FIELDS = new HashSet<>(Arrays.asList(
+            "EventType", "EventId", "Name", "FunctionName", "Timestamp", "ScheduledTime", "FireAt", "TaskScheduledId"));
+
+    private HistoryReader() {}
+
+    /**
+     * @param statusQueryGetUri the instance's status URL, as returned in the HTTP management payload
+     * @param maxEvents the number of history events after which reading stops
+     * @return the export, or null if the instance does not exist
+     */
+    public static HistoryExportResult export(String statusQueryGetUri, int maxEvents, int maxStringChars) throws IOException {
+        HttpURLConnection connection = openHistory(statusQueryGetUri);
+        try {
+            if (connection == null) {
+                return null;
+            }
+            try (BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(connection.getInputStream(), StandardCharsets.UTF_8))) {
+                return export(new JsonStreamCopier(reader), maxEvents, maxStringChars);
+            }
+        } finally {
+            // Drops the rest of the response when reading stopped at maxEvents
+            if (connection != null) {
+                connection.disconnect();
+            }
+        }
+    }
+
+    /**
+     * Reads an instance's whole status response, history included, without keeping it, and returns its
+     * number of history events and its length in characters.
+     *
+     * @return the sizes, or null if the instance does not exist
+     */
+    public static HistorySize measureHistory(String statusQueryGetUri) throws IOException {
+        HttpURLConnection connection = openHistory(statusQueryGetUri);
+        if (connection == null) {
+            return null;
+        }
+        try (CountingReader reader = new CountingReader(new BufferedReader(
+                new InputStreamReader(connection.getInputStream(), StandardCharsets.UTF_8)))) {
+            JsonStreamCopier json = new JsonStreamCopier(reader);
+            long eventCount = 0;
+            json.expect('{');
+            if (!json.consumeIf('}')) {
+                do {
+                    String name = json.readName(MAX_NAME_CHARS);
+                    json.expect(':');
+                    if (name.equals("historyEvents") && json.peek() == '[') {
+                        json.expect('[');
+                        if (!json.consumeIf(']')) {
+                            do {
+                                json.skipValue();
+                                eventCount++;
+                            } while (json.consumeIf(','));
+                            json.expect(']');
+                        }
+                    } else {
+                        json.skipValue();
+                    }
+                } while (json.consumeIf(','));
+            }
+            return new HistorySize(eventCount, reader.count);
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    private static HttpURLConnection openHistory(String statusQueryGetUri) throws IOException {
+        String separator = statusQueryGetUri.contains("?") ? "&" : "?";
+        URL url = new URL(statusQueryGetUri + separator + "showHistory=true&showHistoryOutput=true&showInput=true");
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        connection.setConnectTimeout(CONNECT_TIMEOUT_MS);
+        connection.setReadTimeout(READ_TIMEOUT_MS);
+        connection.setRequestProperty("Accept", "application/json");
+        int status = connection.getResponseCode();
+        if (status == HttpURLConnection.HTTP_NOT_FOUND) {
+            connection.disconnect();
+            return null;
+        }
+        if (status != HttpURLConnection.HTTP_OK && status != HttpURLConnection.HTTP_ACCEPTED) {
+            connection.disconnect();
+            throw new IOException("Instance status request failed with HTTP " + status);
+        }
+        return connection;
+    }
+
+    static HistoryExportResult export(JsonStreamCopier json, int maxEvents, int maxStringChars) throws IOException {
+        StringBuilder ndjson = new StringBuilder();
+        JsonStreamCopier.Sink instance = new JsonStreamCopier.Sink(MAX_EVENT_CHARS);
+        int eventCount = 0;
+        boolean truncated = false;
+
+        json.expect('{');
+        if (!json.consumeIf('}')) {
+            do {
+                String name = json.readName(MAX_NAME_CHARS);
+                json.expect(':');
+                if (name.equals("historyEvents")) {
+                    // The status fields come before the history, so the instance line is complete here
+                    appendInstanceLine(ndjson, instance);
+                    instance = null;
+                    if (json.peek() != '[') {
+                        json.skipValue();
+                        continue;
+                    }
+                    json.expect('[');
+                    if (json.consumeIf(']')) {
+                        continue;
+                    }
+                    do {
+                        if (eventCount == maxEvents) {
+                            truncated = true;
+                            break;
+                        }
+                        copyEvent(json, ndjson, maxStringChars);
+                        eventCount++;
+                    } while (json.consumeIf(','));
+                    // Nothing after the history is needed
+                    break;
+                } else if (instance != null) {
+                    instance.append(",\"" + name + "\":");
+                    json.copyValue(instance, maxStringChars);
+                } else {
+                    json.skipValue();
+                }
+            } while (json.consumeIf(','));
+        }
+        appendInstanceLine(ndjson, instance);
+        if (truncated) {
+            ndjson.append("{\"recordType\":\"truncated\",\"exportedEvents\":").append(eventCount).append("}\n");
+        }
+        return new HistoryExportResult(ndjson.toString(), eventCount, truncated);
+    }
+
+    private static void appendInstanceLine(StringBuilder ndjson, JsonStreamCopier.Sink instance) {
+        if (instance == null) {
+            return;
+        }
+        ndjson.append("{\"recordType\":\"instance\"");
+        if (instance.overflowed()) {
+            ndjson.append(",\"truncated\":true");
+        } else {
+            ndjson.append(instance);
+        }
+        ndjson.append("}\n");
+    }
+
+    private static void copyEvent(JsonStreamCopier json, StringBuilder ndjson, int maxStringChars) throws IOException {
+        JsonStreamCopier.Sink event = new JsonStreamCopier.Sink(MAX_EVENT_CHARS);
+        if (json.peek() != '{') {
+            json.copyValue(event, maxStringChars);
+            ndjson.append(event.overflowed() ? "{\"truncated\":true}" : event.toString()).append('\n');
+            return;
+        }
+
+        StringBuilder summary = new StringBuilder("{");
+        boolean forceSummary = false;
+        json.expect('{');
+        event.append('{');
+        if (!json.consumeIf('}')) {
+            do {
+                String name = json.readName(MAX_NAME_CHARS);
+                json.expect(':');
+                String member = "\"" + name + "\":";
+                event.append(member);
+                if (SUMMARY_FIELDS.contains(name)) {
+                    // Kept separately so a summary line can still be written if the event is too long
+                    JsonStreamCopier.Sink field = new JsonStreamCopier.Sink(MAX_SUMMARY_FIELD_CHARS);
+                    json.copyValue(field, Math.min(maxStringChars, MAX_SUMMARY_FIELD_CHARS / 2));
+                    if (field.overflowed()) {
+                        forceSummary = true;
+                    } else {
+                        summary.append(member).append(field).append(',');
+                    }
+                    event.append(field.toString());
+                } else {
+                    json.copyValue(event, maxStringChars);
+                }
+                if (json.peek() == ',') {
+                    event.append(',');
+                }
+            } while (json.consumeIf(','));
+            json.expect('}');
+        }
+        event.append('}');
+
+        if (event.overflowed() || forceSummary) {
+            summary.append("\"truncated\":true,\"eventChars\":").append(event.length()).append('}');
+            ndjson.append(summary).append('\n');
+        } else {
+            ndjson.append(event).append('\n');
+        }
+    }
+
+    /**
+     * The size of an instance's status response with history, inputs and outputs.
+     */
+    public static final class HistorySize {
+        private final long eventCount;
+        private final long jsonChars;
+
+        HistorySize(long eventCount, long jsonChars) {
+            this.eventCount = eventCount;
+            this.jsonChars = jsonChars;
+        }
+
+        public long getEventCount() {
+            return eventCount;
+        }
+
+        public long getJsonChars() {
+            return jsonChars;
+        }
+    }
+
+    private static final class CountingReader extends FilterReader {
+        private long count;
+
+        CountingReader(Reader in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int c = super.read();
+            if (c != -1) {
+                count++;
+            }
+            return c;
+        }
+
+        @Override
+        public int read(char[] buffer, int offset, int length) throws IOException {
+            int read = super.read(buffer, offset, length);
+            if (read > 0) {
+                count += read;
+            }
+            return read;
+        }
+    }
+
+    /**
+     * The NDJSON lines of an export, and whether events were left out after maxEvents.
+     */
+    public static final class HistoryExportResult {
+        private final String ndjson;
+        private final int eventCount;
+        private final boolean truncated;
+
+        HistoryExportResult(String ndjson, int eventCount, boolean truncated) {
+            this.ndjson = ndjson;
+            this.eventCount = eventCount;
+            this.truncated = truncated;
+        }
+
+        public String getNdjson() {
+            return ndjson;
+        }
+
+        public int getEventCount() {
+            return eventCount;
+        }
+
+        public boolean isTruncated() {
+            return truncated;
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.function.ClientHelpers;
+
+import com.function.ConfigHelpers.AppSettings;
+
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Generates orchestration instance IDs that land on chosen control-queue partitions.
+ *
+ * The Azure Storage backend assigns an instance to partition
+ * FNV-1a-32(UTF-8 instance ID) mod partitionCount. IDs built from a shared prefix plus a
+ * sequence number tend to cluster on a few partitions. This generator appends a suffix to the
+ * prefix made of a random 64-bit base, new for every ID, and a small counter that is increased
+ * until the hash hits the wanted partition (partitionCount tries on average). The random base
+ * keeps IDs unique across worker restarts and scaled-out workers that share a prefix.
+ * {@link #next} cycles through the partitions so a run of IDs is spread evenly; {@link #pinned}
+ * targets one partition. Set InstanceIds_PartitionCount to the task hub's partitionCount
+ * (default 4).
+ */
+public class PartitionedInstanceIdGenerator {
+    public static final int DEFAULT_PARTITION_COUNT = AppSettings.getInt("InstanceIds_PartitionCount", 4);
+
+    // The widest unsigned 64-bit value in base 36, so every base has the same length
+    private static final int BASE_CHARS = Long.toUnsignedString(-1L, 36).length();
+    private static final SecureRandom random = new SecureRandom();
+
+    private final int partitionCount;
+    private final AtomicLong nextPartition = new AtomicLong();
+
+    public PartitionedInstanceIdGenerator() {
+        this(DEFAULT_PARTITION_COUNT);
+    }
+
+    public PartitionedInstanceIdGenerator(int partitionCount) {
+        if (partitionCount < 1) {
+            throw new IllegalArgumentException("partitionCount must be at least 1.");
+        }
+        this.partitionCount = partitionCount;
+    }
+
+    public int getPartitionCount() {
+        return partitionCount;
+    }
+
+    /**
+     * Returns a new ID with the given prefix on the next partition in round-robin order.
+     */
+    public String next(String prefix) {
+        return pinned(prefix, (int) (nextPartition.getAndIncrement() % partitionCount));
+    }
+
+    /**
+     * Returns a new ID with the given prefix that maps to the given partition.
+     */
+    public String pinned(String prefix, int partition) {
+        if (partition < 0 || partition >= partitionCount) {
+            throw new IllegalArgumentException("partition must be between 0 and " + (partitionCount - 1) + ".");
+        }
+        StringBuilder base = new StringBuilder(prefix).append('-');
+        String randomBase = Long.toUnsignedString(random.nextLong(), 36);
+        for (int i = randomBase.length(); i < BASE_CHARS; i++) {
+            base.append('0');
+        }
+        base.append(randomBase);
+        for (long counter = 0; ; counter++) {
+            String candidate = base + Long.toString(counter, 36);
+            if (partitionOf(candidate, partitionCount) == partition) {
+                return candidate;
+            }
+        }
+    }
+
+    /**
+     * The control-queue partition the Azure Storage backend assigns to an instance ID.
+     */
+    public static int partitionOf(String instanceId, int partitionCount) {
+        int hash = 0x811C9DC5;
+        for (byte b : instanceId.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= (b & 0xff);
+            hash *= 0x01000193;
+        }
+        return (int) (Integer.toUnsignedLong(hash) % partitionCount);
+    }
+}
@@ -0,0 +1,127 @@
+package com.function.ClientHelpers;
+
+import com.function.ConfigHelpers.AppSettings;
+
+import java.time.Duration;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.microsoft.durabletask.DurableTaskClient;
+import com.microsoft.durabletask.OrchestrationMetadata;
+
+/**
+ * Waits for orchestration instances to finish, sharing one backend wait per instance among all
+ * callers in this process.
+ *
+ * The first caller for an instance starts a client.waitForInstanceCompletion call of up to
+ * WaitForCompletion_MaxTimeoutSeconds (default 120); later callers join it, each with their own
+ * timeout. A caller whose timeout has not elapsed when the shared wait reaches its maximum starts
+ * or joins the next one for the time it has left. The backend wait is cancelled once its last
+ * caller has given up.
+ *
+ * The sidecar serves each waitForInstanceCompletion call by checking the instance status itself,
+ * so sharing saves client requests and sidecar work per caller; the storage reads behind a backend
+ * wait are not visible to this process.
+ */
+public final class SharedCompletionWaiter {
+    public static final int MAX_TIMEOUT_SECONDS = AppSettings.getInt("WaitForCompletion_MaxTimeoutSeconds", 120);
+
+    private static final ConcurrentHashMap<String, SharedWait> waits = new ConcurrentHashMap<>();
+    private static final ExecutorService executor = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "shared-completion-wait");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private static final AtomicLong callers = new AtomicLong();
+    private static final AtomicLong backendWaits = new AtomicLong();
+
+    private SharedCompletionWaiter() {}
+
+    /**
+     * Blocks until the instance finishes or the timeout elapses.
+     *
+     * @return the instance metadata with inputs and outputs, or null if it did not finish in time
+     */
+    public static OrchestrationMetadata waitForCompletion(DurableTaskClient client, String instanceId, Duration timeout)
+            throws InterruptedException {
+        callers.incrementAndGet();
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (true) {
+            SharedWait wait = join(client, instanceId);
+            try {
+                return wait.future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                return null;
+            } catch (CancellationException e) {
+                // Cancelled by a caller that left as this one joined; wait again if time is left
+            } catch (ExecutionException e) {
+                if (!(e.getCause() instanceof TimeoutException)) {
+                    throw e.getCause() instanceof RuntimeException
+                            ? (RuntimeException) e.getCause()
+                            : new RuntimeException(e.getCause());
+                }
+                // The shared wait reached its own maximum, which can come before this caller's timeout
+            } finally {
+                leave(instanceId, wait);
+            }
+            if (deadline - System.nanoTime() <= 0) {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Number of callers served so far.
+     */
+    public static long getCallerCount() {
+        return callers.get();
+    }
+
+    /**
+     * Number of waitForInstanceCompletion calls made so far; the difference to
+     * {@link #getCallerCount()} is the number of client requests saved by sharing.
+     */
+    public static long getBackendWaitCount() {
+        return backendWaits.get();
+    }
+
+    private static SharedWait join(DurableTaskClient client, String instanceId) {
+        return waits.compute(instanceId, (id, existing) -> {
+            if (existing != null && !existing.future.isDone()) {
+                existing.waiters++;
+                return existing;
+            }
+            SharedWait wait = new SharedWait();
+            wait.waiters = 1;
+            wait.future = executor.submit(() -> {
+                try {
+                    return client.waitForInstanceCompletion(id, Duration.ofSeconds(MAX_TIMEOUT_SECONDS), true);
+                } finally {
+                    waits.remove(id, wait);
+                }
+            });
+            backendWaits.incrementAndGet();
+            return wait;
+        });
+    }
+
+    private static void leave(String instanceId, SharedWait wait) {
+        waits.computeIfPresent(instanceId, (id, current) -> {
+            if (current != wait) {
+                return current;
+            }
+            if (--current.waiters == 0) {
+                // Nobody is waiting any more; interrupting the call cancels the gRPC request
+                current.future.cancel(true);
+                return null;
+            }
+            return current;
+        });
+    }
+
+    private static class SharedWait {
+        Future<OrchestrationMetadata> future;
+        int waiters;
+    }
+}
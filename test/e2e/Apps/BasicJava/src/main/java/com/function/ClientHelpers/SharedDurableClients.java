@@ -0,0 +1,51 @@
+package com.function.ClientHelpers;
+
+import com.function.ConfigHelpers.AppSettings;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.microsoft.durabletask.DurableTaskClient;
+import com.microsoft.durabletask.azurefunctions.DurableClientContext;
+
+/**
+ * One process-wide {@link DurableTaskClient} per task hub, instead of a client and its own gRPC
+ * channel per function invocation.
+ *
+ * The worker binds a new DurableClientContext for every invocation, and getClient() caches its
+ * client only on that context, so each invocation that calls it opens a new channel to the
+ * sidecar. Here the first client built for a task hub is kept and handed to every later
+ * invocation; everything goes through the binding's public API. Set DurableClient_Shared to false
+ * to fall back to durableContext.getClient().
+ *
+ * This only reuses clients; their channel is the library's default. The binding exposes no
+ * sidecar endpoint, so a channel with its own keepalive, flow-control window or message size
+ * limit cannot be built through a supported API.
+ */
+public final class SharedDurableClients {
+    private static final boolean ENABLED = AppSettings.getBoolean("DurableClient_Shared", true);
+
+    private static final ConcurrentHashMap<String, DurableTaskClient> clients = new ConcurrentHashMap<>();
+    // The last client handed out, for background work that has no binding of its own
+    private static volatile DurableTaskClient lastClient;
+
+    private SharedDurableClients() {}
+
+    /**
+     * Returns the shared client for the binding's task hub.
+     */
+    public static DurableTaskClient get(DurableClientContext durableContext) {
+        if (!ENABLED) {
+            return lastClient = durableContext.getClient();
+        }
+        String taskHubName = durableContext.getTaskHubName();
+        return lastClient = clients.computeIfAbsent(taskHubName != null ? taskHubName : "", name -> durableContext.getClient());
+    }
+
+    /**
+     * Returns the client most recently handed out by {@link #get}, or null if no invocation in
+     * this process has asked for one yet.
+     */
+    public static DurableTaskClient latest() {
+        return lastClient;
+    }
+}
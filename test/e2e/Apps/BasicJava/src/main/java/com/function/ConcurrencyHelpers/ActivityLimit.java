@@ -0,0 +1,55 @@
+package com.function.ConcurrencyHelpers;
+
+import com.function.ConfigHelpers.AppSettings;
+
+/**
+ * The concurrency limit of one activity: how many of its invocations may run at once in this
+ * process, how many capacity units each one takes, and how many may wait for a slot.
+ */
+public final class ActivityLimit {
+    /**
+     * No limit of its own, a weight of one unit and an unbounded wait queue.
+     */
+    public static final ActivityLimit UNLIMITED = new ActivityLimit(Integer.MAX_VALUE, 1, Integer.MAX_VALUE);
+
+    private final int maxConcurrency;
+    private final int weight;
+    private final int maxQueue;
+
+    public ActivityLimit(int maxConcurrency, int weight, int maxQueue) {
+        if (maxConcurrency < 1 || weight < 1 || maxQueue < 0) {
+            throw new IllegalArgumentException("maxConcurrency and weight must be positive and maxQueue not negative");
+        }
+        this.maxConcurrency = maxConcurrency;
+        this.weight = weight;
+        this.maxQueue = maxQueue;
+    }
+
+    /**
+     * Reads the limit of an activity from the app settings ActivityLimits_{name}_MaxConcurrency
+     * (default unlimited), ActivityLimits_{name}_Weight (default 1) and ActivityLimits_{name}_MaxQueue
+     * (default unbounded). Values of zero or less mean the default.
+     */
+    public static ActivityLimit fromSettings(String activityName) {
+        String prefix = "ActivityLimits_" + activityName + "_";
+        int maxConcurrency = AppSettings.getInt(prefix + "MaxConcurrency", 0);
+        int weight = AppSettings.getInt(prefix + "Weight", 0);
+        int maxQueue = AppSettings.getInt(prefix + "MaxQueue", 0);
+        return new ActivityLimit(
+                maxConcurrency > 0 ? maxConcurrency : Integer.MAX_VALUE,
+                weight > 0 ? weight : 1,
+                maxQueue > 0 ? maxQueue : Integer.MAX_VALUE);
+    }
+
+    public int getMaxConcurrency() {
+        return maxConcurrency;
+    }
+
+    public int getWeight() {
+        return weight;
+    }
+
+    public int getMaxQueue() {
+        return maxQueue;
+    }
+}
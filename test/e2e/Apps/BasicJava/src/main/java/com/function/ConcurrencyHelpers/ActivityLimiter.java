@@ -0,0 +1,312 @@
+package com.function.ConcurrencyHelpers;
+
+import com.function.ConfigHelpers.AppSettings;
+import com.function.exceptions.ActivityThrottledException;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * Per-activity concurrency limits with weights, for one worker process.
+ *
+ * Every activity has an {@link ActivityLimit}: at most maxConcurrency of its invocations run at
+ * once, and each running invocation takes weight units of a capacity shared by all activities
+ * (ActivityLimits_Capacity, default 0, which means no shared capacity).
+ *
+ * By default an invocation that cannot run right away fails at once with
+ * {@link ActivityThrottledException}, before it does any work, and orchestrators retry it with
+ * {@link ThrottledActivityRetry#options()} on a durable timer until it gets a slot. The wait then
+ * holds no worker thread and no host dispatch slot. The price is that retries are not ordered: a
+ * retried invocation competes with new ones, so a heavy activity can keep losing shared capacity to
+ * a stream of light ones, and its orchestration waits longer, though it does not fail.
+ *
+ * ActivityLimits_MaxWaitSeconds (default 0) above zero turns on bounded blocking instead. The Java
+ * worker runs each invocation synchronously on a thread of its own, so a waiting invocation parks
+ * that thread, and the host slot that dispatched it, for up to that long. Waiters queue FIFO per
+ * activity, at most maxQueue of them. Queues are served round-robin, so one activity with a long
+ * queue does not delay the others, and an activity whose head waiter needs more units than are free
+ * keeps its turn until they are, so light activities cannot starve a heavy one. An invocation that
+ * finds its queue full or waits too long is throttled as above, and its retry goes to the back of
+ * the queue.
+ *
+ * So neither mode is a fair queue that leaves worker threads free: the first is free but unordered,
+ * the second is fair but blocks. A queue held outside the invocation would need an activity to
+ * return without a result and be completed later, and Java activity functions can only complete by
+ * returning from the invocation.
+ */
+public final class ActivityLimiter {
+    private static final ActivityLimiter shared = new ActivityLimiter(
+            AppSettings.getInt("ActivityLimits_Capacity", 0),
+            Duration.ofSeconds(AppSettings.getLong("ActivityLimits_MaxWaitSeconds", 0)),
+            ActivityLimit::fromSettings);
+
+    private final int capacity;
+    private final long maxWaitNanos;
+    private final Function<String, ActivityLimit> limits;
+
+    private final ReentrantLock lock = new ReentrantLock(true);
+    private final Map<String, ActivityQueue> queues = new HashMap<>();
+    private final ArrayDeque<ActivityQueue> rotation = new ArrayDeque<>();
+    private int usedCapacity;
+
+    /**
+     * Creates a limiter with the given shared capacity (0 for none), longest wait for a slot (zero to
+     * throttle at once instead of waiting) and source of per-activity limits, which is asked once per
+     * activity name.
+     */
+    public ActivityLimiter(int capacity, Duration maxWait, Function<String, ActivityLimit> limits) {
+        this.capacity = Math.max(0, capacity);
+        this.maxWaitNanos = maxWait.toNanos();
+        this.limits = limits;
+    }
+
+    /**
+     * The limiter configured by the ActivityLimits_* app settings.
+     */
+    public static ActivityLimiter shared() {
+        return shared;
+    }
+
+    /**
+     * Takes a running slot of the activity, waiting for one for up to the limiter's longest wait, and
+     * returns it; close the permit when the activity is done.
+     *
+     * @throws ActivityThrottledException when no slot is free and the limiter does not wait, or the
+     *         activity's queue is full, or the wait times out
+     * @throws InterruptedException when the thread is interrupted while waiting
+     */
+    public ActivityPermit acquire(String activityName) throws ActivityThrottledException, InterruptedException {
+        long enqueuedNanos = System.nanoTime();
+        lock.lock();
+        try {
+            ActivityQueue queue = queues.computeIfAbsent(activityName, name -> new ActivityQueue(name, limits.apply(name)));
+            if (queue.waiters.isEmpty() && canRun(queue) && !hasWaiterForCapacity()) {
+                admit(queue, 0);
+                return new ActivityPermit(this, activityName);
+            }
+            if (maxWaitNanos <= 0) {
+                queue.throttled++;
+                throw new ActivityThrottledException("Activity '" + activityName + "' has no free concurrency slot.");
+            }
+            if (queue.waiters.size() >= queue.limit.getMaxQueue()) {
+                queue.throttled++;
+                throw new ActivityThrottledException("The wait queue of activity '" + activityName + "' is full ("
+                        + queue.waiters.size() + " invocations).");
+            }
+
+            Waiter waiter = new Waiter(lock.newCondition(), enqueuedNanos);
+            queue.waiters.addLast(waiter);
+            if (!queue.inRotation) {
+                queue.inRotation = true;
+                rotation.addLast(queue);
+            }
+
+            long remainingNanos = maxWaitNanos;
+            try {
+                while (!waiter.admitted) {
+                    if (remainingNanos <= 0) {
+                        queue.waiters.remove(waiter);
+                        queue.throttled++;
+                        // The waiter may have been what kept a lighter activity from its turn
+                        dispatch();
+                        throw new ActivityThrottledException("Activity '" + activityName + "' waited more than "
+                                + Duration.ofNanos(maxWaitNanos).toMillis() + "ms for a concurrency slot.");
+                    }
+                    remainingNanos = waiter.condition.awaitNanos(remainingNanos);
+                }
+            } catch (InterruptedException e) {
+                if (waiter.admitted) {
+                    releaseSlot(queue);
+                } else {
+                    queue.waiters.remove(waiter);
+                    dispatch();
+                }
+                throw e;
+            }
+            return new ActivityPermit(this, activityName);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns a snapshot of every activity that has asked for a slot so far.
+     */
+    public Stats getStats() {
+        lock.lock();
+        try {
+            Stats stats = new Stats();
+            stats.capacity = capacity;
+            stats.usedCapacity = usedCapacity;
+            long now = System.nanoTime();
+            for (ActivityQueue queue : queues.values()) {
+                ActivityStats activity = new ActivityStats();
+                activity.maxConcurrency = queue.limit.getMaxConcurrency();
+                activity.weight = queue.limit.getWeight();
+                activity.maxQueue = queue.limit.getMaxQueue();
+                activity.running = queue.running;
+                activity.queueDepth = queue.waiters.size();
+                activity.admitted = queue.admitted;
+                activity.throttled = queue.throttled;
+                activity.averageWaitMs = queue.admitted == 0 ? 0 : queue.totalWaitNanos / 1_000_000.0 / queue.admitted;
+                activity.maxWaitMs = queue.maxWaitNanos / 1_000_000.0;
+                activity.oldestWaitMs = queue.waiters.isEmpty() ? 0 : (now - queue.waiters.peekFirst().enqueuedNanos) / 1_000_000.0;
+                stats.activities.put(queue.name, activity);
+            }
+            return stats;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void release(String activityName) {
+        lock.lock();
+        try {
+            releaseSlot(queues.get(activityName));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void releaseSlot(ActivityQueue queue) {
+        queue.running--;
+        usedCapacity -= weightOf(queue);
+        dispatch();
+    }
+
+    /**
+     * Admits waiters round-robin over the activities until the next one in turn cannot run.
+     * Activities held back by their own maxConcurrency pass their turn on; one held back by the
+     * shared capacity keeps it.
+     */
+    private void dispatch() {
+        int passed = 0;
+        while (!rotation.isEmpty() && passed < rotation.size()) {
+            ActivityQueue queue = rotation.peekFirst();
+            if (queue.waiters.isEmpty()) {
+                rotation.pollFirst();
+                queue.inRotation = false;
+                continue;
+            }
+            if (queue.running >= queue.limit.getMaxConcurrency()) {
+                rotation.addLast(rotation.pollFirst());
+                passed++;
+                continue;
+            }
+            if (!hasCapacityFor(queue)) {
+                return;
+            }
+            Waiter waiter = queue.waiters.pollFirst();
+            admit(queue, System.nanoTime() - waiter.enqueuedNanos);
+            waiter.admitted = true;
+            waiter.condition.signal();
+            rotation.addLast(rotation.pollFirst());
+            passed = 0;
+        }
+    }
+
+    private boolean canRun(ActivityQueue queue) {
+        return queue.running < queue.limit.getMaxConcurrency() && hasCapacityFor(queue);
+    }
+
+    private boolean hasCapacityFor(ActivityQueue queue) {
+        return capacity == 0 || usedCapacity + weightOf(queue) <= capacity;
+    }
+
+    /**
+     * Whether some activity is waiting for shared capacity rather than for its own limit; a new
+     * invocation of another activity must not take the units it is waiting for.
+     */
+    private boolean hasWaiterForCapacity() {
+        for (ActivityQueue queue : rotation) {
+            if (!queue.waiters.isEmpty() && queue.running < queue.limit.getMaxConcurrency()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int weightOf(ActivityQueue queue) {
+        // A weight above the capacity would never fit, so it takes the whole capacity instead
+        return capacity == 0 ? 0 : Math.min(queue.limit.getWeight(), capacity);
+    }
+
+    private void admit(ActivityQueue queue, long waitNanos) {
+        queue.running++;
+        queue.admitted++;
+        queue.totalWaitNanos += waitNanos;
+        queue.maxWaitNanos = Math.max(queue.maxWaitNanos, waitNanos);
+        usedCapacity += weightOf(queue);
+    }
+
+    private static class ActivityQueue {
+        final String name;
+        final ActivityLimit limit;
+        final ArrayDeque<Waiter> waiters = new ArrayDeque<>();
+        boolean inRotation;
+        int running;
+        long admitted;
+        long throttled;
+        long totalWaitNanos;
+        long maxWaitNanos;
+
+        ActivityQueue(String name, ActivityLimit limit) {
+            this.name = name;
+            this.limit = limit;
+        }
+    }
+
+    private static class Waiter {
+        final Condition condition;
+        final long enqueuedNanos;
+        boolean admitted;
+
+        Waiter(Condition condition, long enqueuedNanos) {
+            this.condition = condition;
+            this.enqueuedNanos = enqueuedNanos;
+        }
+    }
+
+    /**
+     * Snapshot of the shared capacity and of every activity's slots and queue.
+     */
+    public static class Stats {
+        int capacity;
+        int usedCapacity;
+        Map<String, ActivityStats> activities = new TreeMap<>();
+
+        public int getCapacity() { return capacity; }
+        public int getUsedCapacity() { return usedCapacity; }
+        public Map<String, ActivityStats> getActivities() { return activities; }
+    }
+
+    /**
+     * One activity's limit, running invocations, queue depth and wait times.
+     */
+    public static class ActivityStats {
+        int maxConcurrency;
+        int weight;
+        int maxQueue;
+        int running;
+        int queueDepth;
+        long admitted;
+        long throttled;
+        double averageWaitMs;
+        double maxWaitMs;
+        double oldestWaitMs;
+
+        public int getMaxConcurrency() { return maxConcurrency; }
+        public int getWeight() { return weight; }
+        public int getMaxQueue() { return maxQueue; }
+        public int getRunning() { return running; }
+        public int getQueueDepth() { return queueDepth; }
+        public long getAdmitted() { return admitted; }
+        public long getThrottled() { return throttled; }
+        public double getAverageWaitMs() { return averageWaitMs; }
+        public double getMaxWaitMs() { return maxWaitMs; }
+        public double getOldestWaitMs() { return oldestWaitMs; }
+    }
+}
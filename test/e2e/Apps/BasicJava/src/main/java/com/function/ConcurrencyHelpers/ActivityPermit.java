@@ -0,0 +1,31 @@
+package com.function.ConcurrencyHelpers;
+
+/**
+ * A running slot granted by {@link ActivityLimiter#acquire}. Closing it gives the slot and its
+ * capacity units back; closing it again does nothing.
+ */
+public final class ActivityPermit implements AutoCloseable {
+    private final ActivityLimiter limiter;
+    private final String activityName;
+    private boolean closed;
+
+    ActivityPermit(ActivityLimiter limiter, String activityName) {
+        this.limiter = limiter;
+        this.activityName = activityName;
+    }
+
+    public String getActivityName() {
+        return activityName;
+    }
+
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+        }
+        limiter.release(activityName);
+    }
+}
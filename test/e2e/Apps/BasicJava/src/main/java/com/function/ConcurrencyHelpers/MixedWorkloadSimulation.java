@@ -0,0 +1,190 @@
+package com.function.ConcurrencyHelpers;
+
+import com.function.exceptions.ActivityThrottledException;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs a mixed activity workload on a fixed pool of threads that stands in for the worker's
+ * invocation threads: a heavy activity that holds its thread for heavyMs and a light one that
+ * holds it for lightMs, each arriving at a fixed rate. Invocations enter the pool in arrival
+ * order, as the host hands them to the worker. With a limiter, every invocation first acquires
+ * its activity's slot, and a throttled heavy invocation is submitted again after retryDelayMs,
+ * as ThrottledActivityRetry would after its durable timer. Reports the light activity's latency
+ * from arrival to completion.
+ */
+public final class MixedWorkloadSimulation {
+    public static final String HEAVY_ACTIVITY = "HeavyActivity";
+    public static final String LIGHT_ACTIVITY = "LightActivity";
+
+    private final int workerThreads;
+    private final long durationMs;
+    private final long heavyMs;
+    private final double heavyPerSecond;
+    private final long lightMs;
+    private final double lightPerSecond;
+    private final long retryDelayMs;
+
+    public MixedWorkloadSimulation(int workerThreads, long durationMs, long heavyMs, double heavyPerSecond,
+            long lightMs, double lightPerSecond, long retryDelayMs) {
+        this.workerThreads = workerThreads;
+        this.durationMs = durationMs;
+        this.heavyMs = heavyMs;
+        this.heavyPerSecond = heavyPerSecond;
+        this.lightMs = lightMs;
+        this.lightPerSecond = lightPerSecond;
+        this.retryDelayMs = retryDelayMs;
+    }
+
+    /**
+     * Runs the workload, through the limiter when it is not null, and waits for every light
+     * invocation to complete.
+     */
+    public Result run(ActivityLimiter limiter) throws InterruptedException {
+        ThreadPoolExecutor workers = new ThreadPoolExecutor(workerThreads, workerThreads,
+                0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>());
+        ScheduledExecutorService arrivals = Executors.newScheduledThreadPool(2);
+        Run run = new Run(limiter, workers, arrivals);
+
+        ScheduledFuture<?> heavy = arrivals.scheduleAtFixedRate(() -> run.submitHeavy(),
+                0, periodNanos(heavyPerSecond), TimeUnit.NANOSECONDS);
+        ScheduledFuture<?> light = arrivals.scheduleAtFixedRate(() -> run.submitLight(System.nanoTime()),
+                0, periodNanos(lightPerSecond), TimeUnit.NANOSECONDS);
+        Thread.sleep(durationMs);
+        heavy.cancel(false);
+        light.cancel(false);
+        // Pending retries are dropped; the light invocations already queued still run
+        arrivals.shutdownNow();
+        arrivals.awaitTermination(1, TimeUnit.MINUTES);
+        workers.shutdown();
+        workers.awaitTermination(durationMs + heavyMs * run.heavyIssued.get() + 60_000, TimeUnit.MILLISECONDS);
+
+        Result result = new Result();
+        synchronized (run.lightLatenciesNanos) {
+            long[] latencies = run.lightLatenciesNanos.stream().mapToLong(Long::longValue).sorted().toArray();
+            result.lightCompleted = latencies.length;
+            result.lightP50Ms = percentileMs(latencies, 0.50);
+            result.lightP99Ms = percentileMs(latencies, 0.99);
+            result.lightMaxMs = latencies.length == 0 ? 0 : latencies[latencies.length - 1] / 1_000_000.0;
+        }
+        result.lightIssued = run.lightIssued.get();
+        result.heavyIssued = run.heavyIssued.get();
+        result.heavyCompleted = run.heavyCompleted.get();
+        result.heavyThrottled = run.heavyThrottled.get();
+        result.limiter = limiter == null ? null : limiter.getStats();
+        return result;
+    }
+
+    private static long periodNanos(double perSecond) {
+        return Math.max(1, (long) (1_000_000_000L / perSecond));
+    }
+
+    private static double percentileMs(long[] sortedNanos, double percentile) {
+        if (sortedNanos.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percentile * sortedNanos.length) - 1;
+        return sortedNanos[Math.max(0, index)] / 1_000_000.0;
+    }
+
+    private class Run {
+        final ActivityLimiter limiter;
+        final ThreadPoolExecutor workers;
+        final ScheduledExecutorService arrivals;
+        final List<Long> lightLatenciesNanos = new ArrayList<>();
+        final AtomicLong lightIssued = new AtomicLong();
+        final AtomicLong heavyIssued = new AtomicLong();
+        final AtomicLong heavyCompleted = new AtomicLong();
+        final AtomicLong heavyThrottled = new AtomicLong();
+
+        Run(ActivityLimiter limiter, ThreadPoolExecutor workers, ScheduledExecutorService arrivals) {
+            this.limiter = limiter;
+            this.workers = workers;
+            this.arrivals = arrivals;
+        }
+
+        void submitLight(long arrivalNanos) {
+            lightIssued.incrementAndGet();
+            submit(() -> {
+                try {
+                    invoke(LIGHT_ACTIVITY, lightMs);
+                    synchronized (lightLatenciesNanos) {
+                        lightLatenciesNanos.add(System.nanoTime() - arrivalNanos);
+                    }
+                } catch (ActivityThrottledException e) {
+                    // The light activity is not limited in this workload
+                }
+            });
+        }
+
+        void submitHeavy() {
+            heavyIssued.incrementAndGet();
+            submitHeavyAttempt();
+        }
+
+        void submitHeavyAttempt() {
+            submit(() -> {
+                try {
+                    invoke(HEAVY_ACTIVITY, heavyMs);
+                    heavyCompleted.incrementAndGet();
+                } catch (ActivityThrottledException e) {
+                    heavyThrottled.incrementAndGet();
+                    try {
+                        arrivals.schedule(this::submitHeavyAttempt, retryDelayMs, TimeUnit.MILLISECONDS);
+                    } catch (RejectedExecutionException stopped) {
+                        // The workload is over
+                    }
+                }
+            });
+        }
+
+        void submit(Runnable invocation) {
+            try {
+                workers.execute(invocation);
+            } catch (RejectedExecutionException e) {
+                // The workload is over
+            }
+        }
+
+        void invoke(String activityName, long workMs) throws ActivityThrottledException {
+            try {
+                if (limiter == null) {
+                    Thread.sleep(workMs);
+                    return;
+                }
+                try (ActivityPermit permit = limiter.acquire(activityName)) {
+                    Thread.sleep(workMs);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Light activity latency and heavy activity throughput of one run.
+     */
+    public static class Result {
+        long lightIssued;
+        long lightCompleted;
+        double lightP50Ms;
+        double lightP99Ms;
+        double lightMaxMs;
+        long heavyIssued;
+        long heavyCompleted;
+        long heavyThrottled;
+        ActivityLimiter.Stats limiter;
+
+        public long getLightIssued() { return lightIssued; }
+        public long getLightCompleted() { return lightCompleted; }
+        public double getLightP50Ms() { return lightP50Ms; }
+        public double getLightP99Ms() { return lightP99Ms; }
+        public double getLightMaxMs() { return lightMaxMs; }
+        public long getHeavyIssued() { return heavyIssued; }
+        public long getHeavyCompleted() { return heavyCompleted; }
+        public long getHeavyThrottled() { return heavyThrottled; }
+        public ActivityLimiter.Stats getLimiter() { return limiter; }
+    }
+}
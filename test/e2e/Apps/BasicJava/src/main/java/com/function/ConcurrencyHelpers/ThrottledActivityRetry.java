@@ -0,0 +1,54 @@
+package com.function.ConcurrencyHelpers;
+
+import com.function.ConfigHelpers.AppSettings;
+
+import java.time.Duration;
+
+import com.microsoft.durabletask.FailureDetails;
+import com.microsoft.durabletask.TaskOptions;
+
+/**
+ * Retries an activity call that failed with ActivityThrottledException, after a durable timer of
+ * ActivityLimits_RetryDelaySeconds (default 1), doubled on every attempt up to
+ * ActivityLimits_RetryMaxDelaySeconds (default 30). Other failures are not retried.
+ *
+ * A throttled invocation did no work, so by default it is retried until it gets a slot: throttling
+ * delays an orchestration but does not fail it. ActivityLimits_RetryAttempts above zero gives up
+ * after that many attempts and fails the call with the last ActivityThrottledException instead.
+ *
+ * Each retry adds a timer and another scheduled and failed task to the orchestration's history, so
+ * while an activity stays throttled its orchestration's history grows by a few events per
+ * ActivityLimits_RetryMaxDelaySeconds and every later replay gets longer.
+ */
+public final class ThrottledActivityRetry {
+    private static final int RETRY_ATTEMPTS = AppSettings.getInt("ActivityLimits_RetryAttempts", 0);
+    private static final long RETRY_DELAY_SECONDS = AppSettings.getLong("ActivityLimits_RetryDelaySeconds", 1);
+    private static final long RETRY_MAX_DELAY_SECONDS = AppSettings.getLong("ActivityLimits_RetryMaxDelaySeconds", 30);
+
+    private static final TaskOptions options = new TaskOptions(retryContext -> {
+        FailureDetails lastFailure = retryContext.getLastFailure();
+        if (!isThrottled(lastFailure) || (RETRY_ATTEMPTS > 0 && retryContext.getLastAttemptNumber() >= RETRY_ATTEMPTS)) {
+            return false;
+        }
+        int doublings = Math.min(30, retryContext.getLastAttemptNumber() - 1);
+        long delaySeconds = Math.min(RETRY_MAX_DELAY_SECONDS, RETRY_DELAY_SECONDS << doublings);
+        retryContext.getOrchestrationContext().createTimer(Duration.ofSeconds(delaySeconds)).await();
+        return true;
+    });
+
+    private ThrottledActivityRetry() {}
+
+    public static TaskOptions options() {
+        return options;
+    }
+
+    private static boolean isThrottled(FailureDetails failure) {
+        return failure != null
+                && (contains(failure.getErrorType(), "ActivityThrottledException")
+                        || contains(failure.getErrorMessage(), "ActivityThrottledException"));
+    }
+
+    private static boolean contains(String value, String text) {
+        return value != null && value.contains(text);
+    }
+}
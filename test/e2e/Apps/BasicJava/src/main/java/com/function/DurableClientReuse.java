@@ -0,0 +1,169 @@
+package com.function;
+
+import com.microsoft.azure.functions.annotation.*;
+import com.function.ClientHelpers.SharedDurableClients;
+import com.function.JsonHelpers.DurableMetadataGsonProvider;
+import com.microsoft.azure.functions.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.net.URL;
+import java.util.*;
+import java.util.concurrent.*;
+
+import com.microsoft.durabletask.*;
+import com.microsoft.durabletask.azurefunctions.DurableClientContext;
+import com.microsoft.durabletask.azurefunctions.DurableClientInput;
+
+
+/**
+ * Benchmark for reusing one DurableTaskClient across invocations, see SharedDurableClients.
+ */
+public class DurableClientReuse {
+    /**
+     * HTTP-triggered function that reads the status of instanceId with the shared client or,
+     * with shared=false, with the client of this invocation's own binding, as the app's functions
+     * did before SharedDurableClients. That client is closed afterwards so the benchmark does not
+     * leave its channels open.
+     */
+    @FunctionName("DurableClient_StatusRead")
+    public HttpResponseMessage durableClientStatusRead(
+            @HttpTrigger(name = "req", methods = {HttpMethod.GET}, authLevel = AuthorizationLevel.ANONYMOUS) HttpRequestMessage<Optional<String>> request,
+            @DurableClientInput(name = "durableContext") DurableClientContext durableContext,
+            final ExecutionContext context) {
+        String instanceId = request.getQueryParameters().get("instanceId");
+        if (instanceId == null || instanceId.isEmpty()) {
+            return request.createResponseBuilder(HttpStatus.BAD_REQUEST)
+                    .body("Please pass an instanceId.")
+                    .build();
+        }
+        boolean shared = !"false".equalsIgnoreCase(request.getQueryParameters().get("shared"));
+        DurableTaskClient client = shared ? SharedDurableClients.get(durableContext) : durableContext.getClient();
+        try {
+            OrchestrationMetadata metadata = client.getInstanceMetadata(instanceId, false);
+            return request.createResponseBuilder(metadata != null && metadata.isInstanceFound() ? HttpStatus.OK : HttpStatus.NOT_FOUND)
+                    .build();
+        } finally {
+            if (!shared) {
+                client.close();
+            }
+        }
+    }
+
+    /**
+     * HTTP-triggered benchmark: calls DurableClient_StatusRead on this host "calls" (default
+     * 1,000) times for an unknown instance, sequentially and with "concurrency" (default 16)
+     * callers, once with a client per invocation and once with the shared client, and reports
+     * latency percentiles. Every call is a real invocation with its own client binding, so the
+     * per-invocation client is built the way the worker builds it; the HTTP round trip is the
+     * same in both modes.
+     */
+    @FunctionName("DurableClient_Benchmark")
+    public HttpResponseMessage durableClientBenchmark(
+            @HttpTrigger(name = "req", methods = {HttpMethod.GET, HttpMethod.POST}, authLevel = AuthorizationLevel.ANONYMOUS) HttpRequestMessage<Optional<String>> request,
+            final ExecutionContext context) {
+        Map<String, String> parameters = request.getQueryParameters();
+        int calls;
+        int concurrency;
+        try {
+            calls = Integer.parseInt(parameters.getOrDefault("calls", "1000"));
+            concurrency = Integer.parseInt(parameters.getOrDefault("concurrency", "16"));
+        } catch (NumberFormatException e) {
+            return request.createResponseBuilder(HttpStatus.BAD_REQUEST)
+                    .body("Invalid benchmark parameter: " + e.getMessage())
+                    .build();
+        }
+        if (calls < 1 || concurrency < 1 || concurrency > 256) {
+            return request.createResponseBuilder(HttpStatus.BAD_REQUEST)
+                    .body("calls must be positive and concurrency between 1 and 256.")
+                    .build();
+        }
+
+        URI uri = request.getUri();
+        String statusRead = uri.getScheme() + "://" + uri.getAuthority() + "/api/DurableClient_StatusRead?instanceId="
+                + "durable-client-benchmark-" + UUID.randomUUID();
+        Callable<Void> perInvocationCall = () -> call(statusRead + "&shared=false");
+        Callable<Void> sharedCall = () -> call(statusRead + "&shared=true");
+
+        try {
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("calls", calls);
+            result.put("concurrency", concurrency);
+            result.put("perInvocationSequential", measure(perInvocationCall, calls, 1));
+            result.put("sharedSequential", measure(sharedCall, calls, 1));
+            result.put("perInvocationConcurrent", measure(perInvocationCall, calls, concurrency));
+            result.put("sharedConcurrent", measure(sharedCall, calls, concurrency));
+            return request.createResponseBuilder(HttpStatus.OK)
+                    .header("Content-Type", "application/json")
+                    .body(DurableMetadataGsonProvider.createGson().toJson(result))
+                    .build();
+        } catch (Exception ex) {
+            context.getLogger().severe("Client benchmark failed: " + ex.getMessage());
+            return request.createResponseBuilder(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .header("Content-Type", "text/plain")
+                    .body(ex.getMessage())
+                    .build();
+        }
+    }
+
+    private static Void call(String url) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+        try {
+            int status = connection.getResponseCode();
+            // The instance is unknown, so a working read answers 404
+            if (status != HttpURLConnection.HTTP_NOT_FOUND && status != HttpURLConnection.HTTP_OK) {
+                throw new IOException("DurableClient_StatusRead failed with HTTP " + status);
+            }
+            InputStream body = status < 400 ? connection.getInputStream() : connection.getErrorStream();
+            if (body != null) {
+                body.close();
+            }
+            return null;
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    private static Map<String, Object> measure(Callable<Void> call, int calls, int concurrency) throws Exception {
+        long[] latencies = new long[calls];
+        ExecutorService executor = Executors.newFixedThreadPool(concurrency);
+        long start = System.nanoTime();
+        try {
+            List<Future<?>> futures = new ArrayList<>(calls);
+            for (int i = 0; i < calls; i++) {
+                int index = i;
+                futures.add(executor.submit(() -> {
+                    long callStart = System.nanoTime();
+                    call.call();
+                    latencies[index] = System.nanoTime() - callStart;
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        long elapsedNanos = System.nanoTime() - start;
+
+        Arrays.sort(latencies);
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("elapsedMs", elapsedNanos / 1_000_000);
+        stats.put("callsPerSecond", calls * 1e9 / elapsedNanos);
+        stats.put("meanMs", Arrays.stream(latencies).average().orElse(0) / 1e6);
+        stats.put("p50Ms", percentile(latencies, 0.50) / 1e6);
+        stats.put("p99Ms", percentile(latencies, 0.99) / 1e6);
+        stats.put("maxMs", latencies.length == 0 ? 0 : latencies[latencies.length - 1] / 1e6);
+        return stats;
+    }
+
+    private static double percentile(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        return sorted[Math.min(sorted.length - 1, (int) Math.ceil(percentile * sorted.length) - 1)];
+    }
+}
@@ -0,0 +1,261 @@
+package com.function;
+
+import com.microsoft.azure.functions.annotation.*;
+import com.function.BulkHelpers.BulkOperationResult;
+import com.function.BulkHelpers.BulkOperationRunner;
+import com.function.ClientHelpers.HistoryReader;
+import com.function.ClientHelpers.SharedDurableClients;
+import com.function.EventHelpers.ExternalEventBatcher;
+import com.function.JsonHelpers.DurableMetadataGsonProvider;
+import com.microsoft.azure.functions.*;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.microsoft.durabletask.*;
+import com.microsoft.durabletask.azurefunctions.DurableClientContext;
+import com.microsoft.durabletask.azurefunctions.DurableClientInput;
+import com.microsoft.durabletask.azurefunctions.DurableOrchestrationTrigger;
+
+
+/**
+ * Orchestrators that collect a large number of "Signal" events, either in batches through
+ * {@link ExternalEventBatcher} or with one wait per event, plus a benchmark that compares them.
+ */
+public class EventAggregationOrchestration {
+    private static final int MAX_TRACKED_RUNS = 16;
+
+    // Process-local counters of the last MAX_TRACKED_RUNS benchmark runs, keyed by
+    // AggregationState.statsKey; orchestrator code must not branch on these.
+    private static final Map<String, EpisodeStats> episodeStats = Collections.synchronizedMap(
+            new LinkedHashMap<String, EpisodeStats>() {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, EpisodeStats> eldest) {
+                    return size() > MAX_TRACKED_RUNS;
+                }
+            });
+
+    /**
+     * Orchestrator: receives events in batches. When eventsPerExecution is set it continues as new
+     * every eventsPerExecution events, so neither history size nor replay cost grows with the total
+     * event count.
+     */
+    @FunctionName("EventAggregationOrchestrator")
+    public AggregationState eventAggregationOrchestrator(
+            @DurableOrchestrationTrigger(name = "ctx") TaskOrchestrationContext ctx) {
+        AggregationState state = ctx.getInput(AggregationState.class);
+        EpisodeStats stats = recordEpisode(state);
+        ExternalEventBatcher<Integer> batcher = new ExternalEventBatcher<>(ctx, "Signal", Integer.class);
+
+        int receivedThisExecution = 0;
+        while (state.received < state.expectedEvents) {
+            int maxEvents = Math.min(state.maxBatchSize, state.expectedEvents - state.received);
+            List<Integer> batch = batcher.next(maxEvents, Duration.ofSeconds(state.maxWaitSeconds));
+            if (ctx.getIsReplaying()) {
+                stats.replayedEvents.addAndGet(batch.size());
+            }
+            state.received += batch.size();
+            state.batches++;
+            receivedThisExecution += batch.size();
+
+            if (state.shouldContinueAsNew(receivedThisExecution)) {
+                state.endExecution(batcher.getTimersCreated());
+                // Keep any events that arrived but were not consumed yet
+                ctx.continueAsNew(state, true);
+                return state;
+            }
+        }
+        state.endExecution(batcher.getTimersCreated());
+        return state;
+    }
+
+    /**
+     * Orchestrator: baseline that awaits every event individually. It continues as new at the same
+     * eventsPerExecution as the batched orchestrator, so the two differ only in how events are awaited.
+     */
+    @FunctionName("EventPerWaitOrchestrator")
+    public AggregationState eventPerWaitOrchestrator(
+            @DurableOrchestrationTrigger(name = "ctx") TaskOrchestrationContext ctx) {
+        AggregationState state = ctx.getInput(AggregationState.class);
+        EpisodeStats stats = recordEpisode(state);
+
+        int receivedThisExecution = 0;
+        while (state.received < state.expectedEvents) {
+            ctx.waitForExternalEvent("Signal", Integer.class).await();
+            if (ctx.getIsReplaying()) {
+                stats.replayedEvents.incrementAndGet();
+            }
+            state.received++;
+            state.batches++;
+            receivedThisExecution++;
+
+            if (state.shouldContinueAsNew(receivedThisExecution)) {
+                state.endExecution(0);
+                ctx.continueAsNew(state, true);
+                return state;
+            }
+        }
+        state.endExecution(0);
+        return state;
+    }
+
+    /**
+     * HTTP-triggered benchmark: sends eventCount (default 10,000) events to each orchestrator in
+     * turn and reports episodes, replayed events and the measured history of both. Both run with the
+     * same eventsPerExecution; the default, 0, never continues as new, so the difference comes from
+     * batching alone and the measured history is the whole history. With eventsPerExecution set, it
+     * is the history of the last execution, as earlier ones are discarded by continue-as-new.
+     * Episode and replay counters are kept in this process for the runs it starts only, so run it
+     * against a single local worker.
+     */
+    @FunctionName("EventAggregation_Benchmark")
+    public HttpResponseMessage eventAggregationBenchmark(
+            @HttpTrigger(name = "req", methods = {HttpMethod.GET, HttpMethod.POST}, authLevel = AuthorizationLevel.ANONYMOUS) HttpRequestMessage<Optional<String>> request,
+            @DurableClientInput(name = "durableContext") DurableClientContext durableContext,
+            final ExecutionContext context) {
+        AggregationState input = new AggregationState();
+        input.expectedEvents = getIntParameter(request, "eventCount", 10000);
+        input.maxBatchSize = getIntParameter(request, "batchSize", 500);
+        input.maxWaitSeconds = getIntParameter(request, "maxWaitSeconds", 5);
+        input.eventsPerExecution = getIntParameter(request, "eventsPerExecution", 0);
+        int concurrency = getIntParameter(request, "raiseConcurrency", BulkOperationRunner.DEFAULT_MAX_CONCURRENCY);
+        Duration timeout = Duration.ofMinutes(getIntParameter(request, "timeoutMinutes", 30));
+
+        DurableTaskClient client = SharedDurableClients.get(durableContext);
+        try {
+            List<BenchmarkRun> runs = new ArrayList<>();
+            runs.add(runBenchmark(request, durableContext, client, "EventAggregationOrchestrator", input, concurrency, timeout));
+            runs.add(runBenchmark(request, durableContext, client, "EventPerWaitOrchestrator", input, concurrency, timeout));
+            for (BenchmarkRun run : runs) {
+                context.getLogger().info(String.format("%s: %d episodes, %d replayed events, %d history events (%d chars), %d ms.",
+                        run.orchestrationName, run.episodes, run.replayedEvents, run.historyEvents, run.historyJsonChars, run.elapsedMs));
+            }
+            return request.createResponseBuilder(HttpStatus.OK)
+                    .header("Content-Type", "application/json")
+                    .body(DurableMetadataGsonProvider.createGson().toJson(runs))
+                    .build();
+        } catch (Exception ex) {
+            context.getLogger().severe("Event aggregation benchmark failed: " + ex.getMessage());
+            return request.createResponseBuilder(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .header("Content-Type", "text/plain")
+                    .body(ex.getMessage())
+                    .build();
+        }
+    }
+
+    private static BenchmarkRun runBenchmark(HttpRequestMessage<?> request, DurableClientContext durableContext,
+            DurableTaskClient client, String orchestrationName, AggregationState input,
+            int concurrency, Duration timeout) throws Exception {
+        input.statsKey = UUID.randomUUID().toString();
+        String instanceId = client.scheduleNewOrchestrationInstance(orchestrationName, input);
+        client.waitForInstanceStart(instanceId, timeout, false);
+
+        long start = System.nanoTime();
+        AtomicInteger sequence = new AtomicInteger();
+        try (BulkOperationRunner runner = new BulkOperationRunner(concurrency)) {
+            List<String> targets = Collections.nCopies(input.expectedEvents, instanceId);
+            Iterator<List<String>> batches = BulkOperationRunner.partition(targets, BulkOperationRunner.DEFAULT_BATCH_SIZE);
+            BulkOperationResult raised = new BulkOperationResult();
+            while (batches.hasNext()) {
+                runner.runBatch(batches.next(), id -> client.raiseEvent(id, "Signal", sequence.incrementAndGet()), raised);
+            }
+        }
+        OrchestrationMetadata metadata = client.waitForInstanceCompletion(instanceId, timeout, true);
+
+        BenchmarkRun run = new BenchmarkRun();
+        run.orchestrationName = orchestrationName;
+        run.instanceId = instanceId;
+        run.runtimeStatus = metadata.getRuntimeStatus();
+        run.elapsedMs = (System.nanoTime() - start) / 1_000_000;
+        EpisodeStats stats = episodeStats.remove(input.statsKey);
+        if (stats != null) {
+            run.episodes = stats.episodes.get();
+            run.replayedEvents = stats.replayedEvents.get();
+        }
+        AggregationState output = metadata.readOutputAs(AggregationState.class);
+        if (output != null) {
+            run.eventsReceived = output.received;
+            run.batches = output.batches;
+            run.executions = output.executions;
+            run.timersCreated = output.timersCreated;
+        }
+        HistoryReader.HistorySize history = HistoryReader.measureHistory(
+                durableContext.createHttpManagementPayload(request, instanceId).getStatusQueryGetUri());
+        if (history != null) {
+            run.historyEvents = history.getEventCount();
+            run.historyJsonChars = history.getJsonChars();
+        }
+        return run;
+    }
+
+    /**
+     * Counts an episode of a benchmark run; instances started without a statsKey get counters
+     * that are not kept.
+     */
+    private static EpisodeStats recordEpisode(AggregationState state) {
+        EpisodeStats stats = state.statsKey == null
+                ? new EpisodeStats()
+                : episodeStats.computeIfAbsent(state.statsKey, k -> new EpisodeStats());
+        stats.episodes.incrementAndGet();
+        return stats;
+    }
+
+    private static int getIntParameter(HttpRequestMessage<?> request, String name, int defaultValue) {
+        try {
+            String value = request.getQueryParameters().get(name);
+            return value == null ? defaultValue : Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+
+    private static class EpisodeStats {
+        final AtomicInteger episodes = new AtomicInteger();
+        final AtomicInteger replayedEvents = new AtomicInteger();
+    }
+
+    private static class BenchmarkRun {
+        String orchestrationName;
+        String instanceId;
+        OrchestrationRuntimeStatus runtimeStatus;
+        long elapsedMs;
+        int eventsReceived;
+        int batches;
+        int executions;
+        int timersCreated;
+        int episodes;
+        int replayedEvents;
+        // Measured from the instance's stored history after it completed
+        long historyEvents;
+        long historyJsonChars;
+    }
+}
+
+/**
+ * Orchestrator input and output for the event aggregation orchestrators; carried across
+ * continue-as-new so the totals cover every execution.
+ */
+class AggregationState {
+    public int expectedEvents;
+    public int maxBatchSize;
+    public int maxWaitSeconds;
+    public int eventsPerExecution;
+    public int received;
+    public int batches;
+    public int executions;
+    public int timersCreated;
+    // Set by EventAggregation_Benchmark to collect episode counters for its run
+    public String statsKey;
+
+    public AggregationState() {}
+
+    boolean shouldContinueAsNew(int receivedThisExecution) {
+        return eventsPerExecution > 0 && received < expectedEvents && receivedThisExecution >= eventsPerExecution;
+    }
+
+    void endExecution(int timersThisExecution) {
+        executions++;
+        timersCreated += timersThisExecution;
+    }
+}
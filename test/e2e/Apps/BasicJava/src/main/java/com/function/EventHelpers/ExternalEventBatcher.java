@@ -0,0 +1,68 @@
+package com.function.EventHelpers;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.microsoft.durabletask.Task;
+import com.microsoft.durabletask.TaskOrchestrationContext;
+
+/**
+ * Hands external events of one name to an orchestrator in batches: "the next up to N events,
+ * or whatever arrived within T".
+ *
+ * Events that are already buffered by the orchestration are taken without blocking, so a burst
+ * of events is drained in a single episode. A durable timer is only created when the batch has
+ * to wait for more events. The batcher keeps one outstanding wait across calls so that an event
+ * which arrives after a timeout is never lost; create one batcher per orchestrator execution
+ * and reuse it for every call. Everything here is driven by orchestration history, so replays
+ * produce exactly the same batches.
+ */
+public class ExternalEventBatcher<T> {
+    private final TaskOrchestrationContext ctx;
+    private final String eventName;
+    private final Class<T> eventType;
+    private Task<T> pendingWait;
+    private int timersCreated;
+
+    public ExternalEventBatcher(TaskOrchestrationContext ctx, String eventName, Class<T> eventType) {
+        this.ctx = ctx;
+        this.eventName = eventName;
+        this.eventType = eventType;
+    }
+
+    /**
+     * Returns up to maxEvents events. Blocks until the batch is full or maxWait has elapsed, and
+     * may return an empty list on timeout. A null maxWait waits until the batch is full.
+     */
+    public List<T> next(int maxEvents, Duration maxWait) {
+        List<T> batch = new ArrayList<>();
+        Task<Void> timer = null;
+        while (batch.size() < maxEvents) {
+            if (pendingWait == null) {
+                pendingWait = ctx.waitForExternalEvent(eventName, eventType);
+            }
+            if (!pendingWait.isDone() && maxWait != null) {
+                if (timer == null) {
+                    timer = ctx.createTimer(maxWait);
+                    timersCreated++;
+                }
+                ctx.anyOf(pendingWait, timer).await();
+                if (!pendingWait.isDone()) {
+                    // Timed out; keep the wait so the next call receives the next event
+                    break;
+                }
+            }
+            batch.add(pendingWait.await());
+            pendingWait = null;
+        }
+        return batch;
+    }
+
+    /**
+     * Number of durable timers this batcher has created, for history-size accounting.
+     */
+    public int getTimersCreated() {
+        return timersCreated;
+    }
+}
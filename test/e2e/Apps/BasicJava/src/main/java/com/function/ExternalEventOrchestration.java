@@ -1,7 +1,11 @@
 package com.function;
 
 import com.microsoft.azure.functions.annotation.*;
+import com.function.BulkHelpers.*;
+import com.function.ClientHelpers.SharedDurableClients;
+import com.function.JsonHelpers.DurableMetadataGsonProvider;
 import com.google.gson.Gson;
+import com.google.gson.JsonElement;
 import com.microsoft.azure.functions.*;
 import com.microsoft.durabletask.*;
 import com.microsoft.durabletask.azurefunctions.DurableClientContext;
@@ -37,7 +41,7 @@ public class ExternalEventOrchestration {
             @DurableClientInput(name = "durableContext") DurableClientContext durableContext,
             final ExecutionContext context) {
 
-        DurableTaskClient client = durableContext.getClient();
+        DurableTaskClient client = SharedDurableClients.get(durableContext);
         String instanceId = null;
         HttpResponseMessage.Builder responseBuilder = request.createResponseBuilder(HttpStatus.OK);
 
@@ -67,4 +71,94 @@ public class ExternalEventOrchestration {
 
         return responseBuilder.build();
     }
-}
\ No newline at end of file
+
+    /**
+     * HTTP-triggered function that raises the same external event on many instances at once.
+     * Targets are either an explicit "instanceIds" list or a "query" filter, for example
+     * {"query": {"orchestrationName": "ExternalEventOrchestrator", "runtimeStatus": ["RUNNING"]}}.
+     * Events are sent in batches of "batchSize" with at most "maxConcurrency" calls in flight,
+     * capped at BulkOperations_MaxConcurrencyLimit.
+     *
+     * raiseEvent is not idempotent, so a run that stops early (a failed query page, for example)
+     * still returns its per-instance outcomes, with status 500 and an "error". For a query, its
+     * "continuationToken" follows the last fully sent batch; posting the same body with that token
+     * resumes after that batch. A run that stops in the middle of a batch (interrupted, or the
+     * worker stopped) leaves the token at the previous batch, so resuming raises the event again
+     * on the part of that batch already sent. An interrupted run's outcomes list those instances;
+     * a stopped worker returns none. For an instanceIds list, the first "total" IDs were processed.
+     */
+    @FunctionName("SendExternalEvent_Bulk")
+    public HttpResponseMessage sendExternalEventBulk(
+            @HttpTrigger(name = "req", methods = {HttpMethod.POST}, authLevel = AuthorizationLevel.ANONYMOUS)
+            HttpRequestMessage<Optional<String>> request,
+            @DurableClientInput(name = "durableContext") DurableClientContext durableContext,
+            final ExecutionContext context) {
+
+        Gson gson = DurableMetadataGsonProvider.createGson();
+        BulkRaiseEventRequest bulkRequest;
+        try {
+            bulkRequest = gson.fromJson(request.getBody().orElse(""), BulkRaiseEventRequest.class);
+        } catch (Exception e) {
+            bulkRequest = null;
+        }
+        if (bulkRequest == null || (bulkRequest.instanceIds == null) == (bulkRequest.query == null)) {
+            return request.createResponseBuilder(HttpStatus.BAD_REQUEST)
+                    .body("Request body must contain either instanceIds or query.")
+                    .build();
+        }
+
+        DurableTaskClient client = SharedDurableClients.get(durableContext);
+        String eventName = bulkRequest.eventName == null || bulkRequest.eventName.isEmpty() ? "Approval" : bulkRequest.eventName;
+        Object eventData = bulkRequest.eventData == null ? Boolean.TRUE : gson.fromJson(bulkRequest.eventData, Object.class);
+        int batchSize = bulkRequest.batchSize > 0 ? bulkRequest.batchSize : BulkOperationRunner.DEFAULT_BATCH_SIZE;
+        int maxConcurrency = bulkRequest.maxConcurrency > 0 ? bulkRequest.maxConcurrency : BulkOperationRunner.DEFAULT_MAX_CONCURRENCY;
+
+        BulkOperationResult result = new BulkOperationResult();
+        try (BulkOperationRunner runner = new BulkOperationRunner(maxConcurrency)) {
+            Iterator<List<String>> batches = bulkRequest.instanceIds != null
+                    ? BulkOperationRunner.partition(bulkRequest.instanceIds, batchSize)
+                    : new InstanceQueryPager(client, bulkRequest.query, batchSize, bulkRequest.continuationToken);
+            result.setContinuationToken(bulkRequest.continuationToken);
+            while (batches.hasNext()) {
+                runner.runBatch(batches.next(), id -> client.raiseEvent(id, eventName, eventData), result);
+                if (batches instanceof InstanceQueryPager) {
+                    // Only advanced once the batch is fully sent, so it never skips unsent instances
+                    result.setContinuationToken(((InstanceQueryPager) batches).getContinuationToken());
+                }
+            }
+        } catch (Exception ex) {
+            if (ex instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            // Handle gRPC or other exceptions from the instance query, keeping the work already done
+            result.fail(ex);
+            context.getLogger().severe(String.format("Bulk raise of '%s' stopped after %d instances: %s",
+                    eventName, result.getTotal(), result.getError()));
+            return request.createResponseBuilder(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .header("Content-Type", "application/json")
+                    .body(gson.toJson(result))
+                    .build();
+        }
+
+        result.complete();
+        context.getLogger().info(String.format("Raised '%s' on %d instances (%d failed) at %.1f events/s.",
+                eventName, result.getTotal(), result.getFailed(), result.getOperationsPerSecond()));
+        return request.createResponseBuilder(HttpStatus.OK)
+                .header("Content-Type", "application/json")
+                .body(gson.toJson(result))
+                .build();
+    }
+}
+
+/**
+ * Request body for SendExternalEvent_Bulk.
+ */
+class BulkRaiseEventRequest {
+    String eventName;
+    JsonElement eventData;
+    List<String> instanceIds;
+    BulkInstanceQuery query;
+    String continuationToken;
+    int batchSize;
+    int maxConcurrency;
+}
@@ -1,8 +1,28 @@
 package com.function;
 
 import com.microsoft.azure.functions.annotation.*;
+import com.function.AdmissionHelpers.AdmissionControl;
+import com.function.BulkHelpers.BulkOperationResult;
+import com.function.BulkHelpers.BulkOperationRunner;
+import com.function.ClientHelpers.PartitionedInstanceIdGenerator;
+import com.function.ClientHelpers.SharedDurableClients;
+import com.function.ConfigHelpers.AppSettings;
+import com.function.ConcurrencyHelpers.ActivityLimiter;
+import com.function.ConcurrencyHelpers.ActivityPermit;
+import com.function.ConcurrencyHelpers.ThrottledActivityRetry;
+import com.function.JsonHelpers.DurableMetadataGsonProvider;
+import com.function.ScheduleHelpers.StartTimeSpreader;
+import com.function.TracingHelpers.ActivitySpan;
+import com.function.TracingHelpers.ActivityTraceContext;
+import com.function.TracingHelpers.OrchestrationStartSpan;
+import com.function.TracingHelpers.OrchestrationTraceContext;
+import com.function.TracingHelpers.OrchestrationTracer;
+import com.function.TracingHelpers.Tracing;
+import com.function.exceptions.ActivityThrottledException;
+import com.google.gson.Gson;
 import com.microsoft.azure.functions.*;
 
+import java.time.Duration;
 import java.time.Instant;
 import java.time.format.DateTimeParseException;
 import java.util.*;
@@ -14,69 +34,311 @@ import com.microsoft.durabletask.azurefunctions.DurableClientInput;
 import com.microsoft.durabletask.azurefunctions.DurableOrchestrationTrigger;
 
 public class HelloCities {
+    private static final PartitionedInstanceIdGenerator instanceIdGenerator = new PartitionedInstanceIdGenerator();
+    private static final int MAX_BULK_SCHEDULE_INSTANCES = AppSettings.getInt("ScheduledBulk_MaxInstances", 10000);
+
+    private final Tracing tracing;
+
+    public HelloCities() {
+        this(Tracing.shared());
+    }
+
+    HelloCities(Tracing tracing) {
+        this.tracing = tracing;
+    }
+
     /**
-     * Orchestrator function for HelloCities.
+     * Orchestrator function for HelloCities. It is traced when tracing is on, see OrchestrationTracer;
+     * its only input is the trace context of its start.
      */
     @FunctionName("HelloCities")
     public List<String> runOrchestrator(
             @DurableOrchestrationTrigger(name = "context") TaskOrchestrationContext ctx, 
             final ExecutionContext context) {
         context.getLogger().info("Saying hello.");
-        List<String> outputs = new ArrayList<>();
-        outputs.add(ctx.callActivity("SayHello", "Tokyo", String.class).await());
-        outputs.add(ctx.callActivity("SayHello", "Seattle", String.class).await());
-        outputs.add(ctx.callActivity("SayHello", "London", String.class).await());
-        return outputs;
+        OrchestrationTracer tracer = OrchestrationTracer.begin(tracing, ctx, "HelloCities",
+                ctx.getInput(OrchestrationTraceContext.class));
+        try {
+            List<String> outputs = new ArrayList<>();
+            outputs.add(tracer.callActivity("SayHello", trace -> new SayHelloInput("Tokyo", trace), ThrottledActivityRetry.options(), String.class));
+            outputs.add(tracer.callActivity("SayHello", trace -> new SayHelloInput("Seattle", trace), ThrottledActivityRetry.options(), String.class));
+            outputs.add(tracer.callActivity("SayHello", trace -> new SayHelloInput("London", trace), ThrottledActivityRetry.options(), String.class));
+            tracer.complete();
+            return outputs;
+        } catch (RuntimeException e) {
+            tracer.fail(e);
+            throw e;
+        } finally {
+            tracer.endEpisode();
+        }
     }
 
     /**
-     * Activity function SayHello.
+     * Activity function SayHello. It runs under the SayHello concurrency limit, see ActivityLimiter.
      */
     @FunctionName("SayHello")
     public String sayHello(
-            @DurableActivityTrigger(name = "name") String name,
-            final ExecutionContext context) {
-        // Bug: https://github.com/microsoft/durabletask-java/issues/235
-        name = name == null ? null : name.substring(1, name.length() - 1); 
-        context.getLogger().info("Saying hello to " + name + ".");
-        return "Hello " + name + "!";
+            @DurableActivityTrigger(name = "input") SayHelloInput input,
+            final ExecutionContext context) throws ActivityThrottledException, InterruptedException {
+        String name = input.getName();
+        try (ActivitySpan span = ActivitySpan.start(tracing, "SayHello", input.getTrace());
+             ActivityPermit permit = ActivityLimiter.shared().acquire("SayHello")) {
+            context.getLogger().info("Saying hello to " + name + ".");
+            return "Hello " + name + "!";
+        }
     }
 
     /**
-     * HTTP-triggered function to start orchestration.
+     * HTTP-triggered function to start orchestration. With an instanceIdPrefix query parameter
+     * the instance ID is generated from that prefix so it is spread evenly over the control-queue
+     * partitions, or placed on the partition given by the partition query parameter. Starts
+     * beyond AdmissionControl's limits get 429 with Retry-After. A traced HelloCities start gets
+     * the start span's context as its input.
      */
     @FunctionName("StartOrchestration")
     public HttpResponseMessage startOrchestration(
             @HttpTrigger(name = "req", methods = {HttpMethod.GET, HttpMethod.POST}, authLevel = AuthorizationLevel.ANONYMOUS) HttpRequestMessage<Optional<String>> request,
             @DurableClientInput(name = "durableContext") DurableClientContext durableContext,
             final ExecutionContext context) {
-        DurableTaskClient client = durableContext.getClient();
+        DurableTaskClient client = SharedDurableClients.get(durableContext);
+        AdmissionControl.Decision admission = AdmissionControl.shared().tryAdmit(client);
+        if (!admission.isAdmitted()) {
+            return AdmissionControl.reject(request, admission);
+        }
         String orchestrationName = request.getQueryParameters().get("orchestrationName");
-        String instanceId = client.scheduleNewOrchestrationInstance(orchestrationName);
+        String instanceIdPrefix = request.getQueryParameters().get("instanceIdPrefix");
+        String instanceId;
+        try (OrchestrationStartSpan startSpan = OrchestrationStartSpan.start(tracing, request, context, orchestrationName)) {
+            String generatedId = null;
+            if (instanceIdPrefix != null && !instanceIdPrefix.isEmpty()) {
+                String partition = request.getQueryParameters().get("partition");
+                try {
+                    generatedId = partition != null
+                            ? instanceIdGenerator.pinned(instanceIdPrefix, Integer.parseInt(partition))
+                            : instanceIdGenerator.next(instanceIdPrefix);
+                } catch (IllegalArgumentException e) {
+                    return request.createResponseBuilder(HttpStatus.BAD_REQUEST)
+                            .body("Invalid partition: " + e.getMessage())
+                            .build();
+                }
+            }
+            // Only HelloCities reads a trace context from its input; the other orchestrations keep a null input
+            Object input = "HelloCities".equals(orchestrationName) ? startSpan.traceContext() : null;
+            try {
+                instanceId = generatedId != null
+                        ? client.scheduleNewOrchestrationInstance(orchestrationName, input, generatedId)
+                        : client.scheduleNewOrchestrationInstance(orchestrationName, input);
+            } catch (RuntimeException e) {
+                startSpan.fail(e);
+                throw e;
+            }
+            startSpan.started(instanceId);
+        }
         context.getLogger().info("Started orchestration with ID = '" + instanceId + "'.");
         return durableContext.createCheckStatusResponse(request, instanceId);
     }
 
     /**
-     * HTTP-triggered function to start orchestration at a scheduled time.
+     * HTTP-triggered function to start orchestration at a scheduled time, or now without a
+     * ScheduledStartTime. An invalid ScheduledStartTime gets 400 and starts beyond AdmissionControl's
+     * limits get 429 with Retry-After.
      */
     @FunctionName("HelloCities_HttpStart_Scheduled")
     public HttpResponseMessage httpStartScheduled(
             @HttpTrigger(name = "req", methods = {HttpMethod.GET, HttpMethod.POST}, authLevel = AuthorizationLevel.ANONYMOUS) HttpRequestMessage<Optional<String>> request,
             @DurableClientInput(name = "durableContext") DurableClientContext durableContext,
             final ExecutionContext context) {
-        DurableTaskClient client = durableContext.getClient();
         Instant scheduledStartTime;
-        try {
-            String scheduledStartTimeStr = request.getQueryParameters().get("ScheduledStartTime");
-            scheduledStartTime = Instant.parse(scheduledStartTimeStr != null ? scheduledStartTimeStr : "");
-        } catch (DateTimeParseException e) {
+        String scheduledStartTimeStr = request.getQueryParameters().get("ScheduledStartTime");
+        if (scheduledStartTimeStr == null || scheduledStartTimeStr.isEmpty()) {
             scheduledStartTime = Instant.now();
+        } else {
+            try {
+                scheduledStartTime = Instant.parse(scheduledStartTimeStr);
+            } catch (DateTimeParseException e) {
+                return request.createResponseBuilder(HttpStatus.BAD_REQUEST)
+                        .body("Invalid ScheduledStartTime: " + e.getMessage())
+                        .build();
+            }
+        }
+        DurableTaskClient client = SharedDurableClients.get(durableContext);
+        AdmissionControl.Decision admission = AdmissionControl.shared().tryAdmit(client);
+        if (!admission.isAdmitted()) {
+            return AdmissionControl.reject(request, admission);
         }
         NewOrchestrationInstanceOptions startOptions = new NewOrchestrationInstanceOptions();
         startOptions.setStartTime(scheduledStartTime);
         String instanceId = client.scheduleNewOrchestrationInstance("HelloCities", startOptions);
+        AdmissionControl.shared().recordScheduledStart(scheduledStartTime);
         context.getLogger().info("Started orchestration with ID = '" + instanceId + "'.");
         return durableContext.createCheckStatusResponse(request, instanceId);
     }
-}
\ No newline at end of file
+
+    /**
+     * HTTP-triggered function to schedule many orchestrations for the same target time. Start
+     * times are spread over spreadWindowSeconds after the target, deterministically per
+     * instance ID, optionally capped at maxStartsPerSecond; with the cap, a start time also
+     * depends on the other IDs in the request. Targets are the given instanceIds, without
+     * duplicates, or instanceCount new IDs; requests for more than ScheduledBulk_MaxInstances
+     * (default 10,000) instances get 400. The request gets 429 with Retry-After when AdmissionControl's backlog
+     * limit or start rate does not admit all of its starts.
+     */
+    @FunctionName("HelloCities_HttpStart_ScheduledBulk")
+    public HttpResponseMessage httpStartScheduledBulk(
+            @HttpTrigger(name = "req", methods = {HttpMethod.POST}, authLevel = AuthorizationLevel.ANONYMOUS) HttpRequestMessage<Optional<String>> request,
+            @DurableClientInput(name = "durableContext") DurableClientContext durableContext,
+            final ExecutionContext context) {
+        Gson gson = DurableMetadataGsonProvider.createGson();
+        BulkScheduleRequest bulkRequest;
+        try {
+            bulkRequest = gson.fromJson(request.getBody().orElse(""), BulkScheduleRequest.class);
+        } catch (Exception e) {
+            bulkRequest = null;
+        }
+        if (bulkRequest == null || bulkRequest.scheduledStartTime == null
+                || (bulkRequest.instanceIds == null && bulkRequest.instanceCount <= 0)) {
+            return request.createResponseBuilder(HttpStatus.BAD_REQUEST)
+                    .body("Request body must contain scheduledStartTime and either instanceIds or instanceCount.")
+                    .build();
+        }
+
+        int requestedCount = bulkRequest.instanceIds != null ? bulkRequest.instanceIds.size() : bulkRequest.instanceCount;
+        if (requestedCount > MAX_BULK_SCHEDULE_INSTANCES) {
+            return request.createResponseBuilder(HttpStatus.BAD_REQUEST)
+                    .body("At most " + MAX_BULK_SCHEDULE_INSTANCES + " instances can be scheduled per request.")
+                    .build();
+        }
+
+        List<String> instanceIds;
+        if (bulkRequest.instanceIds != null) {
+            // A duplicate would be scheduled twice and take a second slot in the spread
+            instanceIds = new ArrayList<>(new LinkedHashSet<>(bulkRequest.instanceIds));
+        } else {
+            instanceIds = new ArrayList<>(bulkRequest.instanceCount);
+            for (int i = 0; i < bulkRequest.instanceCount; i++) {
+                instanceIds.add(UUID.randomUUID().toString());
+            }
+        }
+        String orchestrationName = bulkRequest.orchestrationName != null ? bulkRequest.orchestrationName : "HelloCities";
+        StartTimeSpreader spreader = new StartTimeSpreader(
+                Duration.ofSeconds(bulkRequest.spreadWindowSeconds), bulkRequest.maxStartsPerSecond);
+        Map<String, Instant> startTimes = spreader.assign(bulkRequest.scheduledStartTime, instanceIds);
+
+        DurableTaskClient client = SharedDurableClients.get(durableContext);
+        AdmissionControl admissionControl = AdmissionControl.shared();
+        AdmissionControl.Decision admission = admissionControl.tryAdmit(client, instanceIds.size());
+        if (!admission.isAdmitted()) {
+            return AdmissionControl.reject(request, admission);
+        }
+        int maxConcurrency = bulkRequest.maxConcurrency > 0 ? bulkRequest.maxConcurrency : BulkOperationRunner.DEFAULT_MAX_CONCURRENCY;
+        BulkOperationResult result = new BulkOperationResult(false);
+        try (BulkOperationRunner runner = new BulkOperationRunner(maxConcurrency)) {
+            Iterator<List<String>> batches = BulkOperationRunner.partition(instanceIds, BulkOperationRunner.DEFAULT_BATCH_SIZE);
+            while (batches.hasNext()) {
+                runner.runBatch(batches.next(), id -> {
+                    NewOrchestrationInstanceOptions startOptions = new NewOrchestrationInstanceOptions();
+                    startOptions.setInstanceId(id);
+                    startOptions.setStartTime(startTimes.get(id));
+                    client.scheduleNewOrchestrationInstance(orchestrationName, startOptions);
+                    admissionControl.recordScheduledStart(startTimes.get(id));
+                }, result);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return request.createResponseBuilder(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("Scheduling was interrupted.")
+                    .build();
+        }
+
+        result.complete();
+        context.getLogger().info(String.format("Scheduled %d orchestrations (%d failed), peak %d starts/s.",
+                result.getSucceeded(), result.getFailed(), StartTimeSpreader.peakStartsPerSecond(startTimes.values())));
+        return request.createResponseBuilder(HttpStatus.OK)
+                .header("Content-Type", "application/json")
+                .body(gson.toJson(result))
+                .build();
+    }
+
+    /**
+     * HTTP-triggered simulation of peak starts per second for instanceCount (default 50,000)
+     * instances scheduled for the same time, with and without spreading. Nothing is scheduled.
+     */
+    @FunctionName("HelloCities_ScheduledStart_Simulation")
+    public HttpResponseMessage scheduledStartSimulation(
+            @HttpTrigger(name = "req", methods = {HttpMethod.GET, HttpMethod.POST}, authLevel = AuthorizationLevel.ANONYMOUS) HttpRequestMessage<Optional<String>> request,
+            final ExecutionContext context) {
+        Map<String, String> parameters = request.getQueryParameters();
+        int instanceCount;
+        int spreadWindowSeconds;
+        int maxStartsPerSecond;
+        try {
+            instanceCount = Integer.parseInt(parameters.getOrDefault("instanceCount", "50000"));
+            spreadWindowSeconds = Integer.parseInt(parameters.getOrDefault("spreadWindowSeconds", "300"));
+            maxStartsPerSecond = Integer.parseInt(parameters.getOrDefault("maxStartsPerSecond", "0"));
+        } catch (NumberFormatException e) {
+            return request.createResponseBuilder(HttpStatus.BAD_REQUEST)
+                    .body("Invalid simulation parameter: " + e.getMessage())
+                    .build();
+        }
+        if (instanceCount < 1 || spreadWindowSeconds < 0 || maxStartsPerSecond < 0) {
+            return request.createResponseBuilder(HttpStatus.BAD_REQUEST)
+                    .body("instanceCount must be positive, and spreadWindowSeconds and maxStartsPerSecond must not be negative.")
+                    .build();
+        }
+
+        List<String> instanceIds = new ArrayList<>(instanceCount);
+        for (int i = 0; i < instanceCount; i++) {
+            instanceIds.add(UUID.randomUUID().toString());
+        }
+        Instant midnight = Instant.parse("2030-01-01T00:00:00Z");
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("instanceCount", instanceCount);
+        result.put("peakStartsPerSecondWithoutSpreading", StartTimeSpreader.peakStartsPerSecond(
+                new StartTimeSpreader(Duration.ZERO, 0).assign(midnight, instanceIds).values()));
+        Map<String, Instant> spread = new StartTimeSpreader(Duration.ofSeconds(spreadWindowSeconds), maxStartsPerSecond)
+                .assign(midnight, instanceIds);
+        result.put("spreadWindowSeconds", spreadWindowSeconds);
+        result.put("maxStartsPerSecond", maxStartsPerSecond);
+        result.put("peakStartsPerSecondWithSpreading", StartTimeSpreader.peakStartsPerSecond(spread.values()));
+        result.put("lastStartOffsetSeconds", Duration.between(midnight, Collections.max(spread.values())).getSeconds());
+        return request.createResponseBuilder(HttpStatus.OK)
+                .header("Content-Type", "application/json")
+                .body(DurableMetadataGsonProvider.createGson().toJson(result))
+                .build();
+    }
+}
+
+/**
+ * Request body for HelloCities_HttpStart_ScheduledBulk.
+ */
+class BulkScheduleRequest {
+    String orchestrationName;
+    Instant scheduledStartTime;
+    List<String> instanceIds;
+    int instanceCount;
+    int spreadWindowSeconds;
+    int maxStartsPerSecond;
+    int maxConcurrency;
+}
+
+/**
+ * Input for SayHello: the city and, when the call is traced, its trace context.
+ */
+class SayHelloInput {
+    private String name;
+    private ActivityTraceContext trace;
+
+    public SayHelloInput() {}
+
+    public SayHelloInput(String name, ActivityTraceContext trace) {
+        this.name = name;
+        this.trace = trace;
+    }
+
+    public String getName() { return name; }
+    public void setName(String name) { this.name = name; }
+
+    public ActivityTraceContext getTrace() { return trace; }
+    public void setTrace(ActivityTraceContext trace) { this.trace = trace; }
+}
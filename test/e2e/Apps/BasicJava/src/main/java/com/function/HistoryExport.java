@@ -0,0 +1,73 @@
+package com.function;
+
+import com.microsoft.azure.functions.annotation.*;
+import com.function.ClientHelpers.HistoryReader;
+import com.microsoft.azure.functions.*;
+
+import java.util.*;
+
+import com.microsoft.durabletask.azurefunctions.DurableClientContext;
+import com.microsoft.durabletask.azurefunctions.DurableClientInput;
+
+
+public class HistoryExport {
+    /**
+     * HTTP-triggered function that exports an instance's history as NDJSON, read in one pass. Query
+     * parameters: "id" (required), "maxEvents" (default HistoryExport_MaxEvents, 10000, at most
+     * HistoryExport_MaxEventsLimit, 50000) and "maxStringChars" (default HistoryExport_MaxStringChars,
+     * 4096). When the history has more events, the export ends with a "truncated" line and the
+     * x-ms-history-truncated response header is true. The host still loads the whole history for the
+     * request and the response is not streamed, see HistoryReader.
+     */
+    @FunctionName("ExportInstanceHistory")
+    public HttpResponseMessage exportInstanceHistory(
+            @HttpTrigger(name = "req", methods = {HttpMethod.GET}, authLevel = AuthorizationLevel.ANONYMOUS) HttpRequestMessage<Optional<String>> request,
+            @DurableClientInput(name = "durableContext") DurableClientContext durableContext,
+            final ExecutionContext context) {
+        Map<String, String> parameters = request.getQueryParameters();
+        String instanceId = parameters.get("id");
+        if (instanceId == null || instanceId.isEmpty()) {
+            return request.createResponseBuilder(HttpStatus.BAD_REQUEST)
+                    .body("The \"id\" query parameter is required.")
+                    .build();
+        }
+
+        int maxEvents;
+        int maxStringChars;
+        try {
+            maxEvents = Integer.parseInt(parameters.getOrDefault("maxEvents", String.valueOf(HistoryReader.DEFAULT_MAX_EVENTS)));
+            maxStringChars = Integer.parseInt(parameters.getOrDefault("maxStringChars", String.valueOf(HistoryReader.DEFAULT_MAX_STRING_CHARS)));
+        } catch (NumberFormatException e) {
+            return request.createResponseBuilder(HttpStatus.BAD_REQUEST)
+                    .body("Invalid export parameter: " + e.getMessage())
+                    .build();
+        }
+        if (maxEvents < 0 || maxStringChars < 0) {
+            return request.createResponseBuilder(HttpStatus.BAD_REQUEST)
+                    .body("maxEvents and maxStringChars must not be negative.")
+                    .build();
+        }
+        maxEvents = Math.min(maxEvents, HistoryReader.MAX_EVENTS_LIMIT);
+
+        try {
+            String statusUri = durableContext.createHttpManagementPayload(request, instanceId).getStatusQueryGetUri();
+            HistoryReader.HistoryExportResult export = HistoryReader.export(statusUri, maxEvents, maxStringChars);
+            if (export == null) {
+                return request.createResponseBuilder(HttpStatus.NOT_FOUND)
+                        .body("No orchestration instance found with ID: " + instanceId)
+                        .build();
+            }
+            return request.createResponseBuilder(HttpStatus.OK)
+                    .header("Content-Type", "application/x-ndjson")
+                    .header("x-ms-history-truncated", String.valueOf(export.isTruncated()))
+                    .body(export.getNdjson())
+                    .build();
+        } catch (Exception ex) {
+            context.getLogger().severe("Error exporting history for " + instanceId + ": " + ex.getMessage());
+            return request.createResponseBuilder(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .header("Content-Type", "text/plain")
+                    .body(ex.getMessage())
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,238 @@
+package com.function;
+
+import com.microsoft.azure.functions.annotation.*;
+import com.function.JsonHelpers.DurableMetadataGsonProvider;
+import com.function.QueryHelpers.InstanceDelta;
+import com.function.QueryHelpers.InstanceDeltaQuery;
+import com.function.QueryHelpers.InstanceRow;
+import com.function.QueryHelpers.InstanceRowSource;
+import com.function.QueryHelpers.InstanceStatusView;
+import com.microsoft.azure.functions.*;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.function.Consumer;
+
+import com.microsoft.durabletask.OrchestrationRuntimeStatus;
+
+
+/**
+ * Benchmark for the instance change feed (GetInstanceChanges).
+ */
+public class InstanceChangeFeed {
+    /**
+     * HTTP-triggered simulation of dashboard refreshes over an instance store of "instances" (default
+     * 1,000,000) instances, "activeInstances" (default 10,000) of them running. Between refreshes
+     * "startsPerRefresh" instances start, "completionsPerRefresh" finish and "updatesPerRefresh" running
+     * instances make progress. Reports the rows a full query reads per refresh against the rows the
+     * delta query reads, and checks the materialized view against the store. Nothing is scheduled.
+     */
+    @FunctionName("InstanceChanges_Benchmark")
+    public HttpResponseMessage instanceChangesBenchmark(
+            @HttpTrigger(name = "req", methods = {HttpMethod.GET, HttpMethod.POST}, authLevel = AuthorizationLevel.ANONYMOUS) HttpRequestMessage<Optional<String>> request,
+            final ExecutionContext context) {
+        Map<String, String> parameters = request.getQueryParameters();
+        int instances = Integer.parseInt(parameters.getOrDefault("instances", "1000000"));
+        int activeInstances = Integer.parseInt(parameters.getOrDefault("activeInstances", "10000"));
+        int refreshes = Integer.parseInt(parameters.getOrDefault("refreshes", "10"));
+        int refreshIntervalSeconds = Integer.parseInt(parameters.getOrDefault("refreshIntervalSeconds", "5"));
+        int startsPerRefresh = Integer.parseInt(parameters.getOrDefault("startsPerRefresh", "500"));
+        int completionsPerRefresh = Integer.parseInt(parameters.getOrDefault("completionsPerRefresh", "500"));
+        int updatesPerRefresh = Integer.parseInt(parameters.getOrDefault("updatesPerRefresh", "2000"));
+
+        Instant now = Instant.parse("2030-01-01T00:00:00Z");
+        SimulatedInstanceStore store = new SimulatedInstanceStore(instances + refreshes * startsPerRefresh, new Random(42));
+        store.seed(instances, activeInstances, now);
+
+        // The dashboard starts in sync: its view holds the running instances as of the initial full load
+        InstanceStatusView view = new InstanceStatusView();
+        List<InstanceRow> initiallyActive = new ArrayList<>();
+        store.forEachActiveCreatedBefore(now, initiallyActive::add);
+        view.apply(new InstanceDelta(initiallyActive, Collections.emptyList(), now.minus(InstanceDeltaQuery.CLOCK_SKEW), false, instances));
+
+        long fullRowsRead = 0;
+        long deltaRowsRead = 0;
+        long deltaNanos = 0;
+        List<Map<String, Object>> perRefresh = new ArrayList<>();
+        boolean consistent = true;
+        for (int i = 1; i <= refreshes; i++) {
+            Instant stepStart = now;
+            now = now.plusSeconds(refreshIntervalSeconds);
+            store.step(stepStart, now, startsPerRefresh, completionsPerRefresh, updatesPerRefresh);
+
+            long start = System.nanoTime();
+            InstanceDelta delta = view.refresh(store, now);
+            deltaNanos += System.nanoTime() - start;
+            fullRowsRead += store.size();
+            deltaRowsRead += delta.getRowsRead();
+            boolean refreshConsistent = view.getActiveInstanceIds().equals(store.activeIds());
+            consistent &= refreshConsistent;
+
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("refresh", i);
+            entry.put("fullQueryRowsRead", store.size());
+            entry.put("deltaRowsRead", delta.getRowsRead());
+            entry.put("changed", delta.getChanged().size());
+            entry.put("viewMatchesStore", refreshConsistent);
+            perRefresh.add(entry);
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("instances", store.size());
+        result.put("refreshes", refreshes);
+        result.put("clockSkewSeconds", InstanceDeltaQuery.CLOCK_SKEW.getSeconds());
+        result.put("fullQueryRowsReadPerRefresh", refreshes == 0 ? 0 : fullRowsRead / refreshes);
+        result.put("deltaRowsReadPerRefresh", refreshes == 0 ? 0 : deltaRowsRead / refreshes);
+        result.put("rowsReadReduction", deltaRowsRead == 0 ? 0 : (double) fullRowsRead / deltaRowsRead);
+        result.put("deltaQueryMsPerRefresh", refreshes == 0 ? 0 : Duration.ofNanos(deltaNanos / refreshes).toMillis());
+        result.put("viewMatchesStore", consistent);
+        result.put("perRefresh", perRefresh);
+        return request.createResponseBuilder(HttpStatus.OK)
+                .header("Content-Type", "application/json")
+                .body(DurableMetadataGsonProvider.createGson().toJson(result))
+                .build();
+    }
+}
+
+/**
+ * An in-memory instance store for InstanceChanges_Benchmark. Instances are indexes into flat arrays
+ * ordered by created time, so a million of them fit in a few tens of megabytes; rows are only
+ * materialized when a query reads them.
+ */
+class SimulatedInstanceStore implements InstanceRowSource {
+    private static final String NAME = "SimulatedOrchestrator";
+
+    private final long[] createdAt;
+    private final long[] lastUpdatedAt;
+    private final boolean[] running;
+    private final List<Integer> active = new ArrayList<>();
+    private final Map<Integer, Integer> activePositions = new HashMap<>();
+    private final Random random;
+    private int size;
+
+    SimulatedInstanceStore(int capacity, Random random) {
+        this.createdAt = new long[capacity];
+        this.lastUpdatedAt = new long[capacity];
+        this.running = new boolean[capacity];
+        this.random = random;
+    }
+
+    /**
+     * Creates instanceCount instances spread over the day before now; the newest activeCount are running.
+     */
+    void seed(int instanceCount, int activeCount, Instant now) {
+        long start = now.minus(Duration.ofDays(1)).toEpochMilli();
+        long spacing = Math.max(1, Duration.ofDays(1).toMillis() / Math.max(1, instanceCount));
+        for (int i = 0; i < instanceCount; i++) {
+            add(start + i * spacing, i >= instanceCount - activeCount);
+        }
+    }
+
+    /**
+     * Advances the store from one refresh to the next.
+     */
+    void step(Instant from, Instant to, int starts, int completions, int updates) {
+        long fromMs = from.toEpochMilli();
+        long span = Math.max(1, to.toEpochMilli() - fromMs);
+        for (int i = 0; i < updates && !active.isEmpty(); i++) {
+            int index = active.get(random.nextInt(active.size()));
+            lastUpdatedAt[index] = Math.max(lastUpdatedAt[index], fromMs + random.nextInt((int) span));
+        }
+        for (int i = 0; i < completions && !active.isEmpty(); i++) {
+            int index = active.get(random.nextInt(active.size()));
+            lastUpdatedAt[index] = Math.max(lastUpdatedAt[index], fromMs + random.nextInt((int) span));
+            setRunning(index, false);
+        }
+        for (int i = 0; i < starts && size < createdAt.length; i++) {
+            add(fromMs + span * i / Math.max(1, starts), true);
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    Set<String> activeIds() {
+        Set<String> ids = new HashSet<>();
+        for (int index : active) {
+            ids.add(instanceId(index));
+        }
+        return ids;
+    }
+
+    @Override
+    public void forEachInstance(Consumer<InstanceRow> action) {
+        for (int i = 0; i < size; i++) {
+            action.accept(row(i));
+        }
+    }
+
+    @Override
+    public void forEachCreatedSince(Instant from, Consumer<InstanceRow> action) {
+        long fromMs = from.toEpochMilli();
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (createdAt[mid] < fromMs) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        for (int i = low; i < size; i++) {
+            action.accept(row(i));
+        }
+    }
+
+    @Override
+    public void forEachActiveCreatedBefore(Instant createdBefore, Consumer<InstanceRow> action) {
+        long beforeMs = createdBefore.toEpochMilli();
+        for (int index : active) {
+            if (createdAt[index] < beforeMs) {
+                action.accept(row(index));
+            }
+        }
+    }
+
+    @Override
+    public InstanceRow get(String instanceId) {
+        int index = Integer.parseInt(instanceId.substring("sim-".length()));
+        return index < size ? row(index) : null;
+    }
+
+    private void add(long created, boolean isRunning) {
+        int index = size++;
+        createdAt[index] = created;
+        lastUpdatedAt[index] = isRunning ? created : created + 1000;
+        setRunning(index, isRunning);
+    }
+
+    private void setRunning(int index, boolean isRunning) {
+        running[index] = isRunning;
+        Integer position = activePositions.get(index);
+        if (isRunning && position == null) {
+            activePositions.put(index, active.size());
+            active.add(index);
+        } else if (!isRunning && position != null) {
+            // Swap-remove keeps random picks from the active list O(1)
+            int last = active.remove(active.size() - 1);
+            activePositions.remove(index);
+            if (last != index) {
+                active.set(position, last);
+                activePositions.put(last, position);
+            }
+        }
+    }
+
+    private InstanceRow row(int index) {
+        return new InstanceRow(instanceId(index), NAME,
+                running[index] ? OrchestrationRuntimeStatus.RUNNING : OrchestrationRuntimeStatus.COMPLETED,
+                Instant.ofEpochMilli(createdAt[index]), Instant.ofEpochMilli(lastUpdatedAt[index]));
+    }
+
+    private static String instanceId(int index) {
+        return "sim-" + index;
+    }
+}
@@ -0,0 +1,127 @@
+package com.function;
+
+import com.microsoft.azure.functions.annotation.*;
+import com.function.BulkHelpers.BulkOperationResult;
+import com.function.BulkHelpers.BulkOperationRunner;
+import com.function.ClientHelpers.PartitionedInstanceIdGenerator;
+import com.function.ClientHelpers.SharedDurableClients;
+import com.function.JsonHelpers.DurableMetadataGsonProvider;
+import com.microsoft.azure.functions.*;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.function.Supplier;
+
+import com.microsoft.durabletask.*;
+import com.microsoft.durabletask.azurefunctions.DurableClientContext;
+import com.microsoft.durabletask.azurefunctions.DurableClientInput;
+
+
+/**
+ * Functions for checking how instance IDs are distributed over control-queue partitions.
+ */
+public class InstanceIdDistribution {
+    /**
+     * HTTP-triggered function that reports the per-partition counts of "count" IDs (default
+     * 10,000) built as prefix + sequence number, random UUIDs, and generated balanced IDs.
+     */
+    @FunctionName("InstanceIdDistribution")
+    public HttpResponseMessage instanceIdDistribution(
+            @HttpTrigger(name = "req", methods = {HttpMethod.GET, HttpMethod.POST}, authLevel = AuthorizationLevel.ANONYMOUS) HttpRequestMessage<Optional<String>> request,
+            final ExecutionContext context) {
+        Map<String, String> parameters = request.getQueryParameters();
+        int count = Integer.parseInt(parameters.getOrDefault("count", "10000"));
+        int partitionCount = Integer.parseInt(parameters.getOrDefault("partitionCount",
+                String.valueOf(PartitionedInstanceIdGenerator.DEFAULT_PARTITION_COUNT)));
+        String prefix = parameters.getOrDefault("prefix", "order-2024");
+
+        int[] sequence = new int[1];
+        PartitionedInstanceIdGenerator generator = new PartitionedInstanceIdGenerator(partitionCount);
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("count", count);
+        result.put("partitionCount", partitionCount);
+        result.put("sequential", distribution(count, partitionCount, () -> String.format("%s-%06d", prefix, sequence[0]++)));
+        result.put("random", distribution(count, partitionCount, () -> UUID.randomUUID().toString()));
+        result.put("generated", distribution(count, partitionCount, () -> generator.next(prefix)));
+        return request.createResponseBuilder(HttpStatus.OK)
+                .header("Content-Type", "application/json")
+                .body(DurableMetadataGsonProvider.createGson().toJson(result))
+                .build();
+    }
+
+    /**
+     * HTTP-triggered benchmark: runs instanceCount HelloCities instances (default 200) with IDs
+     * all on one partition, then with IDs spread evenly, and reports instances per second.
+     */
+    @FunctionName("InstanceIdDistribution_Benchmark")
+    public HttpResponseMessage instanceIdDistributionBenchmark(
+            @HttpTrigger(name = "req", methods = {HttpMethod.GET, HttpMethod.POST}, authLevel = AuthorizationLevel.ANONYMOUS) HttpRequestMessage<Optional<String>> request,
+            @DurableClientInput(name = "durableContext") DurableClientContext durableContext,
+            final ExecutionContext context) {
+        Map<String, String> parameters = request.getQueryParameters();
+        int instanceCount = Integer.parseInt(parameters.getOrDefault("instanceCount", "200"));
+        Duration timeout = Duration.ofMinutes(Integer.parseInt(parameters.getOrDefault("timeoutMinutes", "10")));
+        String prefix = "partition-benchmark-" + UUID.randomUUID();
+
+        DurableTaskClient client = SharedDurableClients.get(durableContext);
+        PartitionedInstanceIdGenerator generator = new PartitionedInstanceIdGenerator();
+        try {
+            List<String> skewedIds = new ArrayList<>();
+            List<String> balancedIds = new ArrayList<>();
+            for (int i = 0; i < instanceCount; i++) {
+                skewedIds.add(generator.pinned(prefix, 0));
+                balancedIds.add(generator.next(prefix));
+            }
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("instanceCount", instanceCount);
+            result.put("partitionCount", generator.getPartitionCount());
+            result.put("skewed", runInstances(client, skewedIds, timeout));
+            result.put("balanced", runInstances(client, balancedIds, timeout));
+            return request.createResponseBuilder(HttpStatus.OK)
+                    .header("Content-Type", "application/json")
+                    .body(DurableMetadataGsonProvider.createGson().toJson(result))
+                    .build();
+        } catch (Exception ex) {
+            context.getLogger().severe("Instance ID benchmark failed: " + ex.getMessage());
+            return request.createResponseBuilder(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .header("Content-Type", "text/plain")
+                    .body(ex.getMessage())
+                    .build();
+        }
+    }
+
+    private static Map<String, Object> runInstances(DurableTaskClient client, List<String> instanceIds, Duration timeout)
+            throws InterruptedException {
+        long start = System.nanoTime();
+        BulkOperationResult scheduled = new BulkOperationResult(false);
+        BulkOperationResult completed = new BulkOperationResult(false);
+        try (BulkOperationRunner runner = new BulkOperationRunner(BulkOperationRunner.DEFAULT_MAX_CONCURRENCY)) {
+            runner.runBatch(instanceIds, id -> client.scheduleNewOrchestrationInstance("HelloCities", null, id), scheduled);
+            // Enough waiters that completions are observed close to when they happen
+            try (BulkOperationRunner waiters = new BulkOperationRunner(Math.min(instanceIds.size(), 256))) {
+                waiters.runBatch(instanceIds, id -> client.waitForInstanceCompletion(id, timeout, false), completed);
+            }
+        }
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+        Map<String, Object> run = new LinkedHashMap<>();
+        run.put("scheduleFailures", scheduled.getFailed());
+        run.put("completed", completed.getSucceeded());
+        run.put("elapsedMs", elapsedMs);
+        run.put("instancesPerSecond", elapsedMs == 0 ? completed.getSucceeded() : completed.getSucceeded() * 1000.0 / elapsedMs);
+        return run;
+    }
+
+    private static Map<String, Object> distribution(int count, int partitionCount, Supplier<String> ids) {
+        int[] perPartition = new int[partitionCount];
+        for (int i = 0; i < count; i++) {
+            perPartition[PartitionedInstanceIdGenerator.partitionOf(ids.get(), partitionCount)]++;
+        }
+        int max = Arrays.stream(perPartition).max().orElse(0);
+        Map<String, Object> distribution = new LinkedHashMap<>();
+        distribution.put("perPartition", perPartition);
+        // 1.0 means perfectly even; partitionCount means everything on one partition
+        distribution.put("maxToMeanRatio", count == 0 ? 0 : max * (double) partitionCount / count);
+        return distribution;
+    }
+}
@@ -0,0 +1,207 @@
+package com.function.JsonHelpers;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Copies JSON values from a character stream one character at a time, so no value is ever held in
+ * memory as a whole. Insignificant whitespace is dropped and string values longer than a limit are
+ * cut short, keeping their escape sequences intact, and end in a "...(+N chars)" marker.
+ */
+public final class JsonStreamCopier {
+    private final Reader reader;
+    private int peeked = -2;
+
+    public JsonStreamCopier(Reader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * Returns the next non-whitespace character without consuming it, or -1 at the end of the input.
+     */
+    public int peek() throws IOException {
+        if (peeked == -2) {
+            int c;
+            do {
+                c = reader.read();
+            } while (c == ' ' || c == '\t' || c == '\r' || c == '\n');
+            peeked = c;
+        }
+        return peeked;
+    }
+
+    public boolean consumeIf(char expected) throws IOException {
+        if (peek() == expected) {
+            peeked = -2;
+            return true;
+        }
+        return false;
+    }
+
+    public void expect(char expected) throws IOException {
+        if (!consumeIf(expected)) {
+            throw new IOException("Malformed JSON: expected '" + expected + "' but found " + describe(peek()));
+        }
+    }
+
+    /**
+     * Reads an object member name, as it appears between the quotes, keeping at most maxChars
+     * characters of it.
+     */
+    public String readName(int maxChars) throws IOException {
+        // Room for six-character escapes plus the truncation marker, so the sink never overflows
+        Sink sink = new Sink(maxChars * 6 + 32);
+        copyString(sink, maxChars);
+        String quoted = sink.toString();
+        return quoted.substring(1, quoted.length() - 1);
+    }
+
+    /**
+     * Copies the next JSON value to the sink, truncating string values longer than maxStringChars.
+     */
+    public void copyValue(Sink sink, int maxStringChars) throws IOException {
+        int c = peek();
+        if (c == '{') {
+            expect('{');
+            sink.append('{');
+            if (!consumeIf('}')) {
+                do {
+                    copyString(sink, maxStringChars);
+                    expect(':');
+                    sink.append(':');
+                    copyValue(sink, maxStringChars);
+                } while (copySeparator(sink));
+                expect('}');
+            }
+            sink.append('}');
+        } else if (c == '[') {
+            expect('[');
+            sink.append('[');
+            if (!consumeIf(']')) {
+                do {
+                    copyValue(sink, maxStringChars);
+                } while (copySeparator(sink));
+                expect(']');
+            }
+            sink.append(']');
+        } else if (c == '"') {
+            copyString(sink, maxStringChars);
+        } else if (c == -1) {
+            throw new IOException("Malformed JSON: unexpected end of input");
+        } else {
+            copyLiteral(sink);
+        }
+    }
+
+    /**
+     * Consumes the next JSON value without keeping any of it.
+     */
+    public void skipValue() throws IOException {
+        copyValue(new Sink(0), 0);
+    }
+
+    private boolean copySeparator(Sink sink) throws IOException {
+        if (consumeIf(',')) {
+            sink.append(',');
+            return true;
+        }
+        return false;
+    }
+
+    private void copyString(Sink sink, int maxChars) throws IOException {
+        expect('"');
+        sink.append('"');
+        long length = 0;
+        while (true) {
+            int c = reader.read();
+            if (c == -1) {
+                throw new IOException("Malformed JSON: unterminated string");
+            }
+            if (c == '"') {
+                break;
+            }
+            // An escape sequence is one character of the value and is never split
+            boolean keep = ++length <= maxChars;
+            if (keep) {
+                sink.append((char) c);
+            }
+            if (c == '\\') {
+                int escaped = reader.read();
+                if (escaped == -1) {
+                    throw new IOException("Malformed JSON: unterminated string");
+                }
+                int extra = escaped == 'u' ? 4 : 0;
+                if (keep) {
+                    sink.append((char) escaped);
+                }
+                for (int i = 0; i < extra; i++) {
+                    int hex = reader.read();
+                    if (hex == -1) {
+                        throw new IOException("Malformed JSON: unterminated string");
+                    }
+                    if (keep) {
+                        sink.append((char) hex);
+                    }
+                }
+            }
+        }
+        if (length > maxChars) {
+            sink.append("...(+" + (length - maxChars) + " chars)");
+        }
+        sink.append('"');
+    }
+
+    private void copyLiteral(Sink sink) throws IOException {
+        int c = peek();
+        peeked = -2;
+        while (c != -1 && c != ',' && c != '}' && c != ']' && !Character.isWhitespace(c)) {
+            sink.append((char) c);
+            c = reader.read();
+        }
+        // The delimiter that ended the literal still has to be seen by the caller
+        peeked = Character.isWhitespace(c) ? -2 : c;
+    }
+
+    private static String describe(int c) {
+        return c == -1 ? "end of input" : "'" + (char) c + "'";
+    }
+
+    /**
+     * Collects copied JSON text up to a character limit. Past the limit the text is dropped but
+     * still counted, and the sink reports that it overflowed.
+     */
+    public static final class Sink {
+        private final StringBuilder builder = new StringBuilder();
+        private final int limit;
+        private long length;
+
+        public Sink(int limit) {
+            this.limit = limit;
+        }
+
+        public void append(char c) {
+            if (++length <= limit) {
+                builder.append(c);
+            }
+        }
+
+        public void append(CharSequence text) {
+            for (int i = 0; i < text.length(); i++) {
+                append(text.charAt(i));
+            }
+        }
+
+        public boolean overflowed() {
+            return length > limit;
+        }
+
+        public long length() {
+            return length;
+        }
+
+        @Override
+        public String toString() {
+            return builder.toString();
+        }
+    }
+}
@@ -1,7 +1,10 @@
 package com.function;
 
 import com.microsoft.azure.functions.annotation.*;
+import com.function.AdmissionHelpers.AdmissionControl;
+import com.function.ClientHelpers.SharedDurableClients;
 import com.function.JsonHelpers.DurableMetadataGsonProvider;
+import com.function.PayloadHelpers.ClaimCheckedPayload;
 import com.google.gson.Gson;
 import com.microsoft.azure.functions.*;
 
@@ -14,24 +17,33 @@ import com.microsoft.durabletask.azurefunctions.DurableClientInput;
 import com.microsoft.durabletask.azurefunctions.DurableOrchestrationTrigger;
 
 /**
- * LargeOutputOrchestrator Java implementation.
+ * LargeOutputOrchestrator Java implementation. Started with claimCheck=true, the large output is
+ * created by an activity and stored in the claim-check store, so the orchestration's output holds
+ * only a reference to it.
  */
 public class LargeOutputOrchestrator {
 
     @FunctionName("LargeOutputOrchestrator")
-    public List<String> runOrchestrator(
+    public List<Object> runOrchestrator(
             @DurableOrchestrationTrigger(name = "ctx") TaskOrchestrationContext ctx, 
             final ExecutionContext context) {
-        int sizeInKB = ctx.getInput(Integer.class);
+        LargeOutputRun run = ctx.getInput(LargeOutputRun.class);
 
         context.getLogger().info("Saying hello.");
-        List<String> outputs = new ArrayList<>();
+        List<Object> outputs = new ArrayList<>();
 
         outputs.add(ctx.callActivity("LargeOutputSayHello", "Tokyo", String.class).await());
 
+        if (run.isClaimCheck()) {
+            // The activity stores the payload once; history records only the reference it returns
+            outputs.add(ctx.callActivity("LargeOutputClaimCheck", new LargeOutputRun(run.getSizeInKB(), true, ctx.getInstanceId()),
+                    ClaimCheckedPayload.class).await());
+            return outputs;
+        }
+
         // Add a large message to the outputs that exceeds the Azure Storage Queue message size limit (64 KB),
         // so that blobs will be used instead.
-        outputs.add(generateLargeString(sizeInKB));
+        outputs.add(generateLargeString(run.getSizeInKB()));
 
         return outputs;
     }
@@ -43,11 +55,27 @@ public class LargeOutputOrchestrator {
         return "Hello " + name + "!";
     }
 
+    /**
+     * Activity: creates the large output and stores it under a claim check for the run's instance.
+     */
+    @FunctionName("LargeOutputClaimCheck")
+    public ClaimCheckedPayload largeOutputClaimCheck(
+            @DurableActivityTrigger(name = "run") LargeOutputRun run,
+            final ExecutionContext context) {
+        return ClaimCheckedPayload.of(generateLargeString(run.getSizeInKB()), run.getInstanceId());
+    }
+
     @FunctionName("LargeOutputOrchestrator_HttpStart")
     public HttpResponseMessage httpStart(
             @HttpTrigger(name = "req", methods = {HttpMethod.GET, HttpMethod.POST}, authLevel = AuthorizationLevel.ANONYMOUS) HttpRequestMessage<Optional<String>> request,
             @DurableClientInput(name = "durableContext") DurableClientContext durableContext,
             final ExecutionContext context) {
+        DurableTaskClient client = SharedDurableClients.get(durableContext);
+        AdmissionControl.Decision admission = AdmissionControl.shared().tryAdmit(client);
+        if (!admission.isAdmitted()) {
+            return AdmissionControl.reject(request, admission);
+        }
+
         int sizeInKB = 0;
         Gson gson = DurableMetadataGsonProvider.createGson();
         try {
@@ -57,8 +85,8 @@ public class LargeOutputOrchestrator {
             sizeInKB = 0;
         }
 
-        DurableTaskClient client = durableContext.getClient();
-        String instanceId = client.scheduleNewOrchestrationInstance("LargeOutputOrchestrator", sizeInKB);
+        boolean claimCheck = Boolean.parseBoolean(request.getQueryParameters().get("claimCheck"));
+        String instanceId = client.scheduleNewOrchestrationInstance("LargeOutputOrchestrator", new LargeOutputRun(sizeInKB, claimCheck, null));
         context.getLogger().info("Started orchestration with ID = '" + instanceId + "'.");
 
         return durableContext.createCheckStatusResponse(request, instanceId);
@@ -71,7 +99,7 @@ public class LargeOutputOrchestrator {
             @DurableClientInput(name = "durableContext") 
             DurableClientContext durableContext,
             final ExecutionContext context) {
-        DurableTaskClient client = durableContext.getClient();
+        DurableTaskClient client = SharedDurableClients.get(durableContext);
         String instanceId = request.getQueryParameters().get("id");
         OrchestrationMetadata metadata = client.getInstanceMetadata(instanceId, true);
 
@@ -91,9 +119,36 @@ public class LargeOutputOrchestrator {
         return response;
     }
 
-    private static String generateLargeString(int sizeInKB) {
+    static String generateLargeString(int sizeInKB) {
         char[] chars = new char[sizeInKB * 1024];
         Arrays.fill(chars, 'A');
         return new String(chars);
     }
-}
\ No newline at end of file
+}
+
+/**
+ * Input for LargeOutputOrchestrator, and for LargeOutputClaimCheck with the instance the stored
+ * output belongs to.
+ */
+class LargeOutputRun {
+    private int sizeInKB;
+    private boolean claimCheck;
+    private String instanceId;
+
+    public LargeOutputRun() {}
+
+    public LargeOutputRun(int sizeInKB, boolean claimCheck, String instanceId) {
+        this.sizeInKB = sizeInKB;
+        this.claimCheck = claimCheck;
+        this.instanceId = instanceId;
+    }
+
+    public int getSizeInKB() { return sizeInKB; }
+    public void setSizeInKB(int sizeInKB) { this.sizeInKB = sizeInKB; }
+
+    public boolean isClaimCheck() { return claimCheck; }
+    public void setClaimCheck(boolean claimCheck) { this.claimCheck = claimCheck; }
+
+    public String getInstanceId() { return instanceId; }
+    public void setInstanceId(String instanceId) { this.instanceId = instanceId; }
+}
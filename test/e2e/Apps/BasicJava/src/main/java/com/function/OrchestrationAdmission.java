@@ -0,0 +1,195 @@
+package com.function;
+
+import com.microsoft.azure.functions.annotation.*;
+import com.function.AdmissionHelpers.AdmissionControl;
+import com.function.ClientHelpers.SharedDurableClients;
+import com.function.JsonHelpers.DurableMetadataGsonProvider;
+import com.microsoft.azure.functions.*;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.microsoft.durabletask.DurableTaskClient;
+import com.microsoft.durabletask.OrchestrationMetadata;
+import com.microsoft.durabletask.OrchestrationRuntimeStatus;
+import com.microsoft.durabletask.azurefunctions.DurableClientContext;
+import com.microsoft.durabletask.azurefunctions.DurableClientInput;
+
+/**
+ * Statistics and an overload test for the admission control of the orchestration starters.
+ */
+public class OrchestrationAdmission {
+    /**
+     * Returns how many starts the shared admission control has admitted and rejected.
+     */
+    @FunctionName("AdmissionControl_Stats")
+    public HttpResponseMessage stats(
+            @HttpTrigger(name = "req", methods = {HttpMethod.GET}, authLevel = AuthorizationLevel.ANONYMOUS) HttpRequestMessage<Optional<String>> request,
+            final ExecutionContext context) {
+        return request.createResponseBuilder(HttpStatus.OK)
+                .header("Content-Type", "application/json")
+                .body(DurableMetadataGsonProvider.createGson().toJson(AdmissionControl.shared().getStats()))
+                .build();
+    }
+
+    /**
+     * HTTP-triggered load test: offers requestsPerSecond starts of orchestrationName (default
+     * HelloCities) for durationSeconds (default 60), first through admission control with
+     * startsPerSecond (default 20) and maxPending (default 100), then without it. Each phase waits
+     * up to drainTimeoutSeconds (default 300) for its instances and reports, per windowSeconds
+     * (default 10) of start time, the p50/p99 latency from creation to completion. Offer more
+     * starts than the workers can run to see the unlimited backlog, and its latency, grow.
+     */
+    @FunctionName("AdmissionControl_LoadTest")
+    public HttpResponseMessage loadTest(
+            @HttpTrigger(name = "req", methods = {HttpMethod.GET, HttpMethod.POST}, authLevel = AuthorizationLevel.ANONYMOUS) HttpRequestMessage<Optional<String>> request,
+            @DurableClientInput(name = "durableContext") DurableClientContext durableContext,
+            final ExecutionContext context) {
+        Map<String, String> parameters = request.getQueryParameters();
+        try {
+            String orchestrationName = parameters.getOrDefault("orchestrationName", "HelloCities");
+            double requestsPerSecond = Double.parseDouble(parameters.getOrDefault("requestsPerSecond", "100"));
+            long durationMs = Long.parseLong(parameters.getOrDefault("durationSeconds", "60")) * 1000;
+            double startsPerSecond = Double.parseDouble(parameters.getOrDefault("startsPerSecond", "20"));
+            long maxPending = Long.parseLong(parameters.getOrDefault("maxPending", "100"));
+            long windowMs = Long.parseLong(parameters.getOrDefault("windowSeconds", "10")) * 1000;
+            long drainTimeoutMs = Long.parseLong(parameters.getOrDefault("drainTimeoutSeconds", "300")) * 1000;
+
+            DurableTaskClient client = SharedDurableClients.get(durableContext);
+            LoadPhase phase = new LoadPhase(client, orchestrationName, requestsPerSecond, durationMs, windowMs, drainTimeoutMs);
+            AdmissionControl admission = new AdmissionControl(startsPerSecond, 0, maxPending, Duration.ofSeconds(1), 60);
+
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("orchestrationName", orchestrationName);
+            result.put("requestsPerSecond", requestsPerSecond);
+            result.put("durationMs", durationMs);
+            // Admission control runs first, so the backlog the unlimited phase leaves does not affect it
+            result.put("admissionControl", phase.run(admission));
+            result.put("admissionStats", admission.getStats());
+            result.put("unlimited", phase.run(null));
+            return request.createResponseBuilder(HttpStatus.OK)
+                    .header("Content-Type", "application/json")
+                    .body(DurableMetadataGsonProvider.createGson().toJson(result))
+                    .build();
+        } catch (Exception ex) {
+            context.getLogger().severe("Admission control load test failed: " + ex.getMessage());
+            return request.createResponseBuilder(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .header("Content-Type", "text/plain")
+                    .body(ex.getMessage())
+                    .build();
+        }
+    }
+
+    private static class LoadPhase {
+        private static final int SENDER_THREADS = 16;
+
+        private final DurableTaskClient client;
+        private final String orchestrationName;
+        private final double requestsPerSecond;
+        private final long durationMs;
+        private final long windowMs;
+        private final long drainTimeoutMs;
+
+        LoadPhase(DurableTaskClient client, String orchestrationName, double requestsPerSecond,
+                long durationMs, long windowMs, long drainTimeoutMs) {
+            this.client = client;
+            this.orchestrationName = orchestrationName;
+            this.requestsPerSecond = requestsPerSecond;
+            this.durationMs = durationMs;
+            this.windowMs = windowMs;
+            this.drainTimeoutMs = drainTimeoutMs;
+        }
+
+        Map<String, Object> run(AdmissionControl admission) throws InterruptedException {
+            List<String[]> started = Collections.synchronizedList(new ArrayList<>());
+            AtomicLong offered = new AtomicLong();
+            AtomicLong rejected = new AtomicLong();
+            AtomicLong failed = new AtomicLong();
+            ScheduledExecutorService ticker = Executors.newSingleThreadScheduledExecutor();
+            ExecutorService senders = Executors.newFixedThreadPool(SENDER_THREADS);
+            long phaseStart = System.nanoTime();
+
+            ticker.scheduleAtFixedRate(() -> senders.execute(() -> {
+                offered.incrementAndGet();
+                try {
+                    if (admission != null && !admission.tryAdmit(client).isAdmitted()) {
+                        rejected.incrementAndGet();
+                        return;
+                    }
+                    String instanceId = client.scheduleNewOrchestrationInstance(orchestrationName);
+                    long offsetMs = (System.nanoTime() - phaseStart) / 1_000_000;
+                    started.add(new String[] {instanceId, Long.toString(offsetMs)});
+                } catch (RuntimeException e) {
+                    failed.incrementAndGet();
+                }
+            }), 0, Math.max(1, (long) (1_000_000_000L / requestsPerSecond)), TimeUnit.NANOSECONDS);
+            Thread.sleep(durationMs);
+            ticker.shutdownNow();
+            senders.shutdown();
+            senders.awaitTermination(1, TimeUnit.MINUTES);
+
+            // Latency of each instance from its creation to its completion, grouped by when it was started
+            long deadline = System.currentTimeMillis() + drainTimeoutMs;
+            Map<Long, List<Long>> latenciesByWindow = new TreeMap<>();
+            long completed = 0;
+            long unfinished = 0;
+            List<String[]> instances;
+            synchronized (started) {
+                instances = new ArrayList<>(started);
+            }
+            for (String[] instance : instances) {
+                OrchestrationMetadata metadata = waitUntil(instance[0], deadline);
+                long window = Long.parseLong(instance[1]) / windowMs;
+                latenciesByWindow.computeIfAbsent(window, w -> new ArrayList<>());
+                if (metadata != null && metadata.getRuntimeStatus() == OrchestrationRuntimeStatus.COMPLETED) {
+                    completed++;
+                    latenciesByWindow.get(window).add(Duration.between(metadata.getCreatedAt(), metadata.getLastUpdatedAt()).toMillis());
+                } else {
+                    unfinished++;
+                }
+            }
+
+            List<Map<String, Object>> windows = new ArrayList<>();
+            for (Map.Entry<Long, List<Long>> entry : latenciesByWindow.entrySet()) {
+                long[] latencies = entry.getValue().stream().mapToLong(Long::longValue).sorted().toArray();
+                Map<String, Object> window = new LinkedHashMap<>();
+                window.put("startSecond", entry.getKey() * windowMs / 1000);
+                window.put("completed", latencies.length);
+                window.put("p50LatencyMs", percentile(latencies, 0.50));
+                window.put("p99LatencyMs", percentile(latencies, 0.99));
+                windows.add(window);
+            }
+
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("offered", offered.get());
+            result.put("started", instances.size());
+            result.put("rejected", rejected.get());
+            result.put("startFailures", failed.get());
+            result.put("completed", completed);
+            result.put("unfinishedAtDrainTimeout", unfinished);
+            result.put("windows", windows);
+            return result;
+        }
+
+        private OrchestrationMetadata waitUntil(String instanceId, long deadline) throws InterruptedException {
+            long remainingMs = deadline - System.currentTimeMillis();
+            try {
+                if (remainingMs > 0) {
+                    return client.waitForInstanceCompletion(instanceId, Duration.ofMillis(remainingMs), false);
+                }
+                return client.getInstanceMetadata(instanceId, false);
+            } catch (TimeoutException e) {
+                return null;
+            }
+        }
+
+        private static long percentile(long[] sorted, double percentile) {
+            if (sorted.length == 0) {
+                return 0;
+            }
+            return sorted[Math.max(0, (int) Math.ceil(percentile * sorted.length) - 1)];
+        }
+    }
+}
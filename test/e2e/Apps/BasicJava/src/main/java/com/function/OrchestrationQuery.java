@@ -1,9 +1,18 @@
 package com.function;
 
 import com.microsoft.azure.functions.annotation.*;
+import com.function.ClientHelpers.SharedDurableClients;
+import com.function.ConfigHelpers.AppSettings;
 import com.function.JsonHelpers.DurableMetadataGsonProvider;
+import com.function.QueryHelpers.InstanceDelta;
+import com.function.QueryHelpers.InstanceDeltaQuery;
+import com.function.QueryHelpers.InstanceRowSource;
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
 import com.microsoft.azure.functions.*;
 
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
 import java.util.*;
 
 import com.microsoft.durabletask.*;
@@ -20,7 +29,7 @@ public class OrchestrationQuery {
             @HttpTrigger(name = "req", methods = {HttpMethod.GET, HttpMethod.POST}, authLevel = AuthorizationLevel.ANONYMOUS) HttpRequestMessage<Optional<String>> request,
             @DurableClientInput(name = "durableContext") DurableClientContext durableContext,
             final ExecutionContext context) {
-        DurableTaskClient client = durableContext.getClient();
+        DurableTaskClient client = SharedDurableClients.get(durableContext);
         try {
             // Java SDK: getAllInstancesAsync returns a CompletableFuture<List<OrchestrationInstanceStatus>>
             OrchestrationStatusQueryResult instances = client.queryInstances(new OrchestrationStatusQuery());
@@ -46,7 +55,7 @@ public class OrchestrationQuery {
             @HttpTrigger(name = "req", methods = {HttpMethod.GET, HttpMethod.POST}, authLevel = AuthorizationLevel.ANONYMOUS) HttpRequestMessage<Optional<String>> request,
             @DurableClientInput(name = "durableContext") DurableClientContext durableContext,
             final ExecutionContext context) {
-        DurableTaskClient client = durableContext.getClient();
+        DurableTaskClient client = SharedDurableClients.get(durableContext);
         try {
             List<OrchestrationRuntimeStatus> statuses = Arrays.asList(
                     OrchestrationRuntimeStatus.RUNNING,
@@ -69,4 +78,91 @@ public class OrchestrationQuery {
                     .build();
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * HTTP-triggered function that returns only the instances updated since a watermark, for dashboards
+     * that refresh often. A delta query is a POST with a JSON body holding an ISO-8601 "watermark" and
+     * "activeInstanceIds", the instances the caller last saw as active, which lets the query also find
+     * older instances that have since finished or been purged. Without a watermark, by GET or POST, every
+     * instance is returned. GET cannot carry activeInstanceIds, so it rejects a watermark rather than
+     * silently missing those completions. The response holds the changed rows, the removed IDs and the
+     * watermark for the next call.
+     */
+    @FunctionName("GetInstanceChanges")
+    public HttpResponseMessage getInstanceChanges(
+            @HttpTrigger(name = "req", methods = {HttpMethod.GET, HttpMethod.POST}, authLevel = AuthorizationLevel.ANONYMOUS) HttpRequestMessage<Optional<String>> request,
+            @DurableClientInput(name = "durableContext") DurableClientContext durableContext,
+            final ExecutionContext context) {
+        Gson gson = DurableMetadataGsonProvider.createGson();
+        if (request.getHttpMethod() == HttpMethod.GET && request.getQueryParameters().containsKey("watermark")) {
+            return request.createResponseBuilder(HttpStatus.BAD_REQUEST)
+                    .body("Delta queries need a POST with \"watermark\" and \"activeInstanceIds\" in the body.")
+                    .build();
+        }
+        InstanceChangesRequest changesRequest;
+        try {
+            changesRequest = request.getBody()
+                    .filter(body -> !body.trim().isEmpty())
+                    .map(body -> gson.fromJson(body, InstanceChangesRequest.class))
+                    .orElseGet(InstanceChangesRequest::new);
+        } catch (JsonParseException e) {
+            return request.createResponseBuilder(HttpStatus.BAD_REQUEST)
+                    .body("Invalid request body: " + e.getMessage())
+                    .build();
+        }
+        String watermarkText = changesRequest.getWatermark();
+
+        Instant watermark;
+        try {
+            watermark = watermarkText == null || watermarkText.isEmpty() ? null : Instant.parse(watermarkText);
+        } catch (DateTimeParseException e) {
+            return request.createResponseBuilder(HttpStatus.BAD_REQUEST)
+                    .body("Invalid watermark: " + e.getMessage())
+                    .build();
+        }
+
+        try {
+            InstanceRowSource source = InstanceRowSource.fromClient(
+                    SharedDurableClients.get(durableContext), AppSettings.getInt("InstanceChanges_PageSize", 1000));
+            List<String> activeInstanceIds = changesRequest.getActiveInstanceIds() != null
+                    ? changesRequest.getActiveInstanceIds()
+                    : Collections.emptyList();
+            InstanceDelta delta = InstanceDeltaQuery.query(source, watermark, activeInstanceIds);
+            context.getLogger().info("Instance changes since " + watermark + ": " + delta.getChanged().size()
+                    + " changed, " + delta.getRemovedInstanceIds().size() + " removed, " + delta.getRowsRead() + " rows read.");
+            return request.createResponseBuilder(HttpStatus.OK)
+                    .header("Content-Type", "application/json")
+                    .body(gson.toJson(delta))
+                    .build();
+        } catch (Exception ex) {
+            context.getLogger().severe("Error querying instance changes: " + ex.getMessage());
+            return request.createResponseBuilder(HttpStatus.BAD_REQUEST)
+                    .header("Content-Type", "text/plain")
+                    .body(ex.getMessage())
+                    .build();
+        }
+    }
+}
+
+class InstanceChangesRequest {
+    private String watermark;
+    private List<String> activeInstanceIds;
+
+    public InstanceChangesRequest() {}
+
+    public String getWatermark() {
+        return watermark;
+    }
+
+    public void setWatermark(String watermark) {
+        this.watermark = watermark;
+    }
+
+    public List<String> getActiveInstanceIds() {
+        return activeInstanceIds;
+    }
+
+    public void setActiveInstanceIds(List<String> activeInstanceIds) {
+        this.activeInstanceIds = activeInstanceIds;
+    }
+}
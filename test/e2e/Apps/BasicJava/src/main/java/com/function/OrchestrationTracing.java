@@ -0,0 +1,65 @@
+package com.function;
+
+import com.microsoft.azure.functions.annotation.*;
+import com.function.JsonHelpers.DurableMetadataGsonProvider;
+import com.function.TracingHelpers.RecentSpanExporter;
+import com.function.TracingHelpers.Tracing;
+import com.microsoft.azure.functions.*;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+
+import io.opentelemetry.sdk.trace.data.SpanData;
+
+/**
+ * Reads the spans kept by the in-memory exporter, the local collector stand-in used when
+ * Tracing_Exporter is memory.
+ */
+public class OrchestrationTracing {
+    /**
+     * Returns the retained spans, oldest first, optionally only those of the traceId query
+     * parameter. DELETE also discards them.
+     */
+    @FunctionName("Tracing_RecentSpans")
+    public HttpResponseMessage recentSpans(
+            @HttpTrigger(name = "req", methods = {HttpMethod.GET, HttpMethod.DELETE}, authLevel = AuthorizationLevel.ANONYMOUS) HttpRequestMessage<Optional<String>> request,
+            final ExecutionContext context) {
+        Tracing tracing = Tracing.shared();
+        RecentSpanExporter recentSpans = tracing.getRecentSpans();
+        if (recentSpans == null) {
+            return request.createResponseBuilder(HttpStatus.NOT_FOUND)
+                    .header("Content-Type", "text/plain")
+                    .body("Spans are not kept in memory; set Tracing_Enabled to true and Tracing_Exporter to memory.")
+                    .build();
+        }
+        tracing.flush(Duration.ofSeconds(5));
+        String traceId = request.getQueryParameters().get("traceId");
+        List<Map<String, Object>> spans = new ArrayList<>();
+        for (SpanData span : recentSpans.getSpans()) {
+            if (traceId != null && !traceId.equals(span.getTraceId())) {
+                continue;
+            }
+            Map<String, Object> json = new LinkedHashMap<>();
+            json.put("traceId", span.getTraceId());
+            json.put("spanId", span.getSpanId());
+            json.put("parentSpanId", span.getParentSpanContext().isValid() ? span.getParentSpanId() : null);
+            json.put("name", span.getName());
+            json.put("kind", span.getKind().name());
+            json.put("startTime", Instant.EPOCH.plusNanos(span.getStartEpochNanos()).toString());
+            json.put("durationMs", (span.getEndEpochNanos() - span.getStartEpochNanos()) / 1_000_000.0);
+            json.put("status", span.getStatus().getStatusCode().name());
+            Map<String, Object> attributes = new TreeMap<>();
+            span.getAttributes().forEach((key, value) -> attributes.put(key.getKey(), value));
+            json.put("attributes", attributes);
+            spans.add(json);
+        }
+        if (request.getHttpMethod() == HttpMethod.DELETE) {
+            recentSpans.clear();
+        }
+        return request.createResponseBuilder(HttpStatus.OK)
+                .header("Content-Type", "application/json")
+                .body(DurableMetadataGsonProvider.createGson().toJson(spans))
+                .build();
+    }
+}
@@ -0,0 +1,110 @@
+package com.function.PayloadHelpers;
+
+import com.function.ConfigHelpers.AppSettings;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.logging.Logger;
+
+import com.microsoft.durabletask.DurableTaskClient;
+
+/**
+ * The process-wide claim-check settings and payload store.
+ *
+ * Payloads whose JSON is larger than ClaimCheck_ThresholdBytes (default 32768) are stored in the
+ * ClaimCheck_Store: "file" keeps them under ClaimCheck_Directory, "memory" keeps them in the worker
+ * process for tests. The directory has to be shared by every worker of the app, for example an Azure
+ * Files mount, so there is no default: "file" without ClaimCheck_Directory fails, and without either
+ * setting the store is "memory" and a warning is logged. A payload stored by another worker is then
+ * not found, rather than read from a stale local copy.
+ */
+public final class ClaimCheck {
+    public static final int THRESHOLD_BYTES = AppSettings.getInt("ClaimCheck_ThresholdBytes", 32 * 1024);
+    public static final int RELEASE_CHECKS_PER_PURGE = AppSettings.getInt("ClaimCheck_ReleaseChecksPerPurge", 500);
+
+    private static final Logger logger = Logger.getLogger(ClaimCheck.class.getName());
+
+    private static volatile PayloadStore store;
+    // The last instance checked by releasePurgedInstances; the next call continues after it
+    private static String releaseCursor = "";
+
+    private ClaimCheck() {}
+
+    public static PayloadStore store() {
+        PayloadStore current = store;
+        if (current == null) {
+            synchronized (ClaimCheck.class) {
+                current = store;
+                if (current == null) {
+                    current = createStore();
+                    store = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Releases the payload references of instances that no longer exist, deleting payloads that nothing
+     * refers to anymore. Called after purging history.
+     *
+     * Each referencing instance costs one metadata read, so one call checks at most
+     * ClaimCheck_ReleaseChecksPerPurge (default 500) instances, in instance ID order, and the next call
+     * continues where it stopped. Payloads of a large purge are therefore released over several purges.
+     *
+     * @return the number of payloads deleted
+     */
+    public static synchronized int releasePurgedInstances(DurableTaskClient client) throws IOException {
+        PayloadStore payloadStore = store();
+        TreeSet<String> instanceIds = new TreeSet<>(payloadStore.getReferencingInstanceIds());
+        if (instanceIds.isEmpty()) {
+            return 0;
+        }
+        // The instances after the cursor, then from the start up to it
+        List<String> batch = new ArrayList<>(Math.min(instanceIds.size(), RELEASE_CHECKS_PER_PURGE));
+        for (String instanceId : instanceIds.tailSet(releaseCursor, false)) {
+            if (batch.size() == RELEASE_CHECKS_PER_PURGE) {
+                break;
+            }
+            batch.add(instanceId);
+        }
+        for (String instanceId : instanceIds.headSet(releaseCursor, true)) {
+            if (batch.size() == RELEASE_CHECKS_PER_PURGE) {
+                break;
+            }
+            batch.add(instanceId);
+        }
+
+        int deleted = 0;
+        for (String instanceId : batch) {
+            if (!client.getInstanceMetadata(instanceId, false).isInstanceFound()) {
+                deleted += payloadStore.releaseReferences(instanceId);
+            }
+            releaseCursor = instanceId;
+        }
+        return deleted;
+    }
+
+    private static PayloadStore createStore() {
+        String directory = AppSettings.getString("ClaimCheck_Directory", null);
+        String storeType = AppSettings.getString("ClaimCheck_Store", directory != null ? "file" : "memory");
+        if ("memory".equalsIgnoreCase(storeType)) {
+            if (directory == null) {
+                logger.warning("ClaimCheck_Directory is not set; claim-checked payloads are kept in this worker's memory "
+                        + "and cannot be read by other workers.");
+            }
+            return new InMemoryPayloadStore();
+        }
+        if (directory == null) {
+            throw new IllegalStateException("ClaimCheck_Store is \"file\" but ClaimCheck_Directory is not set; "
+                    + "set it to a directory shared by every worker.");
+        }
+        try {
+            return new FileSystemPayloadStore(Paths.get(directory));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not open the claim-check directory " + directory, e);
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.function.PayloadHelpers;
+
+import com.function.JsonHelpers.DurableMetadataGsonProvider;
+import com.google.gson.Gson;
+
+import java.io.*;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A value passed to or returned from an activity or orchestration either inline or, when its JSON is
+ * above the claim-check threshold, as the hash of a payload in the {@link PayloadStore}. Only this
+ * small object goes into history and queue messages; the receiver reads the payload when it calls
+ * {@link #read}.
+ *
+ * {@link #of} serializes, hashes and writes the payload, so call it from activities or client code,
+ * where it runs once and history records the result. Orchestrator code would repeat it on every replay,
+ * and a store error there would fail the orchestration without anything in history to replay it from;
+ * orchestrator code passes on references it received, or uses {@link #inline} for its own values.
+ */
+public class ClaimCheckedPayload {
+    private static final Gson gson = DurableMetadataGsonProvider.createGson();
+
+    private String json;
+    private String claimCheck;
+    private long size;
+
+    public ClaimCheckedPayload() {}
+
+    /**
+     * Wraps a value, storing it under a claim check if its JSON is larger than the threshold.
+     *
+     * @param instanceId the orchestration instance the stored payload is kept for
+     */
+    public static ClaimCheckedPayload of(Object value, String instanceId) {
+        return of(value, instanceId, ClaimCheck.store(), ClaimCheck.THRESHOLD_BYTES);
+    }
+
+    /**
+     * Wraps a value inline whatever its size, without touching the store.
+     */
+    public static ClaimCheckedPayload inline(Object value) {
+        ClaimCheckedPayload payload = new ClaimCheckedPayload();
+        payload.json = gson.toJson(value);
+        payload.size = payload.json.getBytes(StandardCharsets.UTF_8).length;
+        return payload;
+    }
+
+    public static ClaimCheckedPayload of(Object value, String instanceId, PayloadStore store, int thresholdBytes) {
+        String valueJson = gson.toJson(value);
+        byte[] bytes = valueJson.getBytes(StandardCharsets.UTF_8);
+        ClaimCheckedPayload payload = new ClaimCheckedPayload();
+        payload.size = bytes.length;
+        if (bytes.length <= thresholdBytes) {
+            payload.json = valueJson;
+            return payload;
+        }
+        try {
+            payload.claimCheck = store.put(bytes, instanceId);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not store claim-checked payload", e);
+        }
+        return payload;
+    }
+
+    public <T> T read(Class<T> type) {
+        return read((Type) type);
+    }
+
+    public <T> T read(Type type) {
+        return read(type, ClaimCheck.store());
+    }
+
+    public <T> T read(Type type, PayloadStore store) {
+        if (claimCheck == null) {
+            return gson.fromJson(json, type);
+        }
+        try (Reader reader = new BufferedReader(new InputStreamReader(store.open(claimCheck), StandardCharsets.UTF_8))) {
+            return gson.fromJson(reader, type);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read claim-checked payload " + claimCheck, e);
+        }
+    }
+
+    public boolean hasClaimCheck() {
+        return claimCheck != null;
+    }
+
+    public String getJson() {
+        return json;
+    }
+
+    public void setJson(String json) {
+        this.json = json;
+    }
+
+    public String getClaimCheck() {
+        return claimCheck;
+    }
+
+    public void setClaimCheck(String claimCheck) {
+        this.claimCheck = claimCheck;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public void setSize(long size) {
+        this.size = size;
+    }
+}
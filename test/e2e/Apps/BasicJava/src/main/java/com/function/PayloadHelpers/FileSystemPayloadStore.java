@@ -0,0 +1,166 @@
+package com.function.PayloadHelpers;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Stores payloads as files under a root directory:
+ * <pre>
+ *   payloads/&lt;hash&gt;                  the payload bytes
+ *   refs/&lt;hash&gt;/&lt;instance&gt;           one marker per instance referring to the payload
+ *   instances/&lt;instance&gt;/&lt;hash&gt;      the same references, indexed by instance for release
+ * </pre>
+ * Instance IDs are URL-safe Base64 encoded to keep them valid file names. Reference changes for a
+ * hash are serialized within this process; workers on other machines sharing the directory (for
+ * example an Azure Files mount) can race a release against a put of the same payload.
+ */
+public final class FileSystemPayloadStore implements PayloadStore {
+    private final Path payloads;
+    private final Path refs;
+    private final Path instances;
+    private final Object[] locks = new Object[64];
+    private final AtomicLong deduplicatedPuts = new AtomicLong();
+
+    public FileSystemPayloadStore(Path root) throws IOException {
+        this.payloads = Files.createDirectories(root.resolve("payloads"));
+        this.refs = Files.createDirectories(root.resolve("refs"));
+        this.instances = Files.createDirectories(root.resolve("instances"));
+        for (int i = 0; i < locks.length; i++) {
+            locks[i] = new Object();
+        }
+    }
+
+    @Override
+    public String put(byte[] payload, String instanceId) throws IOException {
+        String hash = PayloadHashes.sha256(payload);
+        String instance = encode(instanceId);
+        synchronized (lockFor(hash)) {
+            // References first, so a concurrent release never sees the payload unreferenced
+            touch(refs.resolve(hash).resolve(instance));
+            touch(instances.resolve(instance).resolve(hash));
+
+            Path target = payloads.resolve(hash);
+            if (Files.exists(target)) {
+                deduplicatedPuts.incrementAndGet();
+                return hash;
+            }
+            Path temp = Files.createTempFile(payloads, hash, ".tmp");
+            try {
+                Files.write(temp, payload);
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+            } catch (FileAlreadyExistsException e) {
+                // Another worker stored the same bytes first
+                deduplicatedPuts.incrementAndGet();
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        }
+        return hash;
+    }
+
+    @Override
+    public InputStream open(String hash) throws IOException {
+        try {
+            return Files.newInputStream(payloads.resolve(PayloadHashes.requireHash(hash)));
+        } catch (NoSuchFileException e) {
+            throw new java.io.FileNotFoundException("No payload stored under claim check " + hash);
+        }
+    }
+
+    @Override
+    public Set<String> getReferencingInstanceIds() throws IOException {
+        Set<String> ids = new HashSet<>();
+        try (Stream<Path> entries = Files.list(instances)) {
+            entries.forEach(entry -> ids.add(decode(entry.getFileName().toString())));
+        }
+        return ids;
+    }
+
+    @Override
+    public int releaseReferences(String instanceId) throws IOException {
+        String instance = encode(instanceId);
+        Path instanceDir = instances.resolve(instance);
+        if (!Files.isDirectory(instanceDir)) {
+            return 0;
+        }
+        List<Path> hashes;
+        try (Stream<Path> entries = Files.list(instanceDir)) {
+            hashes = entries.toList();
+        }
+        int deleted = 0;
+        for (Path marker : hashes) {
+            String hash = marker.getFileName().toString();
+            synchronized (lockFor(hash)) {
+                Path refDir = refs.resolve(hash);
+                Files.deleteIfExists(refDir.resolve(instance));
+                boolean unreferenced;
+                try (Stream<Path> remaining = Files.list(refDir)) {
+                    unreferenced = !remaining.findAny().isPresent();
+                } catch (NoSuchFileException e) {
+                    unreferenced = true;
+                }
+                if (unreferenced) {
+                    Files.deleteIfExists(refDir);
+                    if (Files.deleteIfExists(payloads.resolve(hash))) {
+                        deleted++;
+                    }
+                }
+                Files.deleteIfExists(marker);
+            }
+        }
+        Files.deleteIfExists(instanceDir);
+        return deleted;
+    }
+
+    @Override
+    public long getPayloadCount() throws IOException {
+        try (Stream<Path> entries = Files.list(payloads)) {
+            return entries.filter(path -> !path.toString().endsWith(".tmp")).count();
+        }
+    }
+
+    @Override
+    public long getStoredBytes() throws IOException {
+        try (Stream<Path> entries = Files.list(payloads)) {
+            return entries.filter(path -> !path.toString().endsWith(".tmp")).mapToLong(path -> {
+                try {
+                    return Files.size(path);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }).sum();
+        }
+    }
+
+    @Override
+    public long getDeduplicatedPuts() {
+        return deduplicatedPuts.get();
+    }
+
+    private Object lockFor(String hash) {
+        return locks[Math.floorMod(hash.hashCode(), locks.length)];
+    }
+
+    private static void touch(Path path) throws IOException {
+        Files.createDirectories(path.getParent());
+        try {
+            Files.createFile(path);
+        } catch (FileAlreadyExistsException e) {
+            // Already referenced
+        }
+    }
+
+    private static String encode(String instanceId) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(instanceId.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String decode(String fileName) {
+        return new String(Base64.getUrlDecoder().decode(fileName), StandardCharsets.UTF_8);
+    }
+}
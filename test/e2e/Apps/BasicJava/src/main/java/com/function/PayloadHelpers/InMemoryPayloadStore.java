@@ -0,0 +1,80 @@
+package com.function.PayloadHelpers;
+
+import java.io.ByteArrayInputStream;
+import java.io.FileNotFoundException;
+import java.io.InputStream;
+import java.util.*;
+
+/**
+ * Keeps payloads in process memory. For tests and benchmarks; the payloads are lost when the worker
+ * restarts and are not visible to other workers.
+ */
+public final class InMemoryPayloadStore implements PayloadStore {
+    private final Map<String, byte[]> payloads = new HashMap<>();
+    private final Map<String, Set<String>> instancesByHash = new HashMap<>();
+    private final Map<String, Set<String>> hashesByInstance = new HashMap<>();
+    private long deduplicatedPuts;
+
+    @Override
+    public synchronized String put(byte[] payload, String instanceId) {
+        String hash = PayloadHashes.sha256(payload);
+        instancesByHash.computeIfAbsent(hash, key -> new HashSet<>()).add(instanceId);
+        hashesByInstance.computeIfAbsent(instanceId, key -> new HashSet<>()).add(hash);
+        if (payloads.putIfAbsent(hash, payload.clone()) != null) {
+            deduplicatedPuts++;
+        }
+        return hash;
+    }
+
+    @Override
+    public synchronized InputStream open(String hash) throws FileNotFoundException {
+        byte[] payload = payloads.get(hash);
+        if (payload == null) {
+            throw new FileNotFoundException("No payload stored under claim check " + hash);
+        }
+        return new ByteArrayInputStream(payload);
+    }
+
+    @Override
+    public synchronized Set<String> getReferencingInstanceIds() {
+        return new HashSet<>(hashesByInstance.keySet());
+    }
+
+    @Override
+    public synchronized int releaseReferences(String instanceId) {
+        Set<String> hashes = hashesByInstance.remove(instanceId);
+        if (hashes == null) {
+            return 0;
+        }
+        int deleted = 0;
+        for (String hash : hashes) {
+            Set<String> referencing = instancesByHash.get(hash);
+            referencing.remove(instanceId);
+            if (referencing.isEmpty()) {
+                instancesByHash.remove(hash);
+                payloads.remove(hash);
+                deleted++;
+            }
+        }
+        return deleted;
+    }
+
+    @Override
+    public synchronized long getPayloadCount() {
+        return payloads.size();
+    }
+
+    @Override
+    public synchronized long getStoredBytes() {
+        long bytes = 0;
+        for (byte[] payload : payloads.values()) {
+            bytes += payload.length;
+        }
+        return bytes;
+    }
+
+    @Override
+    public synchronized long getDeduplicatedPuts() {
+        return deduplicatedPuts;
+    }
+}
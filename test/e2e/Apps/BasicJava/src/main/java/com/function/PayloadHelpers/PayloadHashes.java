@@ -0,0 +1,30 @@
+package com.function.PayloadHelpers;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.regex.Pattern;
+
+final class PayloadHashes {
+    private static final Pattern SHA256_HEX = Pattern.compile("[0-9a-f]{64}");
+
+    private PayloadHashes() {}
+
+    static String sha256(byte[] payload) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(payload));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * Rejects anything but a hash, since hashes from history become file names.
+     */
+    static String requireHash(String hash) {
+        if (hash == null || !SHA256_HEX.matcher(hash).matches()) {
+            throw new IllegalArgumentException("Not a claim check: " + hash);
+        }
+        return hash;
+    }
+}
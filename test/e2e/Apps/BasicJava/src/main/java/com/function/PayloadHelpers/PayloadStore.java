@@ -0,0 +1,48 @@
+package com.function.PayloadHelpers;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Set;
+
+/**
+ * A content-addressed store for claim-checked payloads. Payloads are keyed by the SHA-256 hash of
+ * their bytes, so storing the same payload twice keeps one copy, and each payload remembers which
+ * orchestration instances refer to it so it can be deleted once they have all been purged.
+ */
+public interface PayloadStore {
+    /**
+     * Stores the payload unless a payload with the same hash is already stored, and records that
+     * instanceId refers to it.
+     *
+     * @return the payload's hash
+     */
+    String put(byte[] payload, String instanceId) throws IOException;
+
+    /**
+     * Opens a stored payload for reading.
+     *
+     * @throws java.io.FileNotFoundException if no payload is stored under the hash
+     */
+    InputStream open(String hash) throws IOException;
+
+    /**
+     * Returns the instances that refer to at least one stored payload.
+     */
+    Set<String> getReferencingInstanceIds() throws IOException;
+
+    /**
+     * Drops every reference held by the instance and deletes the payloads nothing refers to anymore.
+     *
+     * @return the number of payloads deleted
+     */
+    int releaseReferences(String instanceId) throws IOException;
+
+    long getPayloadCount() throws IOException;
+
+    long getStoredBytes() throws IOException;
+
+    /**
+     * The number of puts that found their payload already stored.
+     */
+    long getDeduplicatedPuts();
+}
@@ -1,6 +1,8 @@
 package com.function;
 
 import com.microsoft.azure.functions.annotation.*;
+import com.function.ClientHelpers.SharedDurableClients;
+import com.function.PayloadHelpers.ClaimCheck;
 import com.microsoft.azure.functions.*;
 
 import java.time.Instant;
@@ -28,7 +30,7 @@ public class PurgeOrchestrationHistory {
         Logger logger = context.getLogger();
         logger.info("Starting purge all instance history");
 
-        DurableTaskClient client = durableContext.getClient();
+        DurableTaskClient client = SharedDurableClients.get(durableContext);
 
         // Parse optional query parameters for purgeStartTime and purgeEndTime
         String purgeStartTimeStr = request.getQueryParameters().get("purgeStartTime");
@@ -64,6 +66,14 @@ public class PurgeOrchestrationHistory {
 
             logger.info("Finished purge all instance history");
 
+            // Claim-checked payloads of the purged instances go with them
+            try {
+                int deletedPayloads = ClaimCheck.releasePurgedInstances(client);
+                logger.info("Deleted " + deletedPayloads + " claim-checked payloads no longer referenced");
+            } catch (Exception e) {
+                logger.severe("Failed to clean up claim-checked payloads: " + e.getMessage());
+            }
+
             return request.createResponseBuilder(HttpStatus.OK)
                 .header("Content-Type", "text/plain")
                 .body("Purged " + purgeResult.getDeletedInstanceCount() + " records")
@@ -0,0 +1,61 @@
+package com.function.QueryHelpers;
+
+import java.time.Instant;
+import java.util.*;
+import java.util.function.Consumer;
+
+import com.microsoft.durabletask.*;
+
+/**
+ * Reads instance rows through paged queryInstances calls, without inputs and outputs.
+ */
+final class ClientInstanceRowSource implements InstanceRowSource {
+    private static final List<OrchestrationRuntimeStatus> ACTIVE_STATUSES = Arrays.asList(
+            OrchestrationRuntimeStatus.PENDING,
+            OrchestrationRuntimeStatus.RUNNING,
+            OrchestrationRuntimeStatus.SUSPENDED,
+            OrchestrationRuntimeStatus.CONTINUED_AS_NEW);
+
+    private final DurableTaskClient client;
+    private final int pageSize;
+
+    ClientInstanceRowSource(DurableTaskClient client, int pageSize) {
+        this.client = client;
+        this.pageSize = pageSize;
+    }
+
+    @Override
+    public void forEachInstance(Consumer<InstanceRow> action) {
+        forEach(new OrchestrationStatusQuery(), action);
+    }
+
+    @Override
+    public void forEachCreatedSince(Instant from, Consumer<InstanceRow> action) {
+        forEach(new OrchestrationStatusQuery().setCreatedTimeFrom(from), action);
+    }
+
+    @Override
+    public void forEachActiveCreatedBefore(Instant createdBefore, Consumer<InstanceRow> action) {
+        forEach(new OrchestrationStatusQuery()
+                .setRuntimeStatusList(ACTIVE_STATUSES)
+                .setCreatedTimeTo(createdBefore), action);
+    }
+
+    @Override
+    public InstanceRow get(String instanceId) {
+        OrchestrationMetadata metadata = client.getInstanceMetadata(instanceId, false);
+        return metadata.isInstanceFound() ? InstanceRow.from(metadata) : null;
+    }
+
+    private void forEach(OrchestrationStatusQuery query, Consumer<InstanceRow> action) {
+        query.setMaxInstanceCount(pageSize).setFetchInputsAndOutputs(false);
+        String continuationToken = null;
+        do {
+            OrchestrationStatusQueryResult result = client.queryInstances(query.setContinuationToken(continuationToken));
+            for (OrchestrationMetadata metadata : result.getOrchestrationState()) {
+                action.accept(InstanceRow.from(metadata));
+            }
+            continuationToken = result.getContinuationToken();
+        } while (continuationToken != null && !continuationToken.isEmpty());
+    }
+}
@@ -0,0 +1,50 @@
+package com.function.QueryHelpers;
+
+import java.time.Instant;
+import java.util.*;
+
+/**
+ * The result of a delta query: the instances that changed since the caller's watermark, the
+ * instances that no longer exist, and the watermark to pass to the next query.
+ */
+public final class InstanceDelta {
+    private final List<InstanceRow> changed;
+    private final List<String> removedInstanceIds;
+    private final Instant watermark;
+    private final boolean fullScan;
+    private final long rowsRead;
+
+    public InstanceDelta(List<InstanceRow> changed, List<String> removedInstanceIds, Instant watermark, boolean fullScan, long rowsRead) {
+        this.changed = changed;
+        this.removedInstanceIds = removedInstanceIds;
+        this.watermark = watermark;
+        this.fullScan = fullScan;
+        this.rowsRead = rowsRead;
+    }
+
+    public List<InstanceRow> getChanged() {
+        return changed;
+    }
+
+    public List<String> getRemovedInstanceIds() {
+        return removedInstanceIds;
+    }
+
+    public Instant getWatermark() {
+        return watermark;
+    }
+
+    /**
+     * Whether this delta holds every instance, so anything a view holds beyond it is gone.
+     */
+    public boolean isFullScan() {
+        return fullScan;
+    }
+
+    /**
+     * The number of instance rows read from the store to build this delta.
+     */
+    public long getRowsRead() {
+        return rowsRead;
+    }
+}
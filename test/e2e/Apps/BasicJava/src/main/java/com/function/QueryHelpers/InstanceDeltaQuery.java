@@ -0,0 +1,80 @@
+package com.function.QueryHelpers;
+
+import com.function.ConfigHelpers.AppSettings;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+
+/**
+ * Finds the instances whose last-updated time is at or after a watermark.
+ *
+ * Instance queries can filter on created time and runtime status but not on last-updated time, so
+ * the delta is assembled from the three reads that can contain a change:
+ * <ul>
+ *   <li>instances created since the watermark, in any status;</li>
+ *   <li>instances created before it that are still pending, running or suspended;</li>
+ *   <li>point reads of the instances the caller last saw as active but that are no longer active,
+ *       which finds the ones that finished or were purged.</li>
+ * </ul>
+ * An instance that was already finished at the watermark only changes again when it is rewound or
+ * restarted with the same ID; callers that care resynchronize with a full scan (a null watermark) now
+ * and then. The returned watermark trails the query start by InstanceChanges_ClockSkewSeconds
+ * (default 5), so updates committed while the query ran are read again next time rather than missed.
+ */
+public final class InstanceDeltaQuery {
+    public static final Duration CLOCK_SKEW = Duration.ofSeconds(AppSettings.getLong("InstanceChanges_ClockSkewSeconds", 5));
+
+    private InstanceDeltaQuery() {}
+
+    public static InstanceDelta query(InstanceRowSource source, Instant watermark, Collection<String> knownActiveIds) {
+        return query(source, watermark, knownActiveIds, Instant.now());
+    }
+
+    /**
+     * @param watermark the watermark returned by the previous query, or null for a full scan
+     * @param knownActiveIds the instances the caller last saw as active
+     * @param now the time the query starts
+     */
+    public static InstanceDelta query(InstanceRowSource source, Instant watermark, Collection<String> knownActiveIds, Instant now) {
+        Instant nextWatermark = now.minus(CLOCK_SKEW);
+        long[] rowsRead = new long[1];
+        Map<String, InstanceRow> changed = new LinkedHashMap<>();
+
+        if (watermark == null) {
+            source.forEachInstance(row -> {
+                rowsRead[0]++;
+                changed.put(row.getInstanceId(), row);
+            });
+            return new InstanceDelta(new ArrayList<>(changed.values()), Collections.emptyList(), nextWatermark, true, rowsRead[0]);
+        }
+
+        source.forEachCreatedSince(watermark, row -> {
+            rowsRead[0]++;
+            changed.put(row.getInstanceId(), row);
+        });
+        Set<String> stillActive = new HashSet<>();
+        source.forEachActiveCreatedBefore(watermark, row -> {
+            rowsRead[0]++;
+            stillActive.add(row.getInstanceId());
+            if (!row.getLastUpdatedAt().isBefore(watermark)) {
+                changed.put(row.getInstanceId(), row);
+            }
+        });
+
+        List<String> removed = new ArrayList<>();
+        for (String instanceId : knownActiveIds) {
+            if (changed.containsKey(instanceId) || stillActive.contains(instanceId)) {
+                continue;
+            }
+            InstanceRow row = source.get(instanceId);
+            rowsRead[0]++;
+            if (row == null) {
+                removed.add(instanceId);
+            } else if (!row.getLastUpdatedAt().isBefore(watermark)) {
+                changed.put(instanceId, row);
+            }
+        }
+        return new InstanceDelta(new ArrayList<>(changed.values()), removed, nextWatermark, false, rowsRead[0]);
+    }
+}
@@ -0,0 +1,65 @@
+package com.function.QueryHelpers;
+
+import java.time.Instant;
+
+import com.microsoft.durabletask.OrchestrationMetadata;
+import com.microsoft.durabletask.OrchestrationRuntimeStatus;
+
+/**
+ * The status fields of one orchestration instance, without inputs and outputs, as kept by
+ * {@link InstanceStatusView}.
+ */
+public final class InstanceRow {
+    private final String instanceId;
+    private final String name;
+    private final OrchestrationRuntimeStatus runtimeStatus;
+    private final Instant createdAt;
+    private final Instant lastUpdatedAt;
+
+    public InstanceRow(String instanceId, String name, OrchestrationRuntimeStatus runtimeStatus, Instant createdAt, Instant lastUpdatedAt) {
+        this.instanceId = instanceId;
+        this.name = name;
+        this.runtimeStatus = runtimeStatus;
+        this.createdAt = createdAt;
+        this.lastUpdatedAt = lastUpdatedAt;
+    }
+
+    public static InstanceRow from(OrchestrationMetadata metadata) {
+        return new InstanceRow(metadata.getInstanceId(), metadata.getName(), metadata.getRuntimeStatus(),
+                metadata.getCreatedAt(), metadata.getLastUpdatedAt());
+    }
+
+    public String getInstanceId() {
+        return instanceId;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public OrchestrationRuntimeStatus getRuntimeStatus() {
+        return runtimeStatus;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public Instant getLastUpdatedAt() {
+        return lastUpdatedAt;
+    }
+
+    /**
+     * Whether the instance can still change on its own, so a delta query has to keep checking it.
+     */
+    public boolean isActive() {
+        return isActive(runtimeStatus);
+    }
+
+    static boolean isActive(OrchestrationRuntimeStatus status) {
+        return status == OrchestrationRuntimeStatus.RUNNING
+                || status == OrchestrationRuntimeStatus.PENDING
+                || status == OrchestrationRuntimeStatus.SUSPENDED
+                || status == OrchestrationRuntimeStatus.CONTINUED_AS_NEW;
+    }
+}
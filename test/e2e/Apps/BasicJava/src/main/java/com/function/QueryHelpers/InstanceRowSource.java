@@ -0,0 +1,36 @@
+package com.function.QueryHelpers;
+
+import java.time.Instant;
+import java.util.function.Consumer;
+
+import com.microsoft.durabletask.DurableTaskClient;
+
+/**
+ * The instance store reads a delta query is made of. Backed by a {@link DurableTaskClient} in the
+ * app, and by a simulated instance store in the benchmark.
+ */
+public interface InstanceRowSource {
+    /**
+     * Visits every instance, in any status.
+     */
+    void forEachInstance(Consumer<InstanceRow> action);
+
+    /**
+     * Visits the instances created at or after the given time, in any status.
+     */
+    void forEachCreatedSince(Instant from, Consumer<InstanceRow> action);
+
+    /**
+     * Visits the instances created before the given time that are still pending, running or suspended.
+     */
+    void forEachActiveCreatedBefore(Instant createdBefore, Consumer<InstanceRow> action);
+
+    /**
+     * Reads a single instance, or returns null if it no longer exists.
+     */
+    InstanceRow get(String instanceId);
+
+    static InstanceRowSource fromClient(DurableTaskClient client, int pageSize) {
+        return new ClientInstanceRowSource(client, pageSize);
+    }
+}
@@ -0,0 +1,86 @@
+package com.function.QueryHelpers;
+
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.microsoft.durabletask.OrchestrationRuntimeStatus;
+
+/**
+ * A client-side copy of the instance table that is kept current by applying delta queries, so a
+ * dashboard refresh reads only what changed instead of every instance.
+ */
+public final class InstanceStatusView {
+    private final ConcurrentHashMap<String, InstanceRow> rows = new ConcurrentHashMap<>();
+    private final Set<String> activeIds = ConcurrentHashMap.newKeySet();
+    private volatile Instant watermark;
+
+    /**
+     * Queries the changes since the last refresh and applies them. The first refresh is a full scan.
+     */
+    public synchronized InstanceDelta refresh(InstanceRowSource source) {
+        return refresh(source, Instant.now());
+    }
+
+    public synchronized InstanceDelta refresh(InstanceRowSource source, Instant now) {
+        InstanceDelta delta = InstanceDeltaQuery.query(source, watermark, new ArrayList<>(activeIds), now);
+        apply(delta);
+        return delta;
+    }
+
+    /**
+     * Applies a delta. A row replaces the one held for the same instance unless it is older, so
+     * deltas that overlap, as consecutive ones do by the clock-skew allowance, are harmless.
+     */
+    public synchronized void apply(InstanceDelta delta) {
+        if (delta.isFullScan()) {
+            Set<String> present = new HashSet<>();
+            for (InstanceRow row : delta.getChanged()) {
+                present.add(row.getInstanceId());
+            }
+            rows.keySet().retainAll(present);
+            activeIds.retainAll(present);
+        }
+        for (InstanceRow row : delta.getChanged()) {
+            InstanceRow current = rows.get(row.getInstanceId());
+            if (current != null && row.getLastUpdatedAt().isBefore(current.getLastUpdatedAt())) {
+                continue;
+            }
+            rows.put(row.getInstanceId(), row);
+            if (row.isActive()) {
+                activeIds.add(row.getInstanceId());
+            } else {
+                activeIds.remove(row.getInstanceId());
+            }
+        }
+        for (String instanceId : delta.getRemovedInstanceIds()) {
+            rows.remove(instanceId);
+            activeIds.remove(instanceId);
+        }
+        watermark = delta.getWatermark();
+    }
+
+    public InstanceRow get(String instanceId) {
+        return rows.get(instanceId);
+    }
+
+    public int size() {
+        return rows.size();
+    }
+
+    public Set<String> getActiveInstanceIds() {
+        return Collections.unmodifiableSet(activeIds);
+    }
+
+    public Instant getWatermark() {
+        return watermark;
+    }
+
+    public Map<OrchestrationRuntimeStatus, Long> countByStatus() {
+        Map<OrchestrationRuntimeStatus, Long> counts = new EnumMap<>(OrchestrationRuntimeStatus.class);
+        for (InstanceRow row : rows.values()) {
+            counts.merge(row.getRuntimeStatus(), 1L, Long::sum);
+        }
+        return counts;
+    }
+}
@@ -0,0 +1,106 @@
+package com.function.ScheduleHelpers;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+
+/**
+ * Spreads the start times of many scheduled orchestrations across a window after the target
+ * time, so they don't all wake up in the same second.
+ *
+ * Each instance gets a fixed offset derived from a hash of its instance ID, so without a cap the
+ * same ID is always scheduled at the same time. With a per-second cap, instances are placed in
+ * hash order and a second that is already full pushes the instance to the next second with room.
+ * A moved instance takes the millisecond of its slot in that second (slot * 1000 / cap), so the
+ * instances moved into a second are spaced evenly over it instead of landing together. The schedule can then run past the end
+ * of the window, and an instance's start time depends on which other IDs are in the same batch.
+ * Placement is O(n log n) in the number of instances.
+ */
+public class StartTimeSpreader {
+    private final long windowMs;
+    private final int maxStartsPerSecond;
+
+    /**
+     * @param window             length of the window after the target time; zero disables spreading
+     * @param maxStartsPerSecond cap on starts scheduled in any one second, or 0 for no cap
+     */
+    public StartTimeSpreader(Duration window, int maxStartsPerSecond) {
+        this.windowMs = Math.max(0, window.toMillis());
+        this.maxStartsPerSecond = Math.max(0, maxStartsPerSecond);
+    }
+
+    /**
+     * Returns the start time of every instance, in the order the IDs were given.
+     */
+    public Map<String, Instant> assign(Instant targetTime, Collection<String> instanceIds) {
+        Map<String, Long> offsets = new HashMap<>();
+        for (String instanceId : instanceIds) {
+            offsets.put(instanceId, offsetMillis(instanceId));
+        }
+
+        if (maxStartsPerSecond > 0) {
+            // Place in (offset, id) order so the result doesn't depend on the input order
+            List<String> ordered = new ArrayList<>(offsets.keySet());
+            ordered.sort(Comparator.comparing((String id) -> offsets.get(id)).thenComparing(id -> id));
+            // Offsets only increase in this order, so every second before the cursor is full or unused
+            long cursor = Long.MIN_VALUE;
+            int startsInCursor = 0;
+            for (String instanceId : ordered) {
+                long offset = offsets.get(instanceId);
+                long second = Math.max(offset / 1000, cursor);
+                if (second != cursor) {
+                    cursor = second;
+                    startsInCursor = 0;
+                } else if (startsInCursor == maxStartsPerSecond) {
+                    second = ++cursor;
+                    startsInCursor = 0;
+                }
+                if (second != offset / 1000) {
+                    offsets.put(instanceId, second * 1000 + startsInCursor * 1000L / maxStartsPerSecond);
+                }
+                startsInCursor++;
+            }
+        }
+
+        Map<String, Instant> startTimes = new LinkedHashMap<>();
+        for (String instanceId : instanceIds) {
+            startTimes.put(instanceId, targetTime.plusMillis(offsets.get(instanceId)));
+        }
+        return startTimes;
+    }
+
+    long offsetMillis(String instanceId) {
+        return windowMs == 0 ? 0 : Math.floorMod(hash(instanceId), windowMs);
+    }
+
+    /**
+     * Highest number of start times that fall in the same wall-clock second.
+     */
+    public static int peakStartsPerSecond(Collection<Instant> startTimes) {
+        Map<Long, Integer> counts = new HashMap<>();
+        int peak = 0;
+        for (Instant startTime : startTimes) {
+            peak = Math.max(peak, counts.merge(startTime.getEpochSecond(), 1, Integer::sum));
+        }
+        return peak;
+    }
+
+    /**
+     * 64-bit FNV-1a over the UTF-8 bytes followed by the SplitMix64 finalizer. Unlike
+     * String.hashCode(), it spreads IDs that share long prefixes evenly.
+     */
+    static long hash(String value) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            h ^= (b & 0xff);
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 30;
+        h *= 0xbf58476d1ce4e5b9L;
+        h ^= h >>> 27;
+        h *= 0x94d049bb133111ebL;
+        h ^= h >>> 31;
+        return h;
+    }
+}
@@ -0,0 +1,89 @@
+package com.function;
+
+import com.microsoft.azure.functions.annotation.*;
+import com.function.ClientHelpers.SharedDurableClients;
+import com.function.ConfigHelpers.AppSettings;
+import com.function.JsonHelpers.DurableMetadataGsonProvider;
+import com.microsoft.azure.functions.*;
+
+import java.lang.management.ManagementFactory;
+import java.util.*;
+
+import com.microsoft.durabletask.*;
+import com.microsoft.durabletask.azurefunctions.DurableClientContext;
+import com.microsoft.durabletask.azurefunctions.DurableClientInput;
+import com.sun.management.HotSpotDiagnosticMXBean;
+
+
+/**
+ * Support functions for the AppCDS training run and startup benchmark (see appcds/README.md).
+ */
+public class StartupDiagnostics {
+    /**
+     * Ends the training run. -XX:ArchiveClassesAtExit only writes the archive when the JVM exits normally,
+     * and the host stops workers by killing the process, so the worker has to exit by itself. When the
+     * AppCds_TrainingExitAfterSeconds setting is set (Train-AppCds.ps1 sets it only on its local training
+     * host), the worker exits that many seconds after the JVM launched. The timer starts with the first
+     * AppCds_StartupReport call, which the script makes before the workload; nothing outside the worker
+     * can trigger the exit itself.
+     */
+    static {
+        long exitAfterSeconds = AppSettings.getLong("AppCds_TrainingExitAfterSeconds", 0);
+        if (exitAfterSeconds > 0) {
+            long delayMs = Math.max(0, exitAfterSeconds * 1000 - ManagementFactory.getRuntimeMXBean().getUptime());
+            Timer exitTimer = new Timer("appcds-exit", true);
+            exitTimer.schedule(new TimerTask() {
+                @Override
+                public void run() {
+                    System.exit(0);
+                }
+            }, delayMs);
+        }
+    }
+
+    /**
+     * HTTP-triggered function that reports when this worker JVM was launched and whether it mapped a
+     * class-data-sharing archive. With an instanceId query parameter it also reports the time from JVM
+     * launch until that orchestration completed.
+     */
+    @FunctionName("AppCds_StartupReport")
+    public HttpResponseMessage startupReport(
+            @HttpTrigger(name = "req", methods = {HttpMethod.GET, HttpMethod.POST}, authLevel = AuthorizationLevel.ANONYMOUS) HttpRequestMessage<Optional<String>> request,
+            @DurableClientInput(name = "durableContext") DurableClientContext durableContext,
+            final ExecutionContext context) {
+        long jvmStartTime = ManagementFactory.getRuntimeMXBean().getStartTime();
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("jvmStartTime", jvmStartTime);
+        report.put("jvmUptimeMs", ManagementFactory.getRuntimeMXBean().getUptime());
+        report.put("vmInfo", System.getProperty("java.vm.info"));
+        report.put("sharedArchiveFile", getVMOption("SharedArchiveFile"));
+        report.put("useSharedSpaces", getVMOption("UseSharedSpaces"));
+        report.put("loadedClassCount", ManagementFactory.getClassLoadingMXBean().getLoadedClassCount());
+
+        String instanceId = request.getQueryParameters().get("instanceId");
+        if (instanceId != null && !instanceId.isEmpty()) {
+            OrchestrationMetadata metadata = SharedDurableClients.get(durableContext).getInstanceMetadata(instanceId, false);
+            if (!metadata.isInstanceFound()) {
+                return request.createResponseBuilder(HttpStatus.NOT_FOUND)
+                        .body("No orchestration instance found with ID: " + instanceId)
+                        .build();
+            }
+            report.put("runtimeStatus", metadata.getRuntimeStatus());
+            if (metadata.isCompleted()) {
+                report.put("msFromJvmStartToCompletion", metadata.getLastUpdatedAt().toEpochMilli() - jvmStartTime);
+            }
+        }
+        return request.createResponseBuilder(HttpStatus.OK)
+                .header("Content-Type", "application/json")
+                .body(DurableMetadataGsonProvider.createGson().toJson(report))
+                .build();
+    }
+
+    private static String getVMOption(String name) {
+        try {
+            return ManagementFactory.getPlatformMXBean(HotSpotDiagnosticMXBean.class).getVMOption(name).getValue();
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
@@ -1,12 +1,15 @@
 package com.function;
 
 import com.microsoft.azure.functions.annotation.*;
+import com.function.BulkHelpers.BulkLifecycleOperation;
+import com.function.ClientHelpers.SharedDurableClients;
 import com.microsoft.azure.functions.*;
 
 import com.microsoft.durabletask.*;
 import com.microsoft.durabletask.azurefunctions.DurableClientContext;
 import com.microsoft.durabletask.azurefunctions.DurableClientInput;
 
+import java.util.Arrays;
 import java.util.Optional;
 
 
@@ -26,7 +29,7 @@ public class SuspendResumeOrchestration {
             final ExecutionContext context) {
 
         String suspendReason = "Suspending the instance for test.";
-        DurableTaskClient client = durableContext.getClient();
+        DurableTaskClient client = SharedDurableClients.get(durableContext);
 
         try {
             client.suspendInstance(instanceId, suspendReason);
@@ -50,7 +53,7 @@ public class SuspendResumeOrchestration {
             final ExecutionContext context) {
 
         String resumeReason = "Resuming the instance for test.";
-        DurableTaskClient client = durableContext.getClient();
+        DurableTaskClient client = SharedDurableClients.get(durableContext);
 
         try {
             client.resumeInstance(instanceId, resumeReason);
@@ -62,4 +65,32 @@ public class SuspendResumeOrchestration {
             return responseBuilder.build();
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * HTTP-triggered function to suspend every instance matched by a query. Running and
+     * pending instances are targeted when the query has no runtimeStatus.
+     */
+    @FunctionName("BulkSuspendInstances")
+    public HttpResponseMessage bulkSuspendInstances(
+            @HttpTrigger(name = "req", methods = {HttpMethod.POST}, authLevel = AuthorizationLevel.ANONYMOUS) HttpRequestMessage<Optional<String>> request,
+            @DurableClientInput(name = "durableContext") DurableClientContext durableContext,
+            final ExecutionContext context) {
+        return BulkLifecycleOperation.run(request, durableContext, context, "suspend",
+                Arrays.asList(OrchestrationRuntimeStatus.RUNNING, OrchestrationRuntimeStatus.PENDING),
+                (client, instanceId, reason) -> client.suspendInstance(instanceId, reason));
+    }
+
+    /**
+     * HTTP-triggered function to resume every instance matched by a query. Suspended
+     * instances are targeted when the query has no runtimeStatus.
+     */
+    @FunctionName("BulkResumeInstances")
+    public HttpResponseMessage bulkResumeInstances(
+            @HttpTrigger(name = "req", methods = {HttpMethod.POST}, authLevel = AuthorizationLevel.ANONYMOUS) HttpRequestMessage<Optional<String>> request,
+            @DurableClientInput(name = "durableContext") DurableClientContext durableContext,
+            final ExecutionContext context) {
+        return BulkLifecycleOperation.run(request, durableContext, context, "resume",
+                Arrays.asList(OrchestrationRuntimeStatus.SUSPENDED),
+                (client, instanceId, reason) -> client.resumeInstance(instanceId, reason));
+    }
+}
@@ -1,8 +1,18 @@
 package com.function;
 
 import com.microsoft.azure.functions.annotation.*;
+import com.function.BulkHelpers.*;
+import com.function.CancellationHelpers.ActivityCancellation;
+import com.function.CancellationHelpers.CancellationToken;
+import com.function.ClientHelpers.SharedDurableClients;
+import com.function.ConcurrencyHelpers.ActivityLimiter;
+import com.function.ConcurrencyHelpers.ActivityPermit;
+import com.function.ConcurrencyHelpers.ThrottledActivityRetry;
+import com.function.JsonHelpers.DurableMetadataGsonProvider;
+import com.function.exceptions.ActivityThrottledException;
 import com.microsoft.azure.functions.*;
 
+import java.time.Duration;
 import java.util.*;
 
 import com.microsoft.durabletask.*;
@@ -20,7 +30,9 @@ import java.util.logging.Logger;
 public class TerminateOrchestration {
 
     /**
-     * This is the orchestrator function.
+     * This is the orchestrator function. Without input it calls SimulatedWorkActivity with 100ms
+     * sleeps; with a sleep time as input it calls CancellableWorkActivity instead, whose sleeps end
+     * when the instance is terminated.
      */
     @FunctionName("LongRunningOrchestrator")
     public List<String> longRunningOrchestrator(
@@ -29,24 +41,31 @@ public class TerminateOrchestration {
         Logger logger = context.getLogger();
         logger.info("Starting long-running orchestration.");
         List<String> outputs = new ArrayList<>();
+        Integer sleepMs = ctx.getInput(Integer.class);
 
         // Call our fake activity 100,000 times to simulate an orchestration that might run for >= 10,000s (2.7 hours)
         for (int i = 0; i < 100000; i++) {
-            outputs.add(ctx.callActivity("SimulatedWorkActivity", 100, String.class).await());
+            if (sleepMs == null) {
+                outputs.add(ctx.callActivity("SimulatedWorkActivity", 100, ThrottledActivityRetry.options(), String.class).await());
+            } else {
+                SimulatedWork work = new SimulatedWork(ctx.getInstanceId(), sleepMs);
+                outputs.add(ctx.callActivity("CancellableWorkActivity", work, ThrottledActivityRetry.options(), String.class).await());
+            }
         }
 
         return outputs;
     }
 
     /**
-     * This is the activity function.
+     * This is the activity function. It runs under the SimulatedWorkActivity concurrency limit,
+     * see ActivityLimiter.
      */
     @FunctionName("SimulatedWorkActivity")
     public String simulatedWorkActivity(
             @DurableActivityTrigger(name = "sleepMs") int sleepMs,
-            final ExecutionContext context) {
+            final ExecutionContext context) throws ActivityThrottledException {
         context.getLogger().info("Sleeping for " + sleepMs + "ms.");
-        try {
+        try (ActivityPermit permit = ActivityLimiter.shared().acquire("SimulatedWorkActivity")) {
             Thread.sleep(sleepMs);
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
@@ -55,6 +74,29 @@ public class TerminateOrchestration {
         return "Slept for " + sleepMs + "ms.";
     }
 
+    /**
+     * Activity function for long sleeps. It stops sleeping as soon as the parent instance is
+     * terminated, so a terminated orchestration does not keep holding a worker thread. It runs
+     * under the CancellableWorkActivity concurrency limit, see ActivityLimiter.
+     */
+    @FunctionName("CancellableWorkActivity")
+    public String cancellableWorkActivity(
+            @DurableActivityTrigger(name = "work") SimulatedWork work,
+            final ExecutionContext context) throws ActivityThrottledException {
+        int sleepMs = work.getSleepMs();
+        context.getLogger().info("Sleeping for " + sleepMs + "ms.");
+        try (ActivityPermit permit = ActivityLimiter.shared().acquire("CancellableWorkActivity");
+             CancellationToken token = ActivityCancellation.register(work.getInstanceId())) {
+            if (!token.sleep(Duration.ofMillis(sleepMs))) {
+                return "Sleep canceled.";
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return "Sleep interrupted.";
+        }
+        return "Slept for " + sleepMs + "ms.";
+    }
+
     /**
      * HTTP-triggered function to terminate an orchestration instance.
      */
@@ -64,10 +106,11 @@ public class TerminateOrchestration {
             @DurableClientInput(name = "durableContext") DurableClientContext durableContext,
             @BindingName("instanceId") String instanceId,
             final ExecutionContext context) {
-        DurableTaskClient client = durableContext.getClient();
+        DurableTaskClient client = SharedDurableClients.get(durableContext);
         String reason = "Long-running orchestration was terminated early.";
         try {
             client.terminate(instanceId, reason);
+            ActivityCancellation.cancel(instanceId);
             return request.createResponseBuilder(HttpStatus.OK).build();
         } catch (Exception ex) {
             context.getLogger().severe(ex.getMessage());
@@ -77,4 +120,112 @@ public class TerminateOrchestration {
                     .build();
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * HTTP-triggered function to terminate every instance matched by a query. Running,
+     * pending and suspended instances are targeted when the query has no runtimeStatus.
+     */
+    @FunctionName("BulkTerminateInstances")
+    public HttpResponseMessage bulkTerminateInstances(
+            @HttpTrigger(name = "req", methods = {HttpMethod.POST}, authLevel = AuthorizationLevel.ANONYMOUS) HttpRequestMessage<Optional<String>> request,
+            @DurableClientInput(name = "durableContext") DurableClientContext durableContext,
+            final ExecutionContext context) {
+        return BulkLifecycleOperation.run(request, durableContext, context, "terminate",
+                Arrays.asList(OrchestrationRuntimeStatus.RUNNING, OrchestrationRuntimeStatus.PENDING, OrchestrationRuntimeStatus.SUSPENDED),
+                (client, instanceId, reason) -> {
+                    client.terminate(instanceId, reason);
+                    ActivityCancellation.cancel(instanceId);
+                });
+    }
+
+    /**
+     * HTTP-triggered benchmark: starts instanceCount LongRunningOrchestrator instances whose
+     * activities sleep for sleepMs, terminates them all once their activities are running, and
+     * reports how long it takes until no activity holds a worker thread. Without cancellation
+     * that takes up to sleepMs. Pass localSignal=false to measure the status watchdog alone.
+     * Activities must run in this process, so use a single local worker.
+     */
+    @FunctionName("ActivityCancellation_Benchmark")
+    public HttpResponseMessage activityCancellationBenchmark(
+            @HttpTrigger(name = "req", methods = {HttpMethod.GET, HttpMethod.POST}, authLevel = AuthorizationLevel.ANONYMOUS) HttpRequestMessage<Optional<String>> request,
+            @DurableClientInput(name = "durableContext") DurableClientContext durableContext,
+            final ExecutionContext context) {
+        Map<String, String> parameters = request.getQueryParameters();
+        int instanceCount = Integer.parseInt(parameters.getOrDefault("instanceCount", "20"));
+        int sleepMs = Integer.parseInt(parameters.getOrDefault("sleepMs", "60000"));
+        long timeoutMs = Long.parseLong(parameters.getOrDefault("timeoutSeconds", "120")) * 1000;
+        boolean localSignal = Boolean.parseBoolean(parameters.getOrDefault("localSignal", "true"));
+
+        DurableTaskClient client = SharedDurableClients.get(durableContext);
+        try {
+            int activeBefore = ActivityCancellation.getActiveCount();
+            List<String> instanceIds = new ArrayList<>();
+            for (int i = 0; i < instanceCount; i++) {
+                instanceIds.add(client.scheduleNewOrchestrationInstance("LongRunningOrchestrator", sleepMs));
+            }
+            long deadline = System.currentTimeMillis() + timeoutMs;
+            while (ActivityCancellation.getActiveCount() - activeBefore < instanceCount && System.currentTimeMillis() < deadline) {
+                Thread.sleep(100);
+            }
+            int activeAtTerminate = ActivityCancellation.getActiveCount();
+
+            long start = System.nanoTime();
+            BulkOperationResult terminated = new BulkOperationResult(false);
+            try (BulkOperationRunner runner = new BulkOperationRunner(BulkOperationRunner.DEFAULT_MAX_CONCURRENCY)) {
+                runner.runBatch(instanceIds, id -> {
+                    client.terminate(id, "Activity cancellation benchmark.");
+                    if (localSignal) {
+                        ActivityCancellation.cancel(id);
+                    }
+                }, terminated);
+            }
+            long terminateMs = (System.nanoTime() - start) / 1_000_000;
+            while (ActivityCancellation.getActiveCount() > activeBefore && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            long capacityRestoredMs = (System.nanoTime() - start) / 1_000_000;
+
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("instanceCount", instanceCount);
+            result.put("activitySleepMs", sleepMs);
+            result.put("activeActivitiesAtTerminate", activeAtTerminate - activeBefore);
+            result.put("terminateFailures", terminated.getFailed());
+            result.put("terminateMs", terminateMs);
+            result.put("capacityRestoredMs", capacityRestoredMs);
+            result.put("stillActive", ActivityCancellation.getActiveCount() - activeBefore);
+            result.put("cancellation", ActivityCancellation.getStats());
+            return request.createResponseBuilder(HttpStatus.OK)
+                    .header("Content-Type", "application/json")
+                    .body(DurableMetadataGsonProvider.createGson().toJson(result))
+                    .build();
+        } catch (Exception ex) {
+            context.getLogger().severe(ex.getMessage());
+            return request.createResponseBuilder(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .header("Content-Type", "text/plain")
+                    .body(ex.getMessage())
+                    .build();
+        }
+    }
+}
+
+/**
+ * Input for CancellableWorkActivity and LongActivity; carries the parent instance ID so the
+ * activity can be cancelled when that instance is terminated.
+ */
+class SimulatedWork {
+    private String instanceId;
+    private int sleepMs;
+
+    public SimulatedWork() {}
+
+    public SimulatedWork(String instanceId, int sleepMs) {
+        this.instanceId = instanceId;
+        this.sleepMs = sleepMs;
+    }
+
+    public String getInstanceId() { return instanceId; }
+    public void setInstanceId(String instanceId) { this.instanceId = instanceId; }
+
+    public int getSleepMs() { return sleepMs; }
+    public void setSleepMs(int sleepMs) { this.sleepMs = sleepMs; }
+}
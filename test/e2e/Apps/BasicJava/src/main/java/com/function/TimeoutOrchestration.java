@@ -1,6 +1,13 @@
 package com.function;
 
 import com.microsoft.azure.functions.annotation.*;
+import com.function.CancellationHelpers.ActivityCancellation;
+import com.function.CancellationHelpers.CancellationToken;
+import com.function.ClientHelpers.SharedDurableClients;
+import com.function.ConcurrencyHelpers.ActivityLimiter;
+import com.function.ConcurrencyHelpers.ActivityPermit;
+import com.function.ConcurrencyHelpers.ThrottledActivityRetry;
+import com.function.exceptions.ActivityThrottledException;
 import com.microsoft.azure.functions.*;
 
 import com.microsoft.durabletask.*;
@@ -39,7 +46,7 @@ public class TimeoutOrchestration {
                     .body("Please pass a valid integer for timeoutSeconds.").build();
         }
 
-        DurableTaskClient client = durableContext.getClient();
+        DurableTaskClient client = SharedDurableClients.get(durableContext);
         String instanceId = client.scheduleNewOrchestrationInstance("TimeoutOrchestrator", timeoutSeconds);
         context.getLogger().info("Started orchestration with ID = '" + instanceId + "'.");
 
@@ -55,7 +62,7 @@ public class TimeoutOrchestration {
 
         int timeoutSeconds = ctx.getInput(Integer.class);
 
-        Task<String> activityTask = ctx.callActivity("LongActivity", ctx.getInstanceId(), String.class);
+        Task<String> activityTask = ctx.callActivity("LongActivity", new SimulatedWork(ctx.getInstanceId(), 5000), ThrottledActivityRetry.options(), String.class);
         Task<Void> timeoutTask = ctx.createTimer(Duration.ofSeconds(timeoutSeconds));
 
         Task<?> winner = ctx.anyOf(activityTask, timeoutTask).await();
@@ -69,16 +76,20 @@ public class TimeoutOrchestration {
     }
 
     /**
-     * Activity function that simulates a long-running operation.
+     * Activity function that simulates a long-running operation. It stops early if the
+     * orchestration is terminated or has already finished, e.g. because the timeout won. It runs
+     * under the LongActivity concurrency limit, see ActivityLimiter.
      */
     @FunctionName("LongActivity")
     public String longActivity(
-            @DurableActivityTrigger(name = "instanceId") String instanceId,
-            final ExecutionContext context) {
-        try {
-            Thread.sleep(5000);
-        } catch (InterruptedException e) {
-            // Handle interruption if needed
+            @DurableActivityTrigger(name = "work") SimulatedWork work,
+            final ExecutionContext context) throws ActivityThrottledException, InterruptedException {
+        // An interrupted wait or sleep fails the activity rather than reporting success
+        try (ActivityPermit permit = ActivityLimiter.shared().acquire("LongActivity");
+             CancellationToken token = ActivityCancellation.register(work.getInstanceId())) {
+            if (!token.sleep(Duration.ofMillis(work.getSleepMs()))) {
+                return "The activity function was canceled";
+            }
         }
         return "The activity function completed successfully";
     }
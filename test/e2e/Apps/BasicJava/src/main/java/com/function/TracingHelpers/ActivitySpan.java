@@ -0,0 +1,66 @@
+package com.function.TracingHelpers;
+
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanContext;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.context.Scope;
+
+/**
+ * The span of one activity execution, a child of the orchestrator's activity call span whose
+ * context came with the input. It records how long the call waited between being scheduled and
+ * starting here (durabletask.queue_wait_ms), measured against the orchestrator's clock, and how
+ * long it ran (durabletask.execution_ms). It is the current span while open.
+ */
+public final class ActivitySpan implements AutoCloseable {
+    private static final ActivitySpan NONE = new ActivitySpan(null, null, 0);
+
+    private final Span span;
+    private final Scope scope;
+    private final long startNanos;
+
+    private ActivitySpan(Span span, Scope scope, long startNanos) {
+        this.span = span;
+        this.scope = scope;
+        this.startNanos = startNanos;
+    }
+
+    /**
+     * Starts the span, unless tracing is off or the call was not sampled (traceContext is null).
+     */
+    public static ActivitySpan start(Tracing tracing, String activityName, ActivityTraceContext traceContext) {
+        if (!tracing.isEnabled() || traceContext == null) {
+            return NONE;
+        }
+        SpanContext parent = Tracing.parse(traceContext.getTraceparent(), traceContext.getTracestate());
+        if (!parent.isValid() || !parent.isSampled()) {
+            return NONE;
+        }
+        long now = System.currentTimeMillis();
+        Span span = tracing.getTracer().spanBuilder("activity:" + activityName)
+                .setParent(Context.root().with(Span.wrap(parent)))
+                .setSpanKind(SpanKind.SERVER)
+                .setAttribute(Tracing.TYPE, "activity")
+                .setAttribute(Tracing.NAME, activityName)
+                .setAttribute(Tracing.QUEUE_WAIT_MS, Math.max(0, now - traceContext.getScheduledAtEpochMillis()))
+                .startSpan();
+        return new ActivitySpan(span, span.makeCurrent(), System.nanoTime());
+    }
+
+    public void fail(Throwable error) {
+        if (span != null) {
+            span.recordException(error);
+            span.setStatus(StatusCode.ERROR, error.getMessage());
+        }
+    }
+
+    @Override
+    public void close() {
+        if (span != null) {
+            scope.close();
+            span.setAttribute(Tracing.EXECUTION_MS, (System.nanoTime() - startNanos) / 1_000_000);
+            span.end();
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.function.TracingHelpers;
+
+/**
+ * W3C trace context of an activity call, carried in the activity's input, with the time the
+ * orchestrator scheduled it so the activity can tell how long it waited in the queue.
+ */
+public class ActivityTraceContext {
+    private String traceparent;
+    private String tracestate;
+    private long scheduledAtEpochMillis;
+
+    public ActivityTraceContext() {}
+
+    public ActivityTraceContext(String traceparent, String tracestate, long scheduledAtEpochMillis) {
+        this.traceparent = traceparent;
+        this.tracestate = tracestate;
+        this.scheduledAtEpochMillis = scheduledAtEpochMillis;
+    }
+
+    public String getTraceparent() { return traceparent; }
+    public void setTraceparent(String traceparent) { this.traceparent = traceparent; }
+
+    public String getTracestate() { return tracestate; }
+    public void setTracestate(String tracestate) { this.tracestate = tracestate; }
+
+    public long getScheduledAtEpochMillis() { return scheduledAtEpochMillis; }
+    public void setScheduledAtEpochMillis(long scheduledAtEpochMillis) { this.scheduledAtEpochMillis = scheduledAtEpochMillis; }
+}
@@ -0,0 +1,99 @@
+package com.function.TracingHelpers;
+
+import java.util.Map;
+
+import com.microsoft.azure.functions.ExecutionContext;
+import com.microsoft.azure.functions.HttpRequestMessage;
+import com.microsoft.azure.functions.TraceContext;
+
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanContext;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.context.Scope;
+
+/**
+ * The create_orchestration span of an HTTP starter. Its parent is the request's W3C traceparent
+ * header or, without one, the trace context the Functions host gave the invocation. It is the
+ * current span while open, so a client that propagates the current context passes it on, and
+ * {@link #traceContext} gives it to the orchestrator in its input.
+ */
+public final class OrchestrationStartSpan implements AutoCloseable {
+    private static final OrchestrationStartSpan NONE = new OrchestrationStartSpan(null, null);
+
+    private final Span span;
+    private final Scope scope;
+
+    private OrchestrationStartSpan(Span span, Scope scope) {
+        this.span = span;
+        this.scope = scope;
+    }
+
+    public static OrchestrationStartSpan start(Tracing tracing, HttpRequestMessage<?> request, ExecutionContext context,
+            String orchestrationName) {
+        if (!tracing.isEnabled()) {
+            return NONE;
+        }
+        SpanContext parent = Tracing.parse(header(request.getHeaders(), "traceparent"), header(request.getHeaders(), "tracestate"));
+        if (!parent.isValid()) {
+            TraceContext invocation = context.getTraceContext();
+            if (invocation != null) {
+                parent = Tracing.parse(invocation.getTraceparent(), invocation.getTracestate());
+            }
+        }
+        Span span = tracing.getTracer().spanBuilder("create_orchestration:" + orchestrationName)
+                .setParent(parent.isValid() ? Context.root().with(Span.wrap(parent)) : Context.root())
+                .setSpanKind(SpanKind.PRODUCER)
+                .setAttribute(Tracing.TYPE, "orchestration")
+                .setAttribute(Tracing.NAME, orchestrationName)
+                .startSpan();
+        return new OrchestrationStartSpan(span, span.makeCurrent());
+    }
+
+    /**
+     * Returns this span's context, to pass as the input of an orchestrator traced with
+     * {@link OrchestrationTracer}, or null when tracing is off.
+     */
+    public OrchestrationTraceContext traceContext() {
+        if (span == null) {
+            return null;
+        }
+        SpanContext spanContext = span.getSpanContext();
+        return new OrchestrationTraceContext(Tracing.traceparent(spanContext), Tracing.tracestate(spanContext),
+                System.currentTimeMillis());
+    }
+
+    /**
+     * Records the instance that was started.
+     */
+    public void started(String instanceId) {
+        if (span != null) {
+            span.setAttribute(Tracing.INSTANCE_ID, instanceId);
+        }
+    }
+
+    public void fail(Throwable error) {
+        if (span != null) {
+            span.recordException(error);
+            span.setStatus(StatusCode.ERROR, error.getMessage());
+        }
+    }
+
+    @Override
+    public void close() {
+        if (span != null) {
+            scope.close();
+            span.end();
+        }
+    }
+
+    private static String header(Map<String, String> headers, String name) {
+        for (Map.Entry<String, String> header : headers.entrySet()) {
+            if (header.getKey().equalsIgnoreCase(name)) {
+                return header.getValue();
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,29 @@
+package com.function.TracingHelpers;
+
+/**
+ * W3C trace context of an orchestration start, carried in the orchestration's input, with the
+ * time the start request was handled so the orchestrator can tell how long the start waited in
+ * the queue.
+ */
+public class OrchestrationTraceContext {
+    private String traceparent;
+    private String tracestate;
+    private long startedAtEpochMillis;
+
+    public OrchestrationTraceContext() {}
+
+    public OrchestrationTraceContext(String traceparent, String tracestate, long startedAtEpochMillis) {
+        this.traceparent = traceparent;
+        this.tracestate = tracestate;
+        this.startedAtEpochMillis = startedAtEpochMillis;
+    }
+
+    public String getTraceparent() { return traceparent; }
+    public void setTraceparent(String traceparent) { this.traceparent = traceparent; }
+
+    public String getTracestate() { return tracestate; }
+    public void setTracestate(String tracestate) { this.tracestate = tracestate; }
+
+    public long getStartedAtEpochMillis() { return startedAtEpochMillis; }
+    public void setStartedAtEpochMillis(long startedAtEpochMillis) { this.startedAtEpochMillis = startedAtEpochMillis; }
+}
@@ -0,0 +1,189 @@
+package com.function.TracingHelpers;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.function.Function;
+
+import com.microsoft.durabletask.TaskFailedException;
+import com.microsoft.durabletask.TaskOptions;
+import com.microsoft.durabletask.TaskOrchestrationContext;
+import com.microsoft.durabletask.interruption.ContinueAsNewInterruption;
+import com.microsoft.durabletask.interruption.OrchestratorBlockedException;
+
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.trace.*;
+import io.opentelemetry.context.Context;
+
+/**
+ * Traces one orchestrator invocation without duplicating spans across replays.
+ *
+ * The orchestration span's IDs are derived from the instance ID, with the starter's span (the
+ * {@link OrchestrationTraceContext} in the orchestration input) as its parent, or as a new trace
+ * when the start was not traced. It runs from the first to the last orchestrator time of the
+ * instance and is only ended by the invocation that completes or fails it, with ERROR status
+ * when the orchestrator fails. Each activity call gets a client span with IDs derived
+ * from the instance and the call's position, ended by the one invocation that first sees the
+ * result, i.e. is not replaying; its context goes into the activity input. Each invocation also
+ * ends one orchestration_episode span with its own wall-clock time.
+ */
+public final class OrchestrationTracer {
+    private static final AttributeKey<Boolean> REPLAYING = AttributeKey.booleanKey("durabletask.replaying_at_start");
+
+    private final Tracing tracing;
+    private final TaskOrchestrationContext ctx;
+    private final String orchestrationName;
+    private final SpanContext parent;
+    private final SpanContext orchestration;
+    private final Instant orchestrationStart;
+    private final Instant episodeStart;
+    private final boolean replayingAtStart;
+    private final long startedAtEpochMillis;
+    private int nextTaskId;
+
+    private OrchestrationTracer(TaskOrchestrationContext ctx) {
+        this.tracing = null;
+        this.ctx = ctx;
+        this.orchestrationName = null;
+        this.parent = SpanContext.getInvalid();
+        this.orchestration = SpanContext.getInvalid();
+        this.orchestrationStart = null;
+        this.episodeStart = null;
+        this.replayingAtStart = false;
+        this.startedAtEpochMillis = 0;
+    }
+
+    private OrchestrationTracer(Tracing tracing, TaskOrchestrationContext ctx, String orchestrationName,
+            OrchestrationTraceContext started) {
+        this.tracing = tracing;
+        this.ctx = ctx;
+        this.orchestrationName = orchestrationName;
+        this.episodeStart = Instant.now();
+        this.replayingAtStart = ctx.getIsReplaying();
+        this.orchestrationStart = ctx.getCurrentInstant();
+
+        String instanceId = ctx.getInstanceId();
+        SpanContext startParent = started == null ? SpanContext.getInvalid() : Tracing.parse(started.getTraceparent(), started.getTracestate());
+        this.parent = startParent;
+        this.startedAtEpochMillis = started == null ? 0 : started.getStartedAtEpochMillis();
+
+        String traceId = startParent.isValid() ? startParent.getTraceId() : Tracing.derivedId(instanceId, 32);
+        boolean sampled = startParent.isValid() ? startParent.isSampled() : tracing.isSampledRoot(traceId);
+        this.orchestration = sampled
+                ? SpanContext.create(traceId, Tracing.derivedId(instanceId + "/orchestration", 16), TraceFlags.getSampled(),
+                        startParent.getTraceState())
+                : SpanContext.getInvalid();
+    }
+
+    /**
+     * Starts tracing an orchestrator invocation; call {@link #endEpisode} in a finally block.
+     * {@code started} is the trace context from the orchestration input, or null when the start
+     * was not traced.
+     */
+    public static OrchestrationTracer begin(Tracing tracing, TaskOrchestrationContext ctx, String orchestrationName,
+            OrchestrationTraceContext started) {
+        return tracing.isEnabled() ? new OrchestrationTracer(tracing, ctx, orchestrationName, started) : new OrchestrationTracer(ctx);
+    }
+
+    /**
+     * Calls the activity with the input the factory makes from the call's trace context (null
+     * when this instance is not sampled) and waits for its result.
+     */
+    public <V> V callActivity(String name, Function<ActivityTraceContext, ?> input, TaskOptions options, Class<V> returnType) {
+        if (!orchestration.isValid()) {
+            return ctx.callActivity(name, input.apply(null), options, returnType).await();
+        }
+        int taskId = nextTaskId++;
+        Instant scheduledAt = ctx.getCurrentInstant();
+        String spanId = Tracing.derivedId(ctx.getInstanceId() + "/activity/" + taskId, 16);
+        SpanContext call = SpanContext.create(orchestration.getTraceId(), spanId, TraceFlags.getSampled(), orchestration.getTraceState());
+        ActivityTraceContext traceContext = new ActivityTraceContext(Tracing.traceparent(call), Tracing.tracestate(call),
+                scheduledAt.toEpochMilli());
+        try {
+            V result = ctx.callActivity(name, input.apply(traceContext), options, returnType).await();
+            endActivityCall(name, taskId, spanId, scheduledAt, null);
+            return result;
+        } catch (TaskFailedException e) {
+            endActivityCall(name, taskId, spanId, scheduledAt, e);
+            throw e;
+        }
+    }
+
+    /**
+     * Ends the orchestration span; call it when the orchestrator returns its output.
+     */
+    public void complete() {
+        endOrchestration(null);
+    }
+
+    /**
+     * Ends the orchestration span with ERROR status; call it when the orchestrator throws. The
+     * exceptions the SDK throws to suspend the orchestrator or continue it as new are ignored.
+     */
+    public void fail(RuntimeException error) {
+        if (error instanceof OrchestratorBlockedException || error instanceof ContinueAsNewInterruption) {
+            return;
+        }
+        endOrchestration(error);
+    }
+
+    private void endOrchestration(RuntimeException failure) {
+        if (!orchestration.isValid() || ctx.getIsReplaying()) {
+            return;
+        }
+        SpanBuilder builder = tracing.getTracer().spanBuilder("orchestration:" + orchestrationName)
+                .setParent(parent.isValid() ? Context.root().with(Span.wrap(parent)) : Context.root())
+                .setSpanKind(SpanKind.SERVER)
+                .setStartTimestamp(orchestrationStart)
+                .setAttribute(Tracing.TYPE, "orchestration")
+                .setAttribute(Tracing.NAME, orchestrationName)
+                .setAttribute(Tracing.INSTANCE_ID, ctx.getInstanceId());
+        if (startedAtEpochMillis > 0) {
+            builder.setAttribute(Tracing.QUEUE_WAIT_MS, Math.max(0, orchestrationStart.toEpochMilli() - startedAtEpochMillis));
+        }
+        Span span = tracing.startSpan(builder, orchestration.getTraceId(), orchestration.getSpanId());
+        if (failure != null) {
+            span.recordException(failure);
+            span.setStatus(StatusCode.ERROR, failure.getMessage());
+        }
+        span.end(ctx.getCurrentInstant());
+    }
+
+    /**
+     * Ends this invocation's episode span, whether the orchestrator completed, is waiting for
+     * more events or failed.
+     */
+    public void endEpisode() {
+        if (!orchestration.isValid()) {
+            return;
+        }
+        Instant end = Instant.now();
+        SpanBuilder builder = tracing.getTracer().spanBuilder("orchestration_episode:" + orchestrationName)
+                .setParent(Context.root().with(Span.wrap(orchestration)))
+                .setSpanKind(SpanKind.INTERNAL)
+                .setStartTimestamp(episodeStart)
+                .setAttribute(Tracing.INSTANCE_ID, ctx.getInstanceId())
+                .setAttribute(REPLAYING, replayingAtStart)
+                .setAttribute(Tracing.EXECUTION_MS, Duration.between(episodeStart, end).toMillis());
+        builder.startSpan().end(end);
+    }
+
+    private void endActivityCall(String name, int taskId, String spanId, Instant scheduledAt, TaskFailedException failure) {
+        if (ctx.getIsReplaying()) {
+            // An earlier invocation saw this result and ended the span
+            return;
+        }
+        Span span = tracing.startSpan(tracing.getTracer().spanBuilder("activity:" + name)
+                .setParent(Context.root().with(Span.wrap(orchestration)))
+                .setSpanKind(SpanKind.CLIENT)
+                .setStartTimestamp(scheduledAt)
+                .setAttribute(Tracing.TYPE, "activity")
+                .setAttribute(Tracing.NAME, name)
+                .setAttribute(Tracing.INSTANCE_ID, ctx.getInstanceId())
+                .setAttribute(Tracing.TASK_ID, (long) taskId)
+                .setAttribute(Tracing.SCHEDULED_TIME, scheduledAt.toString()), orchestration.getTraceId(), spanId);
+        if (failure != null) {
+            span.setStatus(StatusCode.ERROR, failure.getMessage());
+        }
+        span.end(ctx.getCurrentInstant());
+    }
+}
@@ -0,0 +1,45 @@
+package com.function.TracingHelpers;
+
+import io.opentelemetry.sdk.trace.IdGenerator;
+
+/**
+ * Random span and trace IDs, unless the calling thread has preset the IDs of the span it is
+ * about to start. Orchestrator spans use preset IDs derived from the instance, so every replay
+ * and every worker refers to the same span.
+ */
+final class PresetIdGenerator implements IdGenerator {
+    private static final ThreadLocal<String> nextSpanId = new ThreadLocal<>();
+    private static final ThreadLocal<String> nextTraceId = new ThreadLocal<>();
+
+    private final IdGenerator random = IdGenerator.random();
+
+    static void preset(String traceId, String spanId) {
+        nextTraceId.set(traceId);
+        nextSpanId.set(spanId);
+    }
+
+    static void clear() {
+        nextTraceId.remove();
+        nextSpanId.remove();
+    }
+
+    @Override
+    public String generateSpanId() {
+        String spanId = nextSpanId.get();
+        if (spanId == null) {
+            return random.generateSpanId();
+        }
+        nextSpanId.remove();
+        return spanId;
+    }
+
+    @Override
+    public String generateTraceId() {
+        String traceId = nextTraceId.get();
+        if (traceId == null) {
+            return random.generateTraceId();
+        }
+        nextTraceId.remove();
+        return traceId;
+    }
+}
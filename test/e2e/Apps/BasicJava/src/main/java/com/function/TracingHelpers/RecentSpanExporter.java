@@ -0,0 +1,52 @@
+package com.function.TracingHelpers;
+
+import java.util.*;
+
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+
+/**
+ * Keeps the most recent spans in memory, as a local stand-in for an OTLP collector; the
+ * Tracing_RecentSpans function returns them.
+ */
+public final class RecentSpanExporter implements SpanExporter {
+    private final int capacity;
+    private final ArrayDeque<SpanData> spans = new ArrayDeque<>();
+
+    public RecentSpanExporter(int capacity) {
+        this.capacity = capacity;
+    }
+
+    @Override
+    public synchronized CompletableResultCode export(Collection<SpanData> batch) {
+        for (SpanData span : batch) {
+            if (spans.size() == capacity) {
+                spans.removeFirst();
+            }
+            spans.addLast(span);
+        }
+        return CompletableResultCode.ofSuccess();
+    }
+
+    /**
+     * Returns the retained spans, oldest first.
+     */
+    public synchronized List<SpanData> getSpans() {
+        return new ArrayList<>(spans);
+    }
+
+    public synchronized void clear() {
+        spans.clear();
+    }
+
+    @Override
+    public CompletableResultCode flush() {
+        return CompletableResultCode.ofSuccess();
+    }
+
+    @Override
+    public CompletableResultCode shutdown() {
+        return CompletableResultCode.ofSuccess();
+    }
+}
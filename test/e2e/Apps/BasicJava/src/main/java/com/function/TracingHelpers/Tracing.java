@@ -0,0 +1,208 @@
+package com.function.TracingHelpers;
+
+import com.function.ConfigHelpers.AppSettings;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.trace.*;
+import io.opentelemetry.api.trace.propagation.W3CTraceContextPropagator;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.context.propagation.TextMapGetter;
+import io.opentelemetry.exporter.otlp.http.trace.OtlpHttpSpanExporter;
+import io.opentelemetry.sdk.resources.Resource;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.export.BatchSpanProcessor;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+import io.opentelemetry.sdk.trace.samplers.Sampler;
+import io.opentelemetry.sdk.trace.samplers.SamplingDecision;
+
+/**
+ * OpenTelemetry tracing of orchestration starts, orchestrator episodes and activities.
+ *
+ * Off unless Tracing_Enabled is true. Traces are sampled by trace ID at Tracing_SampleRatio
+ * (default 0.05) unless the caller's traceparent already decided; since the decision depends on
+ * the trace ID only, every episode and activity of an instance gets the same one on any worker.
+ * Spans are exported in batches, off the invocation thread, to an OTLP/HTTP collector at
+ * Tracing_OtlpEndpoint when Tracing_Exporter is otlp, or kept in memory (the last
+ * Tracing_RecentSpanCount, default 2000) for the Tracing_RecentSpans function when it is memory,
+ * the default.
+ */
+public final class Tracing {
+    static final AttributeKey<String> TYPE = AttributeKey.stringKey("durabletask.type");
+    static final AttributeKey<String> NAME = AttributeKey.stringKey("durabletask.task.name");
+    static final AttributeKey<String> INSTANCE_ID = AttributeKey.stringKey("durabletask.task.instance_id");
+    static final AttributeKey<Long> TASK_ID = AttributeKey.longKey("durabletask.task.task_id");
+    static final AttributeKey<String> SCHEDULED_TIME = AttributeKey.stringKey("durabletask.task.scheduled_time");
+    static final AttributeKey<Long> QUEUE_WAIT_MS = AttributeKey.longKey("durabletask.queue_wait_ms");
+    static final AttributeKey<Long> EXECUTION_MS = AttributeKey.longKey("durabletask.execution_ms");
+
+    private static final String INSTRUMENTATION_NAME = "com.function.BasicJava";
+    private static final TextMapGetter<Map<String, String>> MAP_GETTER = new TextMapGetter<Map<String, String>>() {
+        @Override
+        public Iterable<String> keys(Map<String, String> carrier) {
+            return carrier.keySet();
+        }
+
+        @Override
+        public String get(Map<String, String> carrier, String key) {
+            return carrier == null ? null : carrier.get(key);
+        }
+    };
+
+    private static final Tracing disabled = new Tracing();
+    private static final Tracing shared = fromSettings();
+
+    private final SdkTracerProvider provider;
+    private final Tracer tracer;
+    private final Sampler ratioSampler;
+    private final RecentSpanExporter recentSpans;
+
+    private Tracing() {
+        this.provider = null;
+        this.tracer = null;
+        this.ratioSampler = null;
+        this.recentSpans = null;
+    }
+
+    /**
+     * Creates tracing that samples sampleRatio of new traces and exports through the exporter.
+     */
+    public Tracing(double sampleRatio, SpanExporter exporter) {
+        this.ratioSampler = Sampler.traceIdRatioBased(sampleRatio);
+        this.provider = SdkTracerProvider.builder()
+                .setResource(Resource.getDefault().merge(Resource.create(Attributes.of(
+                        AttributeKey.stringKey("service.name"), AppSettings.getString("Tracing_ServiceName", "BasicJava")))))
+                .setSampler(Sampler.parentBased(ratioSampler))
+                .setIdGenerator(new PresetIdGenerator())
+                .addSpanProcessor(BatchSpanProcessor.builder(exporter).build())
+                .build();
+        this.tracer = provider.get(INSTRUMENTATION_NAME);
+        this.recentSpans = exporter instanceof RecentSpanExporter ? (RecentSpanExporter) exporter : null;
+    }
+
+    /**
+     * Tracing configured by the Tracing_* app settings.
+     */
+    public static Tracing shared() {
+        return shared;
+    }
+
+    /**
+     * Tracing that records nothing.
+     */
+    public static Tracing disabled() {
+        return disabled;
+    }
+
+    public boolean isEnabled() {
+        return tracer != null;
+    }
+
+    Tracer getTracer() {
+        return tracer;
+    }
+
+    /**
+     * The in-memory exporter, or null when spans go elsewhere.
+     */
+    public RecentSpanExporter getRecentSpans() {
+        return recentSpans;
+    }
+
+    /**
+     * Waits until the spans ended so far have been exported.
+     */
+    public void flush(Duration timeout) {
+        if (provider != null) {
+            provider.forceFlush().join(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Whether a trace that starts here, with no parent, is sampled.
+     */
+    boolean isSampledRoot(String traceId) {
+        return ratioSampler.shouldSample(Context.root(), traceId, "", SpanKind.INTERNAL, Attributes.empty(),
+                Collections.emptyList()).getDecision() == SamplingDecision.RECORD_AND_SAMPLE;
+    }
+
+    /**
+     * Starts the span the builder describes with the given trace and span IDs, so that the same
+     * span is referred to wherever it is started.
+     */
+    Span startSpan(SpanBuilder builder, String traceId, String spanId) {
+        PresetIdGenerator.preset(traceId, spanId);
+        try {
+            return builder.startSpan();
+        } finally {
+            PresetIdGenerator.clear();
+        }
+    }
+
+    /**
+     * Parses a W3C traceparent and tracestate; returns an invalid context if there is none.
+     */
+    static SpanContext parse(String traceparent, String tracestate) {
+        if (traceparent == null || traceparent.isEmpty()) {
+            return SpanContext.getInvalid();
+        }
+        Map<String, String> carrier = new HashMap<>();
+        carrier.put("traceparent", traceparent);
+        if (tracestate != null && !tracestate.isEmpty()) {
+            carrier.put("tracestate", tracestate);
+        }
+        Context context = W3CTraceContextPropagator.getInstance().extract(Context.root(), carrier, MAP_GETTER);
+        return Span.fromContext(context).getSpanContext();
+    }
+
+    static String traceparent(SpanContext spanContext) {
+        return "00-" + spanContext.getTraceId() + "-" + spanContext.getSpanId() + "-" + spanContext.getTraceFlags().asHex();
+    }
+
+    static String tracestate(SpanContext spanContext) {
+        if (spanContext.getTraceState().isEmpty()) {
+            return null;
+        }
+        StringBuilder builder = new StringBuilder();
+        spanContext.getTraceState().forEach((key, value) -> {
+            if (builder.length() > 0) {
+                builder.append(',');
+            }
+            builder.append(key).append('=').append(value);
+        });
+        return builder.toString();
+    }
+
+    /**
+     * A hex ID of the given length derived from the seed, never all zeros.
+     */
+    static String derivedId(String seed, int hexLength) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(seed.getBytes(StandardCharsets.UTF_8));
+            String id = HexFormat.of().formatHex(digest, 0, hexLength / 2);
+            return id.chars().allMatch(c -> c == '0') ? "1" + id.substring(1) : id;
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static Tracing fromSettings() {
+        if (!AppSettings.getBoolean("Tracing_Enabled", false)) {
+            return disabled;
+        }
+        double sampleRatio = Double.parseDouble(AppSettings.getString("Tracing_SampleRatio", "0.05"));
+        SpanExporter exporter = "otlp".equalsIgnoreCase(AppSettings.getString("Tracing_Exporter", "memory"))
+                ? OtlpHttpSpanExporter.builder()
+                        .setEndpoint(AppSettings.getString("Tracing_OtlpEndpoint", "http://localhost:4318/v1/traces"))
+                        .build()
+                : new RecentSpanExporter(AppSettings.getInt("Tracing_RecentSpanCount", 2000));
+        return new Tracing(sampleRatio, exporter);
+    }
+}
@@ -0,0 +1,194 @@
+package com.function;
+
+import com.microsoft.azure.functions.annotation.*;
+import com.function.ClientHelpers.SharedDurableClients;
+import com.function.ConcurrencyHelpers.ThrottledActivityRetry;
+import com.function.JsonHelpers.DurableMetadataGsonProvider;
+import com.microsoft.azure.functions.*;
+
+import java.time.Duration;
+import java.util.*;
+
+import com.microsoft.durabletask.*;
+import com.microsoft.durabletask.azurefunctions.DurableClientContext;
+import com.microsoft.durabletask.azurefunctions.DurableClientInput;
+import com.microsoft.durabletask.azurefunctions.DurableOrchestrationTrigger;
+
+
+/**
+ * Runs the LongRunningOrchestrator workload (many SimulatedWorkActivity calls) as a tree of
+ * sub-orchestrations, so the work is spread over many instances, and therefore partitions and
+ * workers, instead of being owned by a single instance.
+ */
+public class TreeFanOutOrchestration {
+
+    /**
+     * Orchestrator: splits its slice into branchingFactor child sub-orchestrations until
+     * maxDepth is reached, then runs the slice's activities in parallel. Each level returns
+     * only an aggregate, so parent histories stay small.
+     */
+    @FunctionName("TreeFanOutOrchestrator")
+    public FanOutAggregate treeFanOutOrchestrator(
+            @DurableOrchestrationTrigger(name = "ctx") TaskOrchestrationContext ctx) {
+        FanOutSlice slice = ctx.getInput(FanOutSlice.class);
+        if (slice == null) {
+            slice = new FanOutSlice(100000, 10, 3, 0, 100);
+        }
+
+        if (slice.getDepth() >= slice.getMaxDepth() || slice.getActivityCount() <= slice.getBranchingFactor()) {
+            List<Task<String>> activities = new ArrayList<>();
+            for (int i = 0; i < slice.getActivityCount(); i++) {
+                activities.add(ctx.callActivity("SimulatedWorkActivity", slice.getSleepMs(), ThrottledActivityRetry.options(), String.class));
+            }
+            FanOutAggregate aggregate = new FanOutAggregate();
+            for (String output : ctx.allOf(activities).await()) {
+                aggregate.add(output);
+            }
+            return aggregate;
+        }
+
+        // Children get deterministic IDs under the parent so they hash to different partitions
+        List<Task<FanOutAggregate>> children = new ArrayList<>();
+        int remaining = slice.getActivityCount();
+        for (int i = 0; i < slice.getBranchingFactor() && remaining > 0; i++) {
+            int childCount = (int) Math.ceil((double) remaining / (slice.getBranchingFactor() - i));
+            remaining -= childCount;
+            FanOutSlice child = new FanOutSlice(childCount, slice.getBranchingFactor(), slice.getMaxDepth(),
+                    slice.getDepth() + 1, slice.getSleepMs());
+            children.add(ctx.callSubOrchestrator("TreeFanOutOrchestrator", child,
+                    ctx.getInstanceId() + ":" + i, FanOutAggregate.class));
+        }
+        FanOutAggregate aggregate = new FanOutAggregate();
+        for (FanOutAggregate childAggregate : ctx.allOf(children).await()) {
+            aggregate.merge(childAggregate);
+        }
+        return aggregate;
+    }
+
+    /**
+     * HTTP-triggered benchmark: runs activityCount activities (default 10,000) as a tree with the
+     * given branchingFactor and maxDepth and reports activities per second. Run it once per
+     * worker count (pass workerCount as a label) to get throughput against workers.
+     */
+    @FunctionName("TreeFanOut_Benchmark")
+    public HttpResponseMessage treeFanOutBenchmark(
+            @HttpTrigger(name = "req", methods = {HttpMethod.GET, HttpMethod.POST}, authLevel = AuthorizationLevel.ANONYMOUS) HttpRequestMessage<Optional<String>> request,
+            @DurableClientInput(name = "durableContext") DurableClientContext durableContext,
+            final ExecutionContext context) {
+        Map<String, String> parameters = request.getQueryParameters();
+        FanOutSlice root = new FanOutSlice(
+                Integer.parseInt(parameters.getOrDefault("activityCount", "10000")),
+                Integer.parseInt(parameters.getOrDefault("branchingFactor", "10")),
+                Integer.parseInt(parameters.getOrDefault("maxDepth", "2")),
+                0,
+                Integer.parseInt(parameters.getOrDefault("sleepMs", "100")));
+        Duration timeout = Duration.ofMinutes(Integer.parseInt(parameters.getOrDefault("timeoutMinutes", "60")));
+
+        DurableTaskClient client = SharedDurableClients.get(durableContext);
+        try {
+            long start = System.nanoTime();
+            String instanceId = client.scheduleNewOrchestrationInstance("TreeFanOutOrchestrator", root);
+            OrchestrationMetadata metadata = client.waitForInstanceCompletion(instanceId, timeout, true);
+            long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+            FanOutAggregate aggregate = metadata.readOutputAs(FanOutAggregate.class);
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("instanceId", instanceId);
+            result.put("runtimeStatus", metadata.getRuntimeStatus());
+            result.put("workerCount", parameters.getOrDefault("workerCount", "unknown"));
+            result.put("branchingFactor", root.getBranchingFactor());
+            result.put("maxDepth", root.getMaxDepth());
+            result.put("elapsedMs", elapsedMs);
+            if (aggregate != null) {
+                result.put("activities", aggregate.getActivities());
+                result.put("activitiesPerSecond", elapsedMs == 0 ? aggregate.getActivities() : aggregate.getActivities() * 1000.0 / elapsedMs);
+            }
+            return request.createResponseBuilder(HttpStatus.OK)
+                    .header("Content-Type", "application/json")
+                    .body(DurableMetadataGsonProvider.createGson().toJson(result))
+                    .build();
+        } catch (Exception ex) {
+            context.getLogger().severe("Tree fan-out benchmark failed: " + ex.getMessage());
+            return request.createResponseBuilder(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .header("Content-Type", "text/plain")
+                    .body(ex.getMessage())
+                    .build();
+        }
+    }
+}
+
+/**
+ * The part of the workload owned by one TreeFanOutOrchestrator instance.
+ */
+class FanOutSlice {
+    private int activityCount;
+    private int branchingFactor;
+    private int maxDepth;
+    private int depth;
+    private int sleepMs;
+
+    public FanOutSlice() {}
+
+    public FanOutSlice(int activityCount, int branchingFactor, int maxDepth, int depth, int sleepMs) {
+        this.activityCount = activityCount;
+        this.branchingFactor = Math.max(2, branchingFactor);
+        this.maxDepth = maxDepth;
+        this.depth = depth;
+        this.sleepMs = sleepMs;
+    }
+
+    public int getActivityCount() { return activityCount; }
+    public void setActivityCount(int activityCount) { this.activityCount = activityCount; }
+
+    public int getBranchingFactor() { return branchingFactor; }
+    public void setBranchingFactor(int branchingFactor) { this.branchingFactor = branchingFactor; }
+
+    public int getMaxDepth() { return maxDepth; }
+    public void setMaxDepth(int maxDepth) { this.maxDepth = maxDepth; }
+
+    public int getDepth() { return depth; }
+    public void setDepth(int depth) { this.depth = depth; }
+
+    public int getSleepMs() { return sleepMs; }
+    public void setSleepMs(int sleepMs) { this.sleepMs = sleepMs; }
+}
+
+/**
+ * Compact result a TreeFanOutOrchestrator returns to its parent.
+ */
+class FanOutAggregate {
+    private int activities;
+    private int completed;
+    private int canceled;
+    private int subOrchestrations;
+
+    public FanOutAggregate() {}
+
+    void add(String activityOutput) {
+        activities++;
+        if (activityOutput != null && activityOutput.startsWith("Slept for")) {
+            completed++;
+        } else {
+            canceled++;
+        }
+    }
+
+    void merge(FanOutAggregate child) {
+        activities += child.activities;
+        completed += child.completed;
+        canceled += child.canceled;
+        subOrchestrations += child.subOrchestrations + 1;
+    }
+
+    public int getActivities() { return activities; }
+    public void setActivities(int activities) { this.activities = activities; }
+
+    public int getCompleted() { return completed; }
+    public void setCompleted(int completed) { this.completed = completed; }
+
+    public int getCanceled() { return canceled; }
+    public void setCanceled(int canceled) { this.canceled = canceled; }
+
+    public int getSubOrchestrations() { return subOrchestrations; }
+    public void setSubOrchestrations(int subOrchestrations) { this.subOrchestrations = subOrchestrations; }
+}
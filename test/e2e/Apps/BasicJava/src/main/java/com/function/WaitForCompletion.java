@@ -0,0 +1,158 @@
+package com.function;
+
+import com.microsoft.azure.functions.annotation.*;
+import com.function.ClientHelpers.SharedCompletionWaiter;
+import com.function.ClientHelpers.SharedDurableClients;
+import com.function.JsonHelpers.DurableMetadataGsonProvider;
+import com.microsoft.azure.functions.*;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.microsoft.durabletask.*;
+import com.microsoft.durabletask.azurefunctions.DurableClientContext;
+import com.microsoft.durabletask.azurefunctions.DurableClientInput;
+
+
+/**
+ * Long-poll alternative to polling the status query URL returned by the HTTP starters.
+ */
+public class WaitForCompletion {
+    /**
+     * HTTP-triggered function that holds the request open until instance "id" finishes, for up
+     * to "timeoutSeconds" (default 30). Returns 200 with the instance metadata when it finishes,
+     * or the usual 202 check-status response if it is still running when the timeout elapses.
+     */
+    @FunctionName("WaitForCompletion")
+    public HttpResponseMessage waitForCompletion(
+            @HttpTrigger(name = "req", methods = {HttpMethod.GET, HttpMethod.POST}, authLevel = AuthorizationLevel.ANONYMOUS) HttpRequestMessage<Optional<String>> request,
+            @DurableClientInput(name = "durableContext") DurableClientContext durableContext,
+            final ExecutionContext context) {
+        String instanceId = request.getQueryParameters().get("id");
+        if (instanceId == null || instanceId.isEmpty()) {
+            return request.createResponseBuilder(HttpStatus.BAD_REQUEST)
+                    .body("Missing instance id.")
+                    .build();
+        }
+        int timeoutSeconds;
+        try {
+            timeoutSeconds = Integer.parseInt(request.getQueryParameters().getOrDefault("timeoutSeconds", "30"));
+        } catch (NumberFormatException e) {
+            return request.createResponseBuilder(HttpStatus.BAD_REQUEST)
+                    .body("Please pass a valid integer for timeoutSeconds.")
+                    .build();
+        }
+        timeoutSeconds = Math.max(0, Math.min(timeoutSeconds, SharedCompletionWaiter.MAX_TIMEOUT_SECONDS));
+
+        DurableTaskClient client = SharedDurableClients.get(durableContext);
+        OrchestrationMetadata metadata;
+        try {
+            metadata = SharedCompletionWaiter.waitForCompletion(client, instanceId, Duration.ofSeconds(timeoutSeconds));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            metadata = null;
+        } catch (Exception ex) {
+            context.getLogger().severe("Error waiting for instance " + instanceId + ": " + ex.getMessage());
+            return request.createResponseBuilder(HttpStatus.BAD_REQUEST)
+                    .header("Content-Type", "text/plain")
+                    .body(ex.getMessage())
+                    .build();
+        }
+
+        if (metadata == null) {
+            return durableContext.createCheckStatusResponse(request, instanceId);
+        }
+        if (!metadata.isInstanceFound()) {
+            return request.createResponseBuilder(HttpStatus.NOT_FOUND)
+                    .body("Orchestration metadata not found.")
+                    .build();
+        }
+        return request.createResponseBuilder(HttpStatus.OK)
+                .header("Content-Type", "application/json")
+                .body(DurableMetadataGsonProvider.createGson().toJson(metadata))
+                .build();
+    }
+
+    /**
+     * HTTP-triggered benchmark: "callers" clients (default 50) wait for one TimeoutOrchestrator
+     * instance by polling its status every pollIntervalMs (default 1000), then for a second
+     * instance through the shared wait. Reports the client requests sent to the sidecar per second
+     * in both modes: getInstanceMetadata calls when polling, waitForInstanceCompletion calls when
+     * sharing. Each metadata call is one status read; the sidecar serves a wait by checking the
+     * status itself, and those storage reads are not measured here.
+     */
+    @FunctionName("WaitForCompletion_Benchmark")
+    public HttpResponseMessage waitForCompletionBenchmark(
+            @HttpTrigger(name = "req", methods = {HttpMethod.GET, HttpMethod.POST}, authLevel = AuthorizationLevel.ANONYMOUS) HttpRequestMessage<Optional<String>> request,
+            @DurableClientInput(name = "durableContext") DurableClientContext durableContext,
+            final ExecutionContext context) {
+        Map<String, String> parameters = request.getQueryParameters();
+        int callers = Integer.parseInt(parameters.getOrDefault("callers", "50"));
+        long pollIntervalMs = Long.parseLong(parameters.getOrDefault("pollIntervalMs", "1000"));
+        Duration timeout = Duration.ofSeconds(SharedCompletionWaiter.MAX_TIMEOUT_SECONDS);
+
+        DurableTaskClient client = SharedDurableClients.get(durableContext);
+        ExecutorService executor = Executors.newFixedThreadPool(callers);
+        try {
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("callers", callers);
+
+            String pollingInstanceId = client.scheduleNewOrchestrationInstance("TimeoutOrchestrator", 10);
+            AtomicLong statusReads = new AtomicLong();
+            long pollingMs = runCallers(executor, callers, () -> {
+                long deadline = System.nanoTime() + timeout.toNanos();
+                while (System.nanoTime() < deadline) {
+                    statusReads.incrementAndGet();
+                    OrchestrationMetadata metadata = client.getInstanceMetadata(pollingInstanceId, false);
+                    if (metadata.isCompleted()) {
+                        return null;
+                    }
+                    Thread.sleep(pollIntervalMs);
+                }
+                return null;
+            });
+            result.put("polling", modeResult(statusReads.get(), pollingMs));
+
+            String waitingInstanceId = client.scheduleNewOrchestrationInstance("TimeoutOrchestrator", 10);
+            long backendWaitsBefore = SharedCompletionWaiter.getBackendWaitCount();
+            long waitingMs = runCallers(executor, callers,
+                    () -> SharedCompletionWaiter.waitForCompletion(client, waitingInstanceId, timeout));
+            result.put("sharedWait", modeResult(SharedCompletionWaiter.getBackendWaitCount() - backendWaitsBefore, waitingMs));
+
+            return request.createResponseBuilder(HttpStatus.OK)
+                    .header("Content-Type", "application/json")
+                    .body(DurableMetadataGsonProvider.createGson().toJson(result))
+                    .build();
+        } catch (Exception ex) {
+            context.getLogger().severe("Wait benchmark failed: " + ex.getMessage());
+            return request.createResponseBuilder(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .header("Content-Type", "text/plain")
+                    .body(ex.getMessage())
+                    .build();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static long runCallers(ExecutorService executor, int callers, Callable<?> caller) throws Exception {
+        long start = System.nanoTime();
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < callers; i++) {
+            futures.add(executor.submit(caller));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        return (System.nanoTime() - start) / 1_000_000;
+    }
+
+    private static Map<String, Object> modeResult(long clientRequests, long elapsedMs) {
+        Map<String, Object> mode = new LinkedHashMap<>();
+        mode.put("clientRequests", clientRequests);
+        mode.put("elapsedMs", elapsedMs);
+        mode.put("clientRequestsPerSecond", elapsedMs == 0 ? clientRequests : clientRequests * 1000.0 / elapsedMs);
+        return mode;
+    }
+}
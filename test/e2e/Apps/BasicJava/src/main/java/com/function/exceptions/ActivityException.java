@@ -0,0 +1,56 @@
+package com.function.exceptions;
+
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+
+/**
+ * Base class for the exceptions thrown by this app's activities. It behaves like a plain
+ * {@link Exception} unless compact failures are turned on, see {@link CompactFailures}.
+ */
+public abstract class ActivityException extends Exception {
+    protected ActivityException(String message) {
+        super(CompactFailures.truncateMessage(message));
+    }
+
+    protected ActivityException(String message, Throwable cause) {
+        super(CompactFailures.truncateMessage(message), CompactFailures.truncateCauses(cause));
+    }
+
+    protected ActivityException(Throwable cause) {
+        super(CompactFailures.truncateCauses(cause));
+    }
+
+    @Override
+    public synchronized Throwable fillInStackTrace() {
+        if (!CompactFailures.isEnabled()) {
+            return super.fillInStackTrace();
+        }
+        setStackTrace(CompactFailures.captureStackTrace());
+        return this;
+    }
+
+    @Override
+    public void printStackTrace(PrintStream s) {
+        if (!CompactFailures.isEnabled()) {
+            super.printStackTrace(s);
+            return;
+        }
+        s.print(renderCompactStackTrace());
+    }
+
+    @Override
+    public void printStackTrace(PrintWriter s) {
+        if (!CompactFailures.isEnabled()) {
+            super.printStackTrace(s);
+            return;
+        }
+        s.print(renderCompactStackTrace());
+    }
+
+    private String renderCompactStackTrace() {
+        StringWriter buffer = new StringWriter();
+        super.printStackTrace(new PrintWriter(buffer));
+        return CompactFailures.truncateDetails(buffer.toString());
+    }
+}
@@ -0,0 +1,15 @@
+package com.function.exceptions;
+
+/**
+ * Thrown by an activity that could not get a slot from its concurrency limit, because its wait
+ * queue was full or it waited too long. The activity did no work, so it is safe to retry.
+ */
+public class ActivityThrottledException extends ActivityException {
+    public ActivityThrottledException(String message) {
+        super(message);
+    }
+
+    public String toString() {
+        return "ActivityThrottledException: " + getMessage();
+    }
+}
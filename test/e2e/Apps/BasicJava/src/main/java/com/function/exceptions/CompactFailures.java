@@ -0,0 +1,143 @@
+package com.function.exceptions;
+
+import com.function.ConfigHelpers.AppSettings;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Opt-in "compact failure" mode for the activity exceptions in this package.
+ *
+ * When the CompactFailures_Enabled app setting is true, {@link ActivityException} subclasses
+ * capture at most CompactFailures_MaxStackFrames frames (default 8) instead of walking the whole
+ * stack, keep at most CompactFailures_MaxCauseDepth nested causes (default 2, always including
+ * the root cause), and cap the message and printed stack trace that end up in FailureDetails
+ * at CompactFailures_MaxDetailsBytes UTF-8 bytes (default 4096). The exception class names are
+ * never changed and the root cause is kept as thrown, so retry handlers that match on
+ * FailureDetails.getErrorType() keep working.
+ */
+public final class CompactFailures {
+    static final String TRUNCATION_MARKER = "...[truncated]";
+
+    private static final boolean ENABLED = AppSettings.getBoolean("CompactFailures_Enabled", false);
+    private static final int MAX_STACK_FRAMES = AppSettings.getInt("CompactFailures_MaxStackFrames", 8);
+    private static final int MAX_CAUSE_DEPTH = AppSettings.getInt("CompactFailures_MaxCauseDepth", 2);
+    private static final int MAX_DETAILS_BYTES = AppSettings.getInt("CompactFailures_MaxDetailsBytes", 4096);
+
+    private static final StackWalker WALKER = StackWalker.getInstance(StackWalker.Option.RETAIN_CLASS_REFERENCE);
+
+    private CompactFailures() {}
+
+    public static boolean isEnabled() {
+        return ENABLED;
+    }
+
+    /**
+     * Captures the caller's top frames with a bounded stack walk, skipping the exception
+     * constructors themselves.
+     */
+    static StackTraceElement[] captureStackTrace() {
+        if (MAX_STACK_FRAMES <= 0) {
+            return new StackTraceElement[0];
+        }
+        return WALKER.walk(frames -> frames
+            .dropWhile(f -> f.getDeclaringClass() == CompactFailures.class
+                || Throwable.class.isAssignableFrom(f.getDeclaringClass()))
+            .limit(MAX_STACK_FRAMES)
+            .map(StackWalker.StackFrame::toStackTraceElement)
+            .toArray(StackTraceElement[]::new));
+    }
+
+    /**
+     * Returns the cause unchanged when compact mode is off, otherwise see
+     * {@link #truncateCauses(Throwable, int)} with MaxCauseDepth.
+     */
+    static Throwable truncateCauses(Throwable cause) {
+        return ENABLED ? truncateCauses(cause, MAX_CAUSE_DEPTH) : cause;
+    }
+
+    /**
+     * Returns the cause unchanged when its chain has at most maxDepth causes (at least 1).
+     * Otherwise elides the middle of the chain: copies of the first maxDepth - 1 causes, the
+     * last of which records how many causes were dropped, followed by the original root cause,
+     * so the root keeps its class for retry handlers that match on its error type.
+     */
+    static Throwable truncateCauses(Throwable cause, int maxDepth) {
+        if (cause == null) {
+            return null;
+        }
+
+        List<Throwable> chain = new ArrayList<>();
+        Set<Throwable> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Throwable t = cause; t != null && seen.add(t); t = t.getCause()) {
+            chain.add(t);
+        }
+        int keep = Math.max(1, maxDepth);
+        if (chain.size() <= keep) {
+            return cause;
+        }
+
+        Throwable truncated = chain.get(chain.size() - 1);
+        int omitted = chain.size() - keep;
+        for (int i = keep - 2; i >= 0; i--) {
+            String suffix = i == keep - 2 ? " (" + omitted + " more causes omitted)" : "";
+            truncated = new TruncatedCause(chain.get(i), suffix, truncated);
+        }
+        return truncated;
+    }
+
+    static String truncateMessage(String message) {
+        return ENABLED ? truncate(message, MAX_DETAILS_BYTES) : message;
+    }
+
+    static String truncateDetails(String details) {
+        return truncate(details, MAX_DETAILS_BYTES);
+    }
+
+    static String truncate(String text, int maxBytes) {
+        // A UTF-16 code unit never takes more than 3 UTF-8 bytes, so short strings skip encoding.
+        if (text == null || maxBytes <= 0 || text.length() <= maxBytes / 3) {
+            return text;
+        }
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length <= maxBytes) {
+            return text;
+        }
+        int keep = Math.max(0, maxBytes - TRUNCATION_MARKER.length());
+        // Don't split a multi-byte sequence
+        while (keep > 0 && (bytes[keep] & 0xC0) == 0x80) {
+            keep--;
+        }
+        return new String(bytes, 0, keep, StandardCharsets.UTF_8) + TRUNCATION_MARKER;
+    }
+
+    static StackTraceElement[] trimFrames(StackTraceElement[] frames) {
+        int limit = Math.max(0, MAX_STACK_FRAMES);
+        return frames.length <= limit ? frames : Arrays.copyOf(frames, limit);
+    }
+
+    /**
+     * Stand-in for a cause kept above the elided middle of a truncated chain. It renders
+     * with the original exception's description so the failure text still names the real type.
+     */
+    private static final class TruncatedCause extends Exception {
+        private final String description;
+
+        TruncatedCause(Throwable original, String suffix, Throwable cause) {
+            super(truncateMessage(original.getMessage()) + suffix, cause, false, true);
+            this.description = truncateMessage(original.toString()) + suffix;
+            setStackTrace(trimFrames(original.getStackTrace()));
+        }
+
+        @Override
+        public synchronized Throwable fillInStackTrace() {
+            // Frames are copied from the original exception instead
+            return this;
+        }
+
+        @Override
+        public String toString() {
+            return description;
+        }
+    }
+}
@@ -1,6 +1,6 @@
 package com.function.exceptions;
 
-public class InvalidOperationException extends Exception {
+public class InvalidOperationException extends ActivityException {
     public InvalidOperationException(String message) {
         super(message);
     }
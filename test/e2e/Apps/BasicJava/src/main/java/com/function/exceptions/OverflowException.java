@@ -1,6 +1,6 @@
 package com.function.exceptions;
 
-public class OverflowException extends Exception {
+public class OverflowException extends ActivityException {
     public OverflowException(String message) {
         super(message);
     }
@@ -0,0 +1,32 @@
+package com.function.AdmissionHelpers;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TokenBucketTest {
+    @Test
+    public void takesUpToBurst() {
+        TokenBucket bucket = new TokenBucket(1, 10);
+        assertEquals(0, bucket.tryTake(6));
+        assertEquals(0, bucket.tryTake(4));
+        assertTrue(bucket.tryTake() > 0);
+    }
+
+    @Test
+    public void partialTakeIsRefusedWithoutTakingTokens() {
+        TokenBucket bucket = new TokenBucket(1, 10);
+        assertEquals(0, bucket.tryTake(8));
+        long waitNanos = bucket.tryTake(5);
+        assertTrue(waitNanos > 2_000_000_000L && waitNanos <= 3_000_000_000L);
+        assertEquals(0, bucket.tryTake(2));
+    }
+
+    @Test
+    public void takeLargerThanBurstIsAllowedWhenFullAndLeavesDebt() {
+        TokenBucket bucket = new TokenBucket(1, 10);
+        assertEquals(0, bucket.tryTake(100));
+        // 90 tokens of debt plus one token to take
+        assertTrue(bucket.tryTake() > 90_000_000_000L);
+    }
+}
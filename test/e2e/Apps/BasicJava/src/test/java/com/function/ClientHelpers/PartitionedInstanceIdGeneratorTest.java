@@ -0,0 +1,98 @@
+package com.function.ClientHelpers;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PartitionedInstanceIdGeneratorTest {
+    @Test
+    public void partitionOfMatchesFnv1a32Vectors() {
+        // FNV-1a-32 of "" is 0x811C9DC5, of "a" 0xE40C292C and of "foobar" 0xBF9CF968
+        assertEquals(0x811C9DC5L % 1000, PartitionedInstanceIdGenerator.partitionOf("", 1000));
+        assertEquals(0xE40C292CL % 16, PartitionedInstanceIdGenerator.partitionOf("a", 16));
+        assertEquals(0xE40C292CL % 1000, PartitionedInstanceIdGenerator.partitionOf("a", 1000));
+        assertEquals(0xBF9CF968L % 16, PartitionedInstanceIdGenerator.partitionOf("foobar", 16));
+        assertEquals(0xBF9CF968L % 1000, PartitionedInstanceIdGenerator.partitionOf("foobar", 1000));
+    }
+
+    @Test
+    public void partitionOfHashesUtf8Bytes() {
+        // "caf\u00e9" hashes to 0xA82B5049 over its UTF-8 bytes, and to 0x3308BE7C over Latin-1
+        assertEquals(0xA82B5049L % 1000, PartitionedInstanceIdGenerator.partitionOf("caf\u00e9", 1000));
+        assertNotEquals(0x3308BE7CL % 1000, PartitionedInstanceIdGenerator.partitionOf("caf\u00e9", 1000));
+    }
+
+    @Test
+    public void partitionOfStaysInRange() {
+        for (int partitionCount : new int[] {1, 2, 4, 7, 16, Integer.MAX_VALUE}) {
+            for (int i = 0; i < 10000; i++) {
+                int partition = PartitionedInstanceIdGenerator.partitionOf(UUID.randomUUID().toString(), partitionCount);
+                assertTrue(partition >= 0 && partition < partitionCount,
+                        "partition " + partition + " out of range for " + partitionCount);
+            }
+        }
+    }
+
+    @Test
+    public void pinnedReturnsIdsOnTheRequestedPartition() {
+        PartitionedInstanceIdGenerator generator = new PartitionedInstanceIdGenerator(16);
+        for (int partition = 0; partition < 16; partition++) {
+            for (int i = 0; i < 100; i++) {
+                String instanceId = generator.pinned("order", partition);
+                assertTrue(instanceId.startsWith("order-"), instanceId);
+                assertEquals(partition, PartitionedInstanceIdGenerator.partitionOf(instanceId, 16));
+            }
+        }
+    }
+
+    @Test
+    public void pinnedRejectsPartitionsOutOfRange() {
+        PartitionedInstanceIdGenerator generator = new PartitionedInstanceIdGenerator(4);
+        assertThrows(IllegalArgumentException.class, () -> generator.pinned("order", -1));
+        assertThrows(IllegalArgumentException.class, () -> generator.pinned("order", 4));
+        assertThrows(IllegalArgumentException.class, () -> new PartitionedInstanceIdGenerator(0));
+    }
+
+    @Test
+    public void idsAreUniqueAcrossGeneratorsWithTheSamePrefix() {
+        // Two generators stand in for a restarted worker or a second scaled-out worker
+        Set<String> instanceIds = new HashSet<>();
+        for (PartitionedInstanceIdGenerator generator : new PartitionedInstanceIdGenerator[] {
+                new PartitionedInstanceIdGenerator(4), new PartitionedInstanceIdGenerator(4)}) {
+            for (int i = 0; i < 20000; i++) {
+                assertTrue(instanceIds.add(generator.next("order")), "duplicate instance ID");
+            }
+        }
+    }
+
+    @Test
+    public void nextSpreadsIdsEvenlyOverPartitions() {
+        int partitionCount = 16;
+        PartitionedInstanceIdGenerator generator = new PartitionedInstanceIdGenerator(partitionCount);
+        int[] perPartition = new int[partitionCount];
+        for (int i = 0; i < partitionCount * 500; i++) {
+            perPartition[PartitionedInstanceIdGenerator.partitionOf(generator.next("order"), partitionCount)]++;
+        }
+        for (int count : perPartition) {
+            assertEquals(500, count);
+        }
+    }
+
+    @Test
+    public void partitionOfSpreadsRandomIdsEvenly() {
+        int partitionCount = 16;
+        int count = 160000;
+        int[] perPartition = new int[partitionCount];
+        for (int i = 0; i < count; i++) {
+            perPartition[PartitionedInstanceIdGenerator.partitionOf(UUID.randomUUID().toString(), partitionCount)]++;
+        }
+        // 10,000 expected per partition; five standard deviations is about 500
+        for (int value : perPartition) {
+            assertTrue(Math.abs(value - count / partitionCount) < 500, "uneven partition count " + value);
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.function.ScheduleHelpers;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StartTimeSpreaderTest {
+    private static final Instant TARGET = Instant.parse("2030-01-01T00:00:00Z");
+
+    private static List<String> ids(int count) {
+        List<String> instanceIds = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            instanceIds.add("order-" + i);
+        }
+        return instanceIds;
+    }
+
+    @Test
+    public void capLimitsStartsPerSecond() {
+        Map<String, Instant> startTimes = new StartTimeSpreader(Duration.ofSeconds(10), 50).assign(TARGET, ids(5000));
+        assertEquals(5000, startTimes.size());
+        assertTrue(StartTimeSpreader.peakStartsPerSecond(startTimes.values()) <= 50);
+    }
+
+    @Test
+    public void movedInstancesStaySpreadWithinTheirSecond() {
+        // 5,000 starts in a 1s window with a cap of 50 moves almost every instance
+        Map<String, Instant> startTimes = new StartTimeSpreader(Duration.ofSeconds(1), 50).assign(TARGET, ids(5000));
+        Map<Instant, Integer> perMillisecond = new HashMap<>();
+        int moved = 0;
+        for (Instant startTime : startTimes.values()) {
+            if (!startTime.isBefore(TARGET.plusSeconds(1))) {
+                moved++;
+                assertEquals(1, (int) perMillisecond.merge(startTime, 1, Integer::sum), "two starts at " + startTime);
+            }
+        }
+        // The first second keeps 50 instances at their own offsets; 99 more seconds hold 50 moved ones each
+        assertEquals(4950, moved);
+        assertEquals(50, StartTimeSpreader.peakStartsPerSecond(startTimes.values()));
+    }
+
+    @Test
+    public void uncappedOffsetsStayInTheWindow() {
+        Map<String, Instant> startTimes = new StartTimeSpreader(Duration.ofSeconds(30), 0).assign(TARGET, ids(1000));
+        for (Instant startTime : startTimes.values()) {
+            assertFalse(startTime.isBefore(TARGET));
+            assertTrue(startTime.isBefore(TARGET.plusSeconds(30)));
+        }
+        assertEquals(startTimes, new StartTimeSpreader(Duration.ofSeconds(30), 0).assign(TARGET, ids(1000)));
+    }
+}
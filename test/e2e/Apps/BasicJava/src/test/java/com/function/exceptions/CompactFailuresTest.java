@@ -0,0 +1,66 @@
+package com.function.exceptions;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CompactFailuresTest {
+    private static Throwable chain(Throwable root, int wrappers) {
+        Throwable cause = root;
+        for (int i = wrappers; i > 0; i--) {
+            cause = new IllegalStateException("wrapper " + i, cause);
+        }
+        return cause;
+    }
+
+    private static Throwable rootOf(Throwable cause) {
+        while (cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return cause;
+    }
+
+    private static int depthOf(Throwable cause) {
+        int depth = 0;
+        for (Throwable t = cause; t != null; t = t.getCause()) {
+            depth++;
+        }
+        return depth;
+    }
+
+    @Test
+    public void overflowRootSurvivesTruncation() {
+        OverflowException root = new OverflowException("Inner exception message");
+        Throwable truncated = CompactFailures.truncateCauses(chain(root, 5), 2);
+
+        assertEquals(2, depthOf(truncated));
+        assertSame(root, rootOf(truncated));
+        assertEquals("OverflowException", rootOf(truncated).getClass().getSimpleName());
+        assertTrue(truncated.toString().startsWith("java.lang.IllegalStateException: wrapper 1"), truncated.toString());
+        assertTrue(truncated.toString().endsWith("(4 more causes omitted)"), truncated.toString());
+    }
+
+    @Test
+    public void rootIsKeptWhenMaxDepthIsZero() {
+        OverflowException root = new OverflowException("Inner exception message");
+        assertSame(root, CompactFailures.truncateCauses(chain(root, 3), 0));
+        assertSame(root, CompactFailures.truncateCauses(root, 0));
+    }
+
+    @Test
+    public void shortChainsAreUnchanged() {
+        OverflowException root = new OverflowException("Inner exception message");
+        Throwable cause = chain(root, 1);
+        assertSame(cause, CompactFailures.truncateCauses(cause, 2));
+        assertNull(CompactFailures.truncateCauses(null, 2));
+    }
+
+    @Test
+    public void invalidOperationKeepsOverflowCause() {
+        // The RaiseComplexException activity's shape, wrapped once more
+        OverflowException inner = new OverflowException("Inner exception message");
+        Throwable truncated = CompactFailures.truncateCauses(
+                new RuntimeException(new InvalidOperationException("This activity failed", inner)), 2);
+        assertSame(inner, rootOf(truncated));
+    }
+}